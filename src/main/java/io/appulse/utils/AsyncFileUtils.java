@@ -0,0 +1,456 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.appulse.utils;
+
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.WRITE;
+import static java.util.Locale.ENGLISH;
+import static lombok.AccessLevel.PRIVATE;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.AsynchronousFileChannel;
+import java.nio.channels.CompletionHandler;
+import java.nio.file.OpenOption;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.function.Function;
+import java.util.function.IntConsumer;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
+
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+import lombok.SneakyThrows;
+import lombok.experimental.FieldDefaults;
+import lombok.val;
+
+/**
+ * The helper methods for the asynchronous file reading and writing
+ * via {@link AsynchronousFileChannel}.
+ * <p>
+ * All methods return immediately, the I/O errors are reported through
+ * the returned {@link CompletableFuture}s. The futures are completed by
+ * the channel's thread pool, which is the JVM's default asynchronous
+ * channel group or the {@link ExecutorService}, passed to the method,
+ * so the dependent stages are executed there too.
+ * <p>
+ * The buffer's indices are updated right before the future's completion,
+ * the buffer must not be used by the caller until that moment.
+ *
+ * @since 1.19.0
+ * @author Artem Labazin
+ */
+public final class AsyncFileUtils {
+
+  /**
+   * Reads the whole file into a new resizable buffer.
+   *
+   * @param path the file to read
+   *
+   * @return the future with the file's content
+   */
+  public static CompletableFuture<Bytes> readAll (@NonNull Path path) {
+    return readAllFrom(path, Bytes::resizableArray, null);
+  }
+
+  /**
+   * Reads the whole file into a new resizable buffer.
+   *
+   * @param path the file to read
+   *
+   * @param executor the executor, which completes the I/O operations and the returned future
+   *
+   * @return the future with the file's content
+   */
+  public static CompletableFuture<Bytes> readAll (@NonNull Path path, @NonNull ExecutorService executor) {
+    return readAllFrom(path, Bytes::resizableArray, executor);
+  }
+
+  /**
+   * Reads the whole file into a buffer, acquired from the pool.
+   * <p>
+   * The buffer is released back to the pool if the reading fails,
+   * otherwise, the caller is responsible for its releasing.
+   * <p>
+   * <b>NOTE:</b> the buffer is acquired in the caller's thread and it
+   * waits for a free buffer, if the pool is exhausted.
+   *
+   * @param path the file to read
+   *
+   * @param pool the pool of the buffers
+   *
+   * @return the future with the pooled buffer, which contains the file's content
+   */
+  public static CompletableFuture<BytesPool.PooledBytes> readAll (@NonNull Path path, @NonNull BytesPool pool) {
+    return readAllFrom(path, pool::acquire, null);
+  }
+
+  /**
+   * Reads the whole file into a buffer, acquired from the pool,
+   * see {@link #readAll(Path, BytesPool)}.
+   *
+   * @param path the file to read
+   *
+   * @param pool the pool of the buffers
+   *
+   * @param executor the executor, which completes the I/O operations and the returned future
+   *
+   * @return the future with the pooled buffer, which contains the file's content
+   */
+  public static CompletableFuture<BytesPool.PooledBytes> readAll (@NonNull Path path, @NonNull BytesPool pool,
+                                                                  @NonNull ExecutorService executor
+  ) {
+    return readAllFrom(path, pool::acquire, executor);
+  }
+
+  /**
+   * Reads up to {@code length} bytes from the file's position into the buffer.
+   *
+   * @param path the file to read
+   *
+   * @param buffer the buffer into which the data is read, starting from its writer index
+   *
+   * @param position the file position at which the reading is started
+   *
+   * @param length the maximum number of bytes to read
+   *
+   * @return the future with the number of read bytes, it is less than
+   *         the {@code length} only if the end of the file is reached;
+   *         the future fails with {@link IndexOutOfBoundsException} if the buffer
+   *         is not auto-resizable and has less than {@code length} writable bytes
+   */
+  public static CompletableFuture<Integer> read (@NonNull Path path, @NonNull Bytes buffer, long position, int length) {
+    return withChannel(() -> open(path, null, READ), channel ->
+        read(channel, buffer, position, length));
+  }
+
+  /**
+   * Reads up to {@code length} bytes from the file's position into the buffer.
+   *
+   * @param path the file to read
+   *
+   * @param buffer the buffer into which the data is read, starting from its writer index
+   *
+   * @param position the file position at which the reading is started
+   *
+   * @param length the maximum number of bytes to read
+   *
+   * @param executor the executor, which completes the I/O operations and the returned future
+   *
+   * @return the future with the number of read bytes, it is less than
+   *         the {@code length} only if the end of the file is reached;
+   *         the future fails with {@link IndexOutOfBoundsException} if the buffer
+   *         is not auto-resizable and has less than {@code length} writable bytes
+   */
+  public static CompletableFuture<Integer> read (@NonNull Path path, @NonNull Bytes buffer, long position, int length,
+                                                 @NonNull ExecutorService executor
+  ) {
+    return withChannel(() -> open(path, executor, READ), channel ->
+        read(channel, buffer, position, length));
+  }
+
+  /**
+   * Reads up to {@code length} bytes from the channel's position into the buffer.
+   * <p>
+   * The auto-resizable buffer is extended if it doesn't have enough writable bytes.
+   * The channel is not closed after the operation.
+   *
+   * @param channel the channel to read
+   *
+   * @param buffer the buffer into which the data is read, starting from its writer index
+   *
+   * @param position the file position at which the reading is started
+   *
+   * @param length the maximum number of bytes to read
+   *
+   * @return the future with the number of read bytes, it is less than
+   *         the {@code length} only if the end of the file is reached;
+   *         the future fails with {@link IndexOutOfBoundsException} if the buffer
+   *         is not auto-resizable and has less than {@code length} writable bytes
+   */
+  public static CompletableFuture<Integer> read (@NonNull AsynchronousFileChannel channel, @NonNull Bytes buffer,
+                                                 long position, int length
+  ) {
+    val future = new CompletableFuture<Integer>();
+    try {
+      checkRegion(position, length);
+      if (buffer.writableBytes() < length) {
+        if (!buffer.isAutoResizable()) {
+          val msg = String.format(ENGLISH,
+              "The buffer has %d writable bytes, but the read length is %d",
+              buffer.writableBytes(), length);
+          throw new IndexOutOfBoundsException(msg);
+        }
+        buffer.capacity(buffer.writerIndex() + length);
+      }
+
+      val writerIndex = buffer.writerIndex();
+      val target = buffer.nioBuffer(writerIndex, length);
+      val handler = new TransferHandler(channel, true, position, future, transferred ->
+          buffer.writerIndex(writerIndex + transferred));
+      handler.start(target);
+    } catch (Exception ex) {
+      future.completeExceptionally(ex);
+    }
+    return future;
+  }
+
+  /**
+   * Writes all readable bytes of the buffer into the file's position.
+   * The file is created if it doesn't exist.
+   *
+   * @param path the file to write
+   *
+   * @param buffer the buffer, which readable bytes are written
+   *
+   * @param position the file position at which the writing is started
+   *
+   * @return the future with the number of written bytes
+   */
+  public static CompletableFuture<Integer> write (@NonNull Path path, @NonNull Bytes buffer, long position) {
+    return withChannel(() -> open(path, null, CREATE, WRITE), channel ->
+        write(channel, buffer, position, buffer.readableBytes()));
+  }
+
+  /**
+   * Writes all readable bytes of the buffer into the file's position.
+   * The file is created if it doesn't exist.
+   *
+   * @param path the file to write
+   *
+   * @param buffer the buffer, which readable bytes are written
+   *
+   * @param position the file position at which the writing is started
+   *
+   * @param executor the executor, which completes the I/O operations and the returned future
+   *
+   * @return the future with the number of written bytes
+   */
+  public static CompletableFuture<Integer> write (@NonNull Path path, @NonNull Bytes buffer, long position,
+                                                  @NonNull ExecutorService executor
+  ) {
+    return withChannel(() -> open(path, executor, CREATE, WRITE), channel ->
+        write(channel, buffer, position, buffer.readableBytes()));
+  }
+
+  /**
+   * Writes all readable bytes of the buffer into the channel's position.
+   * The channel is not closed after the operation.
+   *
+   * @param channel the channel to write
+   *
+   * @param buffer the buffer, which readable bytes are written
+   *
+   * @param position the file position at which the writing is started
+   *
+   * @return the future with the number of written bytes
+   */
+  public static CompletableFuture<Integer> write (@NonNull AsynchronousFileChannel channel, @NonNull Bytes buffer,
+                                                  long position
+  ) {
+    return write(channel, buffer, position, buffer.readableBytes());
+  }
+
+  /**
+   * Writes up to {@code length} readable bytes of the buffer into the channel's position.
+   * The channel is not closed after the operation.
+   *
+   * @param channel the channel to write
+   *
+   * @param buffer the buffer, which readable bytes are written
+   *
+   * @param position the file position at which the writing is started
+   *
+   * @param length the maximum number of bytes to write
+   *
+   * @return the future with the number of written bytes
+   */
+  public static CompletableFuture<Integer> write (@NonNull AsynchronousFileChannel channel, @NonNull Bytes buffer,
+                                                  long position, int length
+  ) {
+    val future = new CompletableFuture<Integer>();
+    try {
+      checkRegion(position, length);
+
+      val readerIndex = buffer.readerIndex();
+      val source = buffer.nioBuffer(readerIndex, Math.min(length, buffer.readableBytes()));
+      val handler = new TransferHandler(channel, false, position, future, transferred ->
+          buffer.readerIndex(readerIndex + transferred));
+      handler.start(source);
+    } catch (Exception ex) {
+      future.completeExceptionally(ex);
+    }
+    return future;
+  }
+
+  private static <T extends Bytes> CompletableFuture<T> readAllFrom (Path path,
+                                                                     IntFunction<T> allocator,
+                                                                     ExecutorService executor
+  ) {
+    return withChannel(() -> open(path, executor, READ), channel -> {
+      val size = sizeOf(channel);
+      val buffer = allocator.apply(size);
+
+      return read(channel, buffer, 0, size)
+          .whenComplete((readed, throwable) -> {
+            if (throwable != null && buffer instanceof BytesPool.PooledBytes) {
+              ((BytesPool.PooledBytes) buffer).release();
+            }
+          })
+          .thenApply(readed -> buffer);
+    });
+  }
+
+  private static <T> CompletableFuture<T> withChannel (Supplier<AsynchronousFileChannel> opener,
+                                                       Function<AsynchronousFileChannel, CompletableFuture<T>> action
+  ) {
+    final AsynchronousFileChannel channel;
+    final CompletableFuture<T> result;
+    try {
+      channel = opener.get();
+    } catch (Exception ex) {
+      return failed(ex);
+    }
+    try {
+      result = action.apply(channel);
+    } catch (Exception ex) {
+      closeQuietly(channel);
+      return failed(ex);
+    }
+    return result.whenComplete((value, throwable) -> closeQuietly(channel));
+  }
+
+  @SneakyThrows
+  private static AsynchronousFileChannel open (Path path, ExecutorService executor, OpenOption... options) {
+    val set = new HashSet<OpenOption>(Arrays.asList(options));
+    return AsynchronousFileChannel.open(path, set, executor);
+  }
+
+  @SneakyThrows
+  private static int sizeOf (AsynchronousFileChannel channel) {
+    val size = channel.size();
+    if (size > Integer.MAX_VALUE) {
+      val msg = String.format(ENGLISH, "The file is too big (%d bytes) to fit into Bytes", size);
+      throw new IllegalArgumentException(msg);
+    }
+    return (int) size;
+  }
+
+  private static void checkRegion (long position, int length) {
+    if (position < 0) {
+      val msg = String.format(ENGLISH, "Invalid position %d. The position must be greater or equal 0", position);
+      throw new IllegalArgumentException(msg);
+    }
+    if (length < 0) {
+      val msg = String.format(ENGLISH, "Invalid length %d. The length must be greater or equal 0", length);
+      throw new IndexOutOfBoundsException(msg);
+    }
+  }
+
+  private static void closeQuietly (AsynchronousFileChannel channel) {
+    try {
+      channel.close();
+    } catch (IOException ex) {
+      // nothing to do, the operation is already completed
+    }
+  }
+
+  private static <T> CompletableFuture<T> failed (Throwable throwable) {
+    val result = new CompletableFuture<T>();
+    result.completeExceptionally(throwable);
+    return result;
+  }
+
+  private AsyncFileUtils () {
+    throw new UnsupportedOperationException();
+  }
+
+  /**
+   * Repeats the reading/writing till the whole buffer is transferred
+   * or the end of the file is reached.
+   */
+  @FieldDefaults(level = PRIVATE)
+  @RequiredArgsConstructor
+  private static final class TransferHandler implements CompletionHandler<Integer, ByteBuffer> {
+
+    final AsynchronousFileChannel channel;
+
+    final boolean reading;
+
+    final long position;
+
+    final CompletableFuture<Integer> future;
+
+    final IntConsumer updater;
+
+    int transferred;
+
+    @Override
+    public void completed (Integer result, ByteBuffer buffer) {
+      if (result < 0) {
+        complete();
+        return;
+      }
+      transferred += result;
+      if (buffer.hasRemaining()) {
+        next(buffer);
+      } else {
+        complete();
+      }
+    }
+
+    @Override
+    public void failed (Throwable throwable, ByteBuffer buffer) {
+      future.completeExceptionally(throwable);
+    }
+
+    void start (ByteBuffer buffer) {
+      if (buffer.hasRemaining()) {
+        next(buffer);
+      } else {
+        complete();
+      }
+    }
+
+    private void next (ByteBuffer buffer) {
+      try {
+        if (reading) {
+          channel.read(buffer, position + transferred, buffer, this);
+        } else {
+          channel.write(buffer, position + transferred, buffer, this);
+        }
+      } catch (Exception ex) {
+        future.completeExceptionally(ex);
+      }
+    }
+
+    private void complete () {
+      try {
+        updater.accept(transferred);
+      } catch (Exception ex) {
+        future.completeExceptionally(ex);
+        return;
+      }
+      future.complete(transferred);
+    }
+  }
+}
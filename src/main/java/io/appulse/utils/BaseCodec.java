@@ -0,0 +1,1051 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.appulse.utils;
+
+import static java.nio.charset.StandardCharsets.US_ASCII;
+import static java.util.Locale.ENGLISH;
+import static lombok.AccessLevel.PRIVATE;
+
+import java.io.Writer;
+import java.nio.CharBuffer;
+import java.util.Arrays;
+
+import lombok.NonNull;
+import lombok.SneakyThrows;
+import lombok.experimental.FieldDefaults;
+import lombok.val;
+
+/**
+ * The RFC 4648 binary-to-text codecs (Base64, URL-safe Base64, Base32 and Base16),
+ * which encode a {@link Bytes} range into a target {@link Bytes} (as ASCII)
+ * or an {@link Appendable}, and decode back into a target {@link Bytes}.
+ * <p>
+ * The codecs don't build the whole encoded or decoded content in memory:
+ * each call stages its output in a bounded buffer (up to 4 KiB), which is
+ * written to the target after every chunk. The encoder writes the ASCII
+ * digits straight into a byte buffer for a {@link Bytes} target and the chars
+ * into a char buffer for an {@link Appendable} one. The off-heap and the text
+ * inputs are read through a bounded chunk buffer of the same size.
+ * <p>
+ * The large inputs could be processed chunk by chunk with the streaming
+ * {@link #newEncoder(Appendable) encoders} and {@link #newDecoder(Bytes) decoders}.
+ * <p>
+ * Usage example:
+ * <pre>{@code
+ * String json = BaseCodec.BASE64.encodeToString(payload);
+ *
+ * Bytes decoded = Bytes.resizableArray();
+ * BaseCodec.BASE64.decode(json, decoded);
+ * }</pre>
+ * <p>
+ * The decoders accept the input with or without the padding, the {@link #BASE16 Base16}
+ * and {@link #BASE32 Base32} decoders accept the lower case letters too.
+ * The {@link #BASE16 Base16} codec produces the same digits as the {@link HexUtil}.
+ *
+ * @since 1.19.0
+ * @author Artem Labazin
+ */
+@FieldDefaults(level = PRIVATE, makeFinal = true)
+public final class BaseCodec {
+
+  /**
+   * The standard Base64 codec with the padding.
+   */
+  public static final BaseCodec BASE64 = new BaseCodec(
+      "BASE64",
+      "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/",
+      true
+  );
+
+  /**
+   * The URL and filename safe Base64 codec with the padding.
+   */
+  public static final BaseCodec BASE64_URL = new BaseCodec(
+      "BASE64_URL",
+      "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789-_",
+      true
+  );
+
+  /**
+   * The Base32 codec with the padding.
+   */
+  public static final BaseCodec BASE32 = new BaseCodec(
+      "BASE32",
+      "ABCDEFGHIJKLMNOPQRSTUVWXYZ234567",
+      true
+  );
+
+  /**
+   * The Base16 (upper case hex) codec.
+   */
+  public static final BaseCodec BASE16 = new BaseCodec(
+      "BASE16",
+      "0123456789ABCDEF",
+      true
+  );
+
+  private static final char PADDING = '=';
+
+  private static final int STREAM_CHUNK_SIZE = 4096;
+
+  String name;
+
+  char[] alphabet;
+
+  byte[] asciiAlphabet;
+
+  // the values of the alphabet's ASCII characters, -1 for the other characters
+  byte[] values;
+
+  boolean padding;
+
+  int bitsPerChar;
+
+  int charMask;
+
+  // the number of chars, which encode a whole number of bytes
+  int blockChars;
+
+  int blockBytes;
+
+  private BaseCodec (String name, String alphabet, boolean padding) {
+    this.name = name;
+    this.alphabet = alphabet.toCharArray();
+    this.asciiAlphabet = alphabet.getBytes(US_ASCII);
+    this.padding = padding;
+
+    bitsPerChar = Integer.numberOfTrailingZeros(alphabet.length());
+    charMask = alphabet.length() - 1;
+    blockChars = 8 / gcd(8, bitsPerChar);
+    blockBytes = blockChars * bitsPerChar / 8;
+
+    values = new byte[128];
+    Arrays.fill(values, (byte) -1);
+    val hasLowerCase = !alphabet.toUpperCase(ENGLISH).equals(alphabet);
+    for (int index = 0; index < alphabet.length(); index++) {
+      val character = alphabet.charAt(index);
+      values[character] = (byte) index;
+      if (!hasLowerCase) {
+        values[Character.toLowerCase(character)] = (byte) index;
+      }
+    }
+  }
+
+  private BaseCodec (BaseCodec codec, boolean padding) {
+    name = codec.name;
+    alphabet = codec.alphabet;
+    asciiAlphabet = codec.asciiAlphabet;
+    values = codec.values;
+    bitsPerChar = codec.bitsPerChar;
+    charMask = codec.charMask;
+    blockChars = codec.blockChars;
+    blockBytes = codec.blockBytes;
+    this.padding = padding;
+  }
+
+  /**
+   * Returns the same codec, which doesn't append the padding characters.
+   *
+   * @return the codec without the padding
+   */
+  public BaseCodec withoutPadding () {
+    return padding
+           ? new BaseCodec(this, false)
+           : this;
+  }
+
+  /**
+   * Tells if the codec appends the padding characters.
+   *
+   * @return {@code true} if the encoded text is padded
+   */
+  public boolean isPadding () {
+    return padding;
+  }
+
+  /**
+   * Returns the encoded text's length for the given number of bytes.
+   *
+   * @param length the number of bytes
+   *
+   * @return the number of characters
+   */
+  public long encodedLength (long length) {
+    val chars = (length * 8 + bitsPerChar - 1) / bitsPerChar;
+    return padding
+           ? (chars + blockChars - 1) / blockChars * blockChars
+           : chars;
+  }
+
+  /**
+   * Returns the maximum decoded bytes' count for the given text's length.
+   *
+   * @param length the text's length
+   *
+   * @return the maximum number of bytes
+   */
+  public long maxDecodedLength (long length) {
+    return length * bitsPerChar / 8;
+  }
+
+  /**
+   * Encodes the buffer's readable bytes into a string.
+   *
+   * @param source the source buffer, its indices are not changed
+   *
+   * @return the encoded text
+   */
+  public String encodeToString (@NonNull Bytes source) {
+    return encodeToString(source, source.readerIndex(), source.readableBytes());
+  }
+
+  /**
+   * Encodes the buffer's range into a string.
+   *
+   * @param source the source buffer, its indices are not changed
+   *
+   * @param index the range's start
+   *
+   * @param length the range's length
+   *
+   * @return the encoded text
+   */
+  public String encodeToString (@NonNull Bytes source, int index, int length) {
+    val result = new StringBuilder(toSize(encodedLength(length)));
+    encode(source, index, length, result);
+    return result.toString();
+  }
+
+  /**
+   * Appends the encoded buffer's range to the {@link Appendable}.
+   *
+   * @param source the source buffer, its indices are not changed
+   *
+   * @param index the range's start
+   *
+   * @param length the range's length
+   *
+   * @param target the target appendable
+   *
+   * @return the number of written characters
+   *
+   * @throws IndexOutOfBoundsException if the range is out of the buffer's capacity
+   */
+  public long encode (@NonNull Bytes source, int index, int length, @NonNull Appendable target) {
+    if (target instanceof StringBuilder) {
+      val builder = (StringBuilder) target;
+      builder.ensureCapacity(builder.length() + toSize(encodedLength(length)));
+    }
+    val encoder = new Encoder(target, null, toSize(encodedLength(length)))
+        .update(source, index, length);
+    encoder.finish();
+    return encoder.getWritten();
+  }
+
+  /**
+   * Writes the encoded buffer's range as ASCII bytes into the target buffer,
+   * starting at its writer index.
+   *
+   * @param source the source buffer, its indices are not changed
+   *
+   * @param index the range's start
+   *
+   * @param length the range's length
+   *
+   * @param target the target buffer, its writer index is moved by the written bytes' count
+   *
+   * @return the number of written bytes
+   *
+   * @throws IndexOutOfBoundsException if the range is out of the buffer's capacity
+   */
+  public long encode (@NonNull Bytes source, int index, int length, @NonNull Bytes target) {
+    val encoder = new Encoder(null, target, toSize(encodedLength(length)))
+        .update(source, index, length);
+    encoder.finish();
+    return encoder.getWritten();
+  }
+
+  /**
+   * Decodes the text into the target buffer, starting at its writer index.
+   *
+   * @param source the encoded text
+   *
+   * @param target the target buffer, its writer index is moved by the decoded bytes' count
+   *
+   * @return the number of decoded bytes
+   *
+   * @throws IllegalArgumentException if the text isn't a valid encoding
+   */
+  public long decode (@NonNull CharSequence source, @NonNull Bytes target) {
+    val decoder = new Decoder(target, toSize(maxDecodedLength(source.length())))
+        .update(source);
+    decoder.finish();
+    return decoder.getDecoded();
+  }
+
+  /**
+   * Decodes the ASCII text of the source buffer's range into the target buffer,
+   * starting at its writer index.
+   *
+   * @param source the source buffer, its indices are not changed
+   *
+   * @param index the range's start
+   *
+   * @param length the range's length
+   *
+   * @param target the target buffer, its writer index is moved by the decoded bytes' count
+   *
+   * @return the number of decoded bytes
+   *
+   * @throws IllegalArgumentException if the text isn't a valid encoding
+   *
+   * @throws IndexOutOfBoundsException if the range is out of the buffer's capacity
+   */
+  public long decode (@NonNull Bytes source, int index, int length, @NonNull Bytes target) {
+    val decoder = new Decoder(target, toSize(maxDecodedLength(length)))
+        .update(source, index, length);
+    decoder.finish();
+    return decoder.getDecoded();
+  }
+
+  /**
+   * Decodes the text into a new buffer.
+   *
+   * @param source the encoded text
+   *
+   * @return the decoded bytes
+   *
+   * @throws IllegalArgumentException if the text isn't a valid encoding
+   */
+  public Bytes decode (@NonNull CharSequence source) {
+    val result = Bytes.resizableArray(Math.max(1, toSize(maxDecodedLength(source.length()))));
+    decode(source, result);
+    return result;
+  }
+
+  /**
+   * Creates a new streaming encoder, which appends the encoded chunks to the {@link Appendable}.
+   *
+   * @param target the target appendable
+   *
+   * @return the new encoder
+   */
+  public Encoder newEncoder (@NonNull Appendable target) {
+    return new Encoder(target, null, STREAM_CHUNK_SIZE);
+  }
+
+  /**
+   * Creates a new streaming encoder, which writes the encoded chunks as ASCII bytes
+   * into the target buffer.
+   *
+   * @param target the target buffer
+   *
+   * @return the new encoder
+   */
+  public Encoder newEncoder (@NonNull Bytes target) {
+    return new Encoder(null, target, STREAM_CHUNK_SIZE);
+  }
+
+  /**
+   * Creates a new streaming decoder, which writes the decoded chunks into the target buffer.
+   *
+   * @param target the target buffer
+   *
+   * @return the new decoder
+   */
+  public Decoder newDecoder (@NonNull Bytes target) {
+    return new Decoder(target, STREAM_CHUNK_SIZE);
+  }
+
+  @Override
+  public String toString () {
+    return padding
+           ? name
+           : name + "_NO_PADDING";
+  }
+
+  private static void checkRange (Bytes buffer, int index, int length) {
+    if (index < 0 || length < 0 || index + length > buffer.capacity()) {
+      val msg = String.format(ENGLISH,
+          "expected: 0 <= index(%d) <= index+length(%d) <= buffer.capacity(%d)",
+          index, index + length, buffer.capacity()
+      );
+      throw new IndexOutOfBoundsException(msg);
+    }
+  }
+
+  private static int toSize (long value) {
+    return (int) Math.max(0, Math.min(Integer.MAX_VALUE, value));
+  }
+
+  private static int gcd (int first, int second) {
+    return second == 0
+           ? first
+           : gcd(second, first % second);
+  }
+
+  /**
+   * The streaming encoder, which encodes the input chunk by chunk.
+   * <p>
+   * The encoded text is complete after the {@link #finish()} (or {@link #close()}) call,
+   * which writes the last bits and the padding.
+   * <p>
+   * The instance is not thread-safe.
+   */
+  @FieldDefaults(level = PRIVATE)
+  public final class Encoder implements AutoCloseable {
+
+    final Appendable chars;
+
+    final Bytes bytes;
+
+    // the encoded characters, written to the target after each chunk:
+    // ASCII bytes for a Bytes target, chars for an Appendable
+    final byte[] asciiOutput;
+
+    final char[] charOutput;
+
+    final int outputCapacity;
+
+    CharBuffer outputView;
+
+    byte[] inputChunk;
+
+    int outputSize;
+
+    // the not yet encoded bytes of the current block
+    long block;
+
+    int blockSize;
+
+    long written;
+
+    boolean finished;
+
+    Encoder (Appendable chars, Bytes bytes, int expectedLength) {
+      this.chars = chars;
+      this.bytes = bytes;
+      outputCapacity = Math.max(blockChars, Math.min(STREAM_CHUNK_SIZE, expectedLength));
+      asciiOutput = bytes == null
+                    ? null
+                    : new byte[outputCapacity];
+      charOutput = bytes == null
+                   ? new char[outputCapacity]
+                   : null;
+    }
+
+    /**
+     * Encodes the next chunk of the input.
+     *
+     * @param source the source buffer, its indices are not changed
+     *
+     * @param index the chunk's start
+     *
+     * @param length the chunk's length
+     *
+     * @return this encoder, for chaining
+     *
+     * @throws IndexOutOfBoundsException if the chunk is out of the buffer's capacity
+     *
+     * @throws IllegalStateException if the encoder is finished
+     */
+    public Encoder update (@NonNull Bytes source, int index, int length) {
+      checkRange(source, index, length);
+      checkNotFinished();
+      if (length == 0) {
+        return this;
+      }
+
+      val input = source.nioBuffer(index, length);
+      if (input.hasArray()) {
+        val offset = input.arrayOffset() + input.position();
+        encode(input.array(), offset, offset + length);
+      } else {
+        // the off-heap bytes are encoded by chunks, copied in bulk
+        if (input.remaining() > 0 && inputChunk == null) {
+          inputChunk = new byte[STREAM_CHUNK_SIZE];
+        }
+        while (input.hasRemaining()) {
+          val count = Math.min(inputChunk.length, input.remaining());
+          input.get(inputChunk, 0, count);
+          encode(inputChunk, 0, count);
+        }
+      }
+      flushOutput();
+      return this;
+    }
+
+    /**
+     * Encodes the next chunk of the input.
+     *
+     * @param source the source array
+     *
+     * @return this encoder, for chaining
+     *
+     * @throws IllegalStateException if the encoder is finished
+     */
+    public Encoder update (@NonNull byte[] source) {
+      return update(Bytes.wrap(source), 0, source.length);
+    }
+
+    /**
+     * Writes the last bits of the input and the padding.
+     * The next calls do nothing.
+     */
+    public void finish () {
+      if (finished) {
+        return;
+      }
+      finished = true;
+      if (blockSize > 0) {
+        val bits = blockSize * 8;
+        val count = (bits + bitsPerChar - 1) / bitsPerChar;
+        val aligned = block << (count * bitsPerChar - bits);
+        for (int shift = (count - 1) * bitsPerChar; shift >= 0; shift -= bitsPerChar) {
+          putDigit((int) (aligned >>> shift) & charMask);
+        }
+        if (padding) {
+          for (int index = count; index < blockChars; index++) {
+            putPadding();
+          }
+        }
+        block = 0;
+        blockSize = 0;
+      }
+      flushOutput();
+    }
+
+    /**
+     * Returns the number of the written characters.
+     *
+     * @return the written characters' count
+     */
+    public long getWritten () {
+      return written;
+    }
+
+    /**
+     * Finishes the encoding.
+     */
+    @Override
+    public void close () {
+      finish();
+    }
+
+    private void checkNotFinished () {
+      if (finished) {
+        throw new IllegalStateException("The encoder is finished");
+      }
+    }
+
+    private void encode (byte[] array, int from, int to) {
+      int current = from;
+      while (blockSize != 0 && current < to) {
+        put(array[current++]);
+      }
+
+      if (asciiOutput != null) {
+        current = bitsPerChar == 6
+                  ? encodeBase64Blocks(array, current, to, asciiOutput)
+                  : encodeBlocks(array, current, to, asciiOutput);
+      } else {
+        current = bitsPerChar == 6
+                  ? encodeBase64Blocks(array, current, to, charOutput)
+                  : encodeBlocks(array, current, to, charOutput);
+      }
+
+      while (current < to) {
+        put(array[current++]);
+      }
+    }
+
+    // the block loops are duplicated for the ASCII and the char outputs,
+    // so each of them writes the digits straight into its array
+    private int encodeBlocks (byte[] array, int from, int to, byte[] target) {
+      val digits = asciiAlphabet;
+      val mask = charMask;
+      val bitsPerBlock = (blockChars - 1) * bitsPerChar;
+      int current = from;
+      int size = outputSize;
+      while (to - current >= blockBytes) {
+        long value = 0;
+        for (val end = current + blockBytes; current < end; current++) {
+          value = value << 8 | (array[current] & 0xFF);
+        }
+        if (size + blockChars > target.length) {
+          outputSize = size;
+          flushOutput();
+          size = 0;
+        }
+        for (int shift = bitsPerBlock; shift >= 0; shift -= bitsPerChar) {
+          target[size++] = digits[(int) (value >>> shift) & mask];
+        }
+      }
+      outputSize = size;
+      return current;
+    }
+
+    private int encodeBlocks (byte[] array, int from, int to, char[] target) {
+      val digits = alphabet;
+      val mask = charMask;
+      val bitsPerBlock = (blockChars - 1) * bitsPerChar;
+      int current = from;
+      int size = outputSize;
+      while (to - current >= blockBytes) {
+        long value = 0;
+        for (val end = current + blockBytes; current < end; current++) {
+          value = value << 8 | (array[current] & 0xFF);
+        }
+        if (size + blockChars > target.length) {
+          outputSize = size;
+          flushOutput();
+          size = 0;
+        }
+        for (int shift = bitsPerBlock; shift >= 0; shift -= bitsPerChar) {
+          target[size++] = digits[(int) (value >>> shift) & mask];
+        }
+      }
+      outputSize = size;
+      return current;
+    }
+
+    // the unrolled Base64 blocks: 3 bytes to 4 characters
+    private int encodeBase64Blocks (byte[] array, int from, int to, byte[] target) {
+      val digits = asciiAlphabet;
+      int current = from;
+      int size = outputSize;
+      while (to - current >= 3) {
+        val value = (array[current] & 0xFF) << 16
+                    | (array[current + 1] & 0xFF) << 8
+                    | array[current + 2] & 0xFF;
+        current += 3;
+        if (size + 4 > target.length) {
+          outputSize = size;
+          flushOutput();
+          size = 0;
+        }
+        target[size] = digits[value >>> 18 & 0x3F];
+        target[size + 1] = digits[value >>> 12 & 0x3F];
+        target[size + 2] = digits[value >>> 6 & 0x3F];
+        target[size + 3] = digits[value & 0x3F];
+        size += 4;
+      }
+      outputSize = size;
+      return current;
+    }
+
+    private int encodeBase64Blocks (byte[] array, int from, int to, char[] target) {
+      val digits = alphabet;
+      int current = from;
+      int size = outputSize;
+      while (to - current >= 3) {
+        val value = (array[current] & 0xFF) << 16
+                    | (array[current + 1] & 0xFF) << 8
+                    | array[current + 2] & 0xFF;
+        current += 3;
+        if (size + 4 > target.length) {
+          outputSize = size;
+          flushOutput();
+          size = 0;
+        }
+        target[size] = digits[value >>> 18 & 0x3F];
+        target[size + 1] = digits[value >>> 12 & 0x3F];
+        target[size + 2] = digits[value >>> 6 & 0x3F];
+        target[size + 3] = digits[value & 0x3F];
+        size += 4;
+      }
+      outputSize = size;
+      return current;
+    }
+
+    private void put (byte value) {
+      block = block << 8 | (value & 0xFF);
+      blockSize++;
+      if (blockSize < blockBytes) {
+        return;
+      }
+      if (outputSize + blockChars > outputCapacity) {
+        flushOutput();
+      }
+      for (int shift = (blockChars - 1) * bitsPerChar; shift >= 0; shift -= bitsPerChar) {
+        putDigit((int) (block >>> shift) & charMask);
+      }
+      block = 0;
+      blockSize = 0;
+    }
+
+    private void putDigit (int value) {
+      if (asciiOutput != null) {
+        asciiOutput[outputSize++] = asciiAlphabet[value];
+      } else {
+        charOutput[outputSize++] = alphabet[value];
+      }
+    }
+
+    private void putPadding () {
+      if (asciiOutput != null) {
+        asciiOutput[outputSize++] = (byte) PADDING;
+      } else {
+        charOutput[outputSize++] = PADDING;
+      }
+    }
+
+    @SneakyThrows
+    private void flushOutput () {
+      if (outputSize == 0) {
+        return;
+      }
+      if (bytes != null) {
+        bytes.writeNB(asciiOutput, 0, outputSize);
+      } else if (chars instanceof StringBuilder) {
+        ((StringBuilder) chars).append(charOutput, 0, outputSize);
+      } else if (chars instanceof Writer) {
+        ((Writer) chars).write(charOutput, 0, outputSize);
+      } else {
+        if (outputView == null) {
+          outputView = CharBuffer.wrap(charOutput);
+        }
+        outputView.clear().limit(outputSize);
+        chars.append(outputView);
+      }
+      written += outputSize;
+      outputSize = 0;
+    }
+  }
+
+  /**
+   * The streaming decoder, which decodes the input chunk by chunk.
+   * <p>
+   * The {@link #finish()} (or {@link #close()}) call validates the input's end.
+   * <p>
+   * The instance is not thread-safe.
+   */
+  @FieldDefaults(level = PRIVATE)
+  public final class Decoder implements AutoCloseable {
+
+    final Bytes target;
+
+    // the decoded bytes, written to the target after each chunk
+    final byte[] output;
+
+    int outputSize;
+
+    byte[] inputChunk;
+
+    // the not yet decoded characters' values of the current block
+    long block;
+
+    int blockSize;
+
+    long position;
+
+    long paddingChars;
+
+    long decoded;
+
+    boolean finished;
+
+    Decoder (Bytes target, int expectedLength) {
+      this.target = target;
+      output = new byte[Math.max(blockBytes, Math.min(STREAM_CHUNK_SIZE, expectedLength))];
+    }
+
+    /**
+     * Decodes the next chunk of the text.
+     *
+     * @param source the text's chunk
+     *
+     * @return this decoder, for chaining
+     *
+     * @throws IllegalArgumentException if the chunk has invalid characters
+     *
+     * @throws IllegalStateException if the decoder is finished
+     */
+    public Decoder update (@NonNull CharSequence source) {
+      return update(source, 0, source.length());
+    }
+
+    /**
+     * Decodes the next chunk of the text.
+     *
+     * @param source the text
+     *
+     * @param start the chunk's start
+     *
+     * @param end the chunk's end, exclusive
+     *
+     * @return this decoder, for chaining
+     *
+     * @throws IllegalArgumentException if the chunk has invalid characters
+     *
+     * @throws IllegalStateException if the decoder is finished
+     */
+    public Decoder update (@NonNull CharSequence source, int start, int end) {
+      if (start < 0 || start > end || end > source.length()) {
+        val msg = String.format(ENGLISH,
+            "expected: 0 <= start(%d) <= end(%d) <= source.length(%d)",
+            start, end, source.length()
+        );
+        throw new IndexOutOfBoundsException(msg);
+      }
+      checkNotFinished();
+      if (start < end && inputChunk == null) {
+        inputChunk = new byte[STREAM_CHUNK_SIZE];
+      }
+      // the text is decoded by the ASCII chunks
+      int index = start;
+      while (index < end) {
+        val limit = Math.min(end, index + inputChunk.length);
+        int count = 0;
+        for (; index < limit; index++) {
+          val character = source.charAt(index);
+          if (character > 0x7F) {
+            break;
+          }
+          inputChunk[count++] = (byte) character;
+        }
+        decode(inputChunk, 0, count);
+        if (index < limit) {
+          // not ASCII character
+          put(source.charAt(index));
+        }
+      }
+      flushOutput();
+      return this;
+    }
+
+    /**
+     * Decodes the next chunk of the ASCII text.
+     *
+     * @param source the source buffer, its indices are not changed
+     *
+     * @param index the chunk's start
+     *
+     * @param length the chunk's length
+     *
+     * @return this decoder, for chaining
+     *
+     * @throws IllegalArgumentException if the chunk has invalid characters
+     *
+     * @throws IndexOutOfBoundsException if the chunk is out of the buffer's capacity
+     *
+     * @throws IllegalStateException if the decoder is finished
+     */
+    public Decoder update (@NonNull Bytes source, int index, int length) {
+      checkRange(source, index, length);
+      checkNotFinished();
+      if (length == 0) {
+        return this;
+      }
+
+      val input = source.nioBuffer(index, length);
+      if (input.hasArray()) {
+        val offset = input.arrayOffset() + input.position();
+        decode(input.array(), offset, offset + length);
+      } else {
+        // the off-heap text is decoded by chunks, copied in bulk
+        if (input.remaining() > 0 && inputChunk == null) {
+          inputChunk = new byte[STREAM_CHUNK_SIZE];
+        }
+        while (input.hasRemaining()) {
+          val count = Math.min(inputChunk.length, input.remaining());
+          input.get(inputChunk, 0, count);
+          decode(inputChunk, 0, count);
+        }
+      }
+      flushOutput();
+      return this;
+    }
+
+    /**
+     * Validates the end of the text and writes the last bytes. The next calls do nothing.
+     *
+     * @throws IllegalArgumentException if the text is truncated or has a wrong padding
+     */
+    public void finish () {
+      if (finished) {
+        return;
+      }
+      finished = true;
+      val bits = blockSize * bitsPerChar;
+      if (bits % 8 >= bitsPerChar) {
+        val msg = String.format(ENGLISH, "%s text has a truncated last block, %d characters", name, blockSize);
+        throw new IllegalArgumentException(msg);
+      }
+      if (paddingChars > 0 && (blockSize == 0 || blockSize + paddingChars != blockChars)) {
+        val msg = String.format(ENGLISH, "%s text has a wrong padding, %d characters", name, paddingChars);
+        throw new IllegalArgumentException(msg);
+      }
+      val aligned = block >>> (bits % 8);
+      for (int shift = (bits / 8 - 1) * 8; shift >= 0; shift -= 8) {
+        output[outputSize++] = (byte) (aligned >>> shift);
+      }
+      block = 0;
+      blockSize = 0;
+      flushOutput();
+    }
+
+    /**
+     * Returns the number of the decoded bytes.
+     *
+     * @return the decoded bytes' count
+     */
+    public long getDecoded () {
+      return decoded;
+    }
+
+    /**
+     * Validates the end of the text.
+     *
+     * @throws IllegalArgumentException if the text is truncated or has a wrong padding
+     */
+    @Override
+    public void close () {
+      finish();
+    }
+
+    private void checkNotFinished () {
+      if (finished) {
+        throw new IllegalStateException("The decoder is finished");
+      }
+    }
+
+    private void decode (byte[] array, int from, int to) {
+      int current = from;
+      while (blockSize != 0 && current < to) {
+        put((char) (array[current++] & 0xFF));
+      }
+
+      if (paddingChars == 0) {
+        current = bitsPerChar == 6
+                  ? decodeBase64Blocks(array, current, to)
+                  : decodeBlocks(array, current, to);
+      }
+
+      while (current < to) {
+        put((char) (array[current++] & 0xFF));
+      }
+    }
+
+    // decodes the whole blocks till the padding or an invalid character
+    private int decodeBlocks (byte[] array, int from, int to) {
+      val bytes = output;
+      val table = values;
+      val bitsPerBlock = (blockBytes - 1) * 8;
+      int current = from;
+      int size = outputSize;
+      while (to - current >= blockChars) {
+        long value = 0;
+        int invalid = 0;
+        for (int index = current; index < current + blockChars; index++) {
+          val character = array[index];
+          val digit = table[character & 0x7F];
+          // the negative (not ASCII) characters are invalid too
+          invalid |= digit | character;
+          value = value << bitsPerChar | digit;
+        }
+        if (invalid < 0) {
+          // the block has the padding or an invalid character
+          break;
+        }
+        if (size + blockBytes > bytes.length) {
+          outputSize = size;
+          flushOutput();
+          size = 0;
+        }
+        for (int shift = bitsPerBlock; shift >= 0; shift -= 8) {
+          bytes[size++] = (byte) (value >>> shift);
+        }
+        current += blockChars;
+      }
+      position += current - from;
+      outputSize = size;
+      return current;
+    }
+
+    // the unrolled Base64 blocks: 4 characters to 3 bytes
+    private int decodeBase64Blocks (byte[] array, int from, int to) {
+      val bytes = output;
+      val table = values;
+      int current = from;
+      int size = outputSize;
+      while (to - current >= 4) {
+        val first = array[current];
+        val second = array[current + 1];
+        val third = array[current + 2];
+        val fourth = array[current + 3];
+        val high = table[first & 0x7F] << 6 | table[second & 0x7F];
+        val low = table[third & 0x7F] << 6 | table[fourth & 0x7F];
+        // an invalid digit is -1, so the negative values and the not ASCII characters are invalid
+        if ((high | low | first | second | third | fourth) < 0) {
+          break;
+        }
+        current += 4;
+        if (size + 3 > bytes.length) {
+          outputSize = size;
+          flushOutput();
+          size = 0;
+        }
+        bytes[size] = (byte) (high >>> 4);
+        bytes[size + 1] = (byte) (high << 4 | low >>> 8);
+        bytes[size + 2] = (byte) low;
+        size += 3;
+      }
+      position += current - from;
+      outputSize = size;
+      return current;
+    }
+
+    private void put (char character) {
+      if (character == PADDING) {
+        paddingChars++;
+        position++;
+        return;
+      }
+      val value = character < values.length
+                  ? values[character]
+                  : -1;
+      if (value < 0 || paddingChars > 0) {
+        val msg = String.format(ENGLISH, "%s text has an illegal character '%c' at %d", name, character, position);
+        throw new IllegalArgumentException(msg);
+      }
+      position++;
+      block = block << bitsPerChar | value;
+      blockSize++;
+      if (blockSize < blockChars) {
+        return;
+      }
+      if (outputSize + blockBytes > output.length) {
+        flushOutput();
+      }
+      for (int shift = (blockBytes - 1) * 8; shift >= 0; shift -= 8) {
+        output[outputSize++] = (byte) (block >>> shift);
+      }
+      block = 0;
+      blockSize = 0;
+    }
+
+    private void flushOutput () {
+      if (outputSize == 0) {
+        return;
+      }
+      target.writeNB(output, 0, outputSize);
+      decoded += outputSize;
+      outputSize = 0;
+    }
+  }
+}
@@ -0,0 +1,425 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.appulse.utils;
+
+import static java.nio.file.StandardOpenOption.APPEND;
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.WRITE;
+import static java.util.Optional.ofNullable;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static lombok.AccessLevel.PRIVATE;
+
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import io.appulse.utils.threads.AppulseThreadFactory;
+
+import lombok.Builder;
+import lombok.NonNull;
+import lombok.SneakyThrows;
+import lombok.experimental.FieldDefaults;
+import lombok.val;
+
+/**
+ * The concurrent file appender with group commit.
+ * <p>
+ * The records from many producers are copied into one batch buffer, which is
+ * written to the end of the file by a background thread, when the batch's size
+ * or age threshold is reached. So, many tiny writes become a few large sequential
+ * ones, and one {@code fsync} covers all the records of a batch.
+ * <p>
+ * Every appended record has a future, which is completed when the record
+ * is durable according to the {@link FsyncPolicy}.
+ *
+ * @since 1.19.0
+ * @author Artem Labazin
+ */
+@SuppressWarnings("PMD.DoNotUseThreads")
+@FieldDefaults(level = PRIVATE)
+public final class BatchingFileAppender implements AutoCloseable {
+
+  private static final int DEFAULT_MAX_BATCH_SIZE = 64 * 1024;
+
+  private static final long DEFAULT_MAX_BATCH_DELAY_MILLIS = 5;
+
+  private static final long DEFAULT_FSYNC_INTERVAL_MILLIS = 1000;
+
+  final FileChannel channel;
+
+  final int maxBatchSize;
+
+  final int maxPendingBytes;
+
+  final long maxBatchDelayNanos;
+
+  final FsyncPolicy fsyncPolicy;
+
+  final long fsyncIntervalNanos;
+
+  final ReentrantLock lock = new ReentrantLock();
+
+  final Condition batchReady = lock.newCondition();
+
+  final Condition notFull = lock.newCondition();
+
+  final Thread writer;
+
+  // guarded by the lock
+  Bytes current;
+
+  List<CompletableFuture<Void>> currentFutures = new ArrayList<>();
+
+  long batchStartNanos;
+
+  // the size of the batch, which is being written
+  int writingBytes;
+
+  boolean closed;
+
+  // used only by the writer thread
+  Bytes writing;
+
+  List<CompletableFuture<Void>> writingFutures = new ArrayList<>();
+
+  final List<CompletableFuture<Void>> unsynced = new ArrayList<>();
+
+  long lastSyncNanos;
+
+  /**
+   * The appender's constructor, it opens (or creates) the file and starts the writer thread.
+   *
+   * @param path the file to append to
+   *
+   * @param maxBatchSizeBytes the batch's size, which triggers the writing, 64 KiB by default
+   *
+   * @param maxBatchDelay the maximum time a record waits for its batch to be written, 5 ms by default
+   *
+   * @param maxBatchDelayUnit the unit of the {@code maxBatchDelay}, milliseconds by default
+   *
+   * @param maxPendingBytes the maximum size of not written records, including the batch,
+   *                        which is being written; when it is reached, producers wait;
+   *                        16 batches (but not more than 2 GiB) by default
+   *
+   * @param fsyncPolicy the durability policy, {@link FsyncPolicy#EVERY_BATCH} by default
+   *
+   * @param fsyncInterval the interval for the {@link FsyncPolicy#PERIODIC} policy, 1 second by default
+   *
+   * @param fsyncIntervalUnit the unit of the {@code fsyncInterval}, milliseconds by default
+   */
+  @Builder
+  @SneakyThrows
+  BatchingFileAppender (@NonNull Path path,
+                        Integer maxBatchSizeBytes,
+                        Long maxBatchDelay,
+                        TimeUnit maxBatchDelayUnit,
+                        Integer maxPendingBytes,
+                        FsyncPolicy fsyncPolicy,
+                        Long fsyncInterval,
+                        TimeUnit fsyncIntervalUnit
+  ) {
+    this.maxBatchSize = ofNullable(maxBatchSizeBytes)
+        .filter(it -> it > 0)
+        .orElse(DEFAULT_MAX_BATCH_SIZE);
+
+    this.maxPendingBytes = ofNullable(maxPendingBytes)
+        .filter(it -> it >= this.maxBatchSize)
+        .orElse((int) Math.min(Integer.MAX_VALUE, this.maxBatchSize * 16L));
+
+    this.maxBatchDelayNanos = ofNullable(maxBatchDelayUnit)
+        .orElse(MILLISECONDS)
+        .toNanos(ofNullable(maxBatchDelay)
+            .filter(it -> it >= 0)
+            .orElse(DEFAULT_MAX_BATCH_DELAY_MILLIS));
+
+    this.fsyncPolicy = ofNullable(fsyncPolicy)
+        .orElse(FsyncPolicy.EVERY_BATCH);
+
+    this.fsyncIntervalNanos = ofNullable(fsyncIntervalUnit)
+        .orElse(MILLISECONDS)
+        .toNanos(ofNullable(fsyncInterval)
+            .filter(it -> it > 0)
+            .orElse(DEFAULT_FSYNC_INTERVAL_MILLIS));
+
+    current = Bytes.resizableArray(this.maxBatchSize);
+    writing = Bytes.resizableArray(this.maxBatchSize);
+    lastSyncNanos = System.nanoTime();
+
+    channel = FileChannel.open(path, CREATE, WRITE, APPEND);
+    writer = AppulseThreadFactory.builder()
+        .name("batching-file-appender-%d")
+        .daemon(true)
+        .build()
+        .newThread(this::run);
+    writer.start();
+  }
+
+  /**
+   * Appends the record's readable bytes to the file, the record's
+   * reader index is moved to its writer index.
+   * <p>
+   * The record is copied, so it could be reused right after the call.
+   * The call waits if there are too many not written records.
+   *
+   * @param record the record to append
+   *
+   * @return the future, which is completed when the record is written
+   *         and synced according to the {@link FsyncPolicy}
+   *
+   * @throws IllegalStateException if the appender is closed
+   */
+  public CompletableFuture<Void> append (@NonNull Bytes record) {
+    val source = record.nioBuffer();
+    val future = new CompletableFuture<Void>();
+
+    lock.lock();
+    try {
+      awaitSpace();
+      if (current.readableBytes() == 0) {
+        batchStartNanos = System.nanoTime();
+        batchReady.signal();
+      }
+
+      val length = source.remaining();
+      if (current.writableBytes() < length) {
+        current.capacity(Math.max(current.capacity() * 2, current.writerIndex() + length));
+      }
+      source.get(current.array(), current.writerIndex(), length);
+      current.writerIndex(current.writerIndex() + length);
+      currentFutures.add(future);
+
+      if (current.readableBytes() >= maxBatchSize) {
+        batchReady.signal();
+      }
+    } finally {
+      lock.unlock();
+    }
+    record.readerIndex(record.writerIndex());
+    return future;
+  }
+
+  /**
+   * Appends the record to the file, see {@link #append(Bytes)}.
+   *
+   * @param record the record to append
+   *
+   * @return the future, which is completed when the record is written
+   *         and synced according to the {@link FsyncPolicy}
+   */
+  public CompletableFuture<Void> append (@NonNull byte[] record) {
+    return append(Bytes.wrap(record));
+  }
+
+  /**
+   * Writes all the appended records, syncs the file and closes it.
+   * <p>
+   * The call waits for the writer thread's finish.
+   */
+  @Override
+  @SneakyThrows
+  public void close () {
+    lock.lock();
+    try {
+      closed = true;
+      batchReady.signal();
+      notFull.signalAll();
+    } finally {
+      lock.unlock();
+    }
+    writer.join();
+  }
+
+  @SneakyThrows
+  private void awaitSpace () {
+    while (!closed && (long) current.readableBytes() + writingBytes >= maxPendingBytes) {
+      notFull.await();
+    }
+    if (closed) {
+      throw new IllegalStateException("The appender is closed");
+    }
+  }
+
+  @SneakyThrows
+  private void run () {
+    try {
+      while (nextBatch()) {
+        writeBatch();
+      }
+      finalSync();
+    } finally {
+      channel.close();
+    }
+  }
+
+  // returns false if the appender is closed and all records are written
+  @SneakyThrows
+  private boolean nextBatch () {
+    lock.lock();
+    try {
+      while (true) {
+        val now = System.nanoTime();
+        val size = current.readableBytes();
+        if (size >= maxBatchSize || size > 0 && (closed || now - batchStartNanos >= maxBatchDelayNanos)) {
+          swap();
+          return true;
+        }
+        if (isSyncDue(now)) {
+          return true;
+        }
+        if (closed) {
+          return false;
+        }
+
+        long timeout = Long.MAX_VALUE;
+        if (size > 0) {
+          timeout = batchStartNanos + maxBatchDelayNanos - now;
+        }
+        if (fsyncPolicy == FsyncPolicy.PERIODIC && !unsynced.isEmpty()) {
+          timeout = Math.min(timeout, lastSyncNanos + fsyncIntervalNanos - now);
+        }
+
+        if (timeout == Long.MAX_VALUE) {
+          batchReady.await();
+        } else {
+          batchReady.awaitNanos(timeout);
+        }
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private void swap () {
+    val buffer = writing;
+    writing = current;
+    current = buffer;
+
+    val futures = writingFutures;
+    writingFutures = currentFutures;
+    currentFutures = futures;
+
+    writingBytes = writing.readableBytes();
+  }
+
+  private boolean isSyncDue (long now) {
+    return fsyncPolicy == FsyncPolicy.PERIODIC
+           && !unsynced.isEmpty()
+           && now - lastSyncNanos >= fsyncIntervalNanos;
+  }
+
+  private void writeBatch () {
+    try {
+      WriteBytesUtils.write(channel, writing);
+      switch (fsyncPolicy) {
+      case NEVER:
+        complete(writingFutures);
+        break;
+      case EVERY_BATCH:
+        channel.force(false);
+        complete(writingFutures);
+        break;
+      case PERIODIC:
+      default:
+        unsynced.addAll(writingFutures);
+        if (isSyncDue(System.nanoTime())) {
+          sync();
+        }
+        break;
+      }
+    } catch (Exception ex) {
+      fail(writingFutures, ex);
+      fail(unsynced, ex);
+    } finally {
+      writing.reset();
+      writingFutures.clear();
+      written();
+    }
+  }
+
+  private void written () {
+    lock.lock();
+    try {
+      writingBytes = 0;
+      notFull.signalAll();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  // the last sync's failure must not leave the periodic futures incomplete
+  private void finalSync () {
+    try {
+      sync();
+    } catch (Exception ex) {
+      fail(unsynced, ex);
+    }
+  }
+
+  @SneakyThrows
+  private void sync () {
+    if (fsyncPolicy != FsyncPolicy.NEVER) {
+      channel.force(false);
+    }
+    lastSyncNanos = System.nanoTime();
+    complete(unsynced);
+  }
+
+  private static void complete (List<CompletableFuture<Void>> futures) {
+    for (val future : futures) {
+      future.complete(null);
+    }
+    futures.clear();
+  }
+
+  private static void fail (List<CompletableFuture<Void>> futures, Throwable throwable) {
+    for (val future : futures) {
+      future.completeExceptionally(throwable);
+    }
+    futures.clear();
+  }
+
+  /**
+   * The appended records' durability policy.
+   *
+   * @since 1.19.0
+   */
+  public enum FsyncPolicy {
+
+    /**
+     * The file is never synced explicitly, the records' futures
+     * are completed right after the batch is written to the OS.
+     */
+    NEVER,
+
+    /**
+     * The file is synced after every batch, the records' futures
+     * are completed after the sync.
+     */
+    EVERY_BATCH,
+
+    /**
+     * The file is synced not more often than once per the interval,
+     * the records' futures are completed after the nearest sync.
+     */
+    PERIODIC;
+  }
+}
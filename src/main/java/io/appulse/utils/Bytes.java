@@ -1828,6 +1828,46 @@ public interface Bytes {
    */
   byte[] arrayCopy ();
 
+  /**
+   * Returns the NIO buffer view of the readable bytes, see {@link #nioBuffer(int, int)}.
+   *
+   * @return the NIO buffer view
+   *
+   * @since 1.19.0
+   */
+  default ByteBuffer nioBuffer () {
+    return nioBuffer(readerIndex(), readableBytes());
+  }
+
+  /**
+   * Returns the NIO buffer view of the content between {@code index}
+   * and {@code index + length}.
+   * <p>
+   * The content is not copied, so a direct or memory mapped buffer stays off-heap
+   * and could be written to a channel without an intermediate heap copy.
+   * Modifications to this buffer's content will cause the view's content
+   * to be modified, and vice versa. The view's position and limit are
+   * independent from this buffer's indexes.
+   * <p>
+   * The default implementation, for the buffers which can't expose their content,
+   * returns a read-only copy of the range, so the writes into it fail
+   * with {@link java.nio.ReadOnlyBufferException} instead of being lost.
+   *
+   * @param index the first byte index
+   *
+   * @param length the view's length
+   *
+   * @return the NIO buffer view, its position is {@code 0} and its
+   *         limit is {@code length}
+   *
+   * @throws IndexOutOfBoundsException if the range is out of the buffer's bounds
+   *
+   * @since 1.19.0
+   */
+  default ByteBuffer nioBuffer (int index, int length) {
+    return ByteBuffer.wrap(getBytes(index, length)).asReadOnlyBuffer();
+  }
+
   /**
    * Creates a new {@link BytesSliceBuilder} instance for making the buffer's slize.
    *
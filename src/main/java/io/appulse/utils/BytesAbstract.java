@@ -19,6 +19,7 @@ package io.appulse.utils;
 import static java.nio.charset.StandardCharsets.ISO_8859_1;
 
 import java.math.BigInteger;
+import java.nio.ByteBuffer;
 import java.nio.charset.Charset;
 import java.util.Arrays;
 
@@ -479,6 +480,16 @@ abstract class BytesAbstract implements Bytes {
     return Arrays.copyOfRange(array(), 0, writerIndex());
   }
 
+  @Override
+  public ByteBuffer nioBuffer () {
+    return nioBuffer(readerIndex(), readableBytes());
+  }
+
+  @Override
+  public ByteBuffer nioBuffer (int index, int length) {
+    return ByteBuffer.wrap(array(), index, length).slice();
+  }
+
   @Override
   public BytesSliceBuilder slice () {
     return new BytesSliceBuilder(this);
@@ -278,4 +278,9 @@ public final class BytesByteBuf extends BytesAbstract {
   public byte[] array () {
     return buffer.array();
   }
+
+  @Override
+  public ByteBuffer nioBuffer (int index, int length) {
+    return buffer.nioBuffer(index, length);
+  }
 }
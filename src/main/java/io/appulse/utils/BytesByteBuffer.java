@@ -16,11 +16,10 @@
 
 package io.appulse.utils;
 
-import static lombok.AccessLevel.PRIVATE;
+import static lombok.AccessLevel.PROTECTED;
 
 import java.nio.ByteBuffer;
 import java.nio.charset.Charset;
-import java.util.Arrays;
 
 import lombok.EqualsAndHashCode;
 import lombok.NonNull;
@@ -28,7 +27,7 @@ import lombok.experimental.FieldDefaults;
 import lombok.val;
 
 @SuppressWarnings("PMD.LinguisticNaming")
-@FieldDefaults(level = PRIVATE)
+@FieldDefaults(level = PROTECTED)
 @EqualsAndHashCode(callSuper = true)
 class BytesByteBuffer extends BytesAbstract {
 
@@ -90,6 +89,7 @@ class BytesByteBuffer extends BytesAbstract {
 
   @Override
   public Bytes setNB (int index, @NonNull byte[] bytes, int offset, int length) {
+    checkWriteBounds(index, length);
     val position = buffer.position();
     buffer.position(index);
     buffer.put(bytes, offset, length);
@@ -177,7 +177,10 @@ class BytesByteBuffer extends BytesAbstract {
   @Override
   public Bytes readBytes (@NonNull byte[] destination, int offset, int length) {
     checkReaderBounds(readerIndex, length);
+    val position = buffer.position();
+    buffer.position(readerIndex);
     buffer.get(destination, offset, length);
+    buffer.position(position);
     readerIndex += length;
     return this;
   }
@@ -231,7 +234,7 @@ class BytesByteBuffer extends BytesAbstract {
     val result = new byte[length];
     val position = buffer.position();
     buffer.position(index);
-    buffer.put(result);
+    buffer.get(result);
     buffer.position(position);
     return result;
   }
@@ -254,14 +257,11 @@ class BytesByteBuffer extends BytesAbstract {
       return;
     }
 
-    val oldPosition = buffer.position();
-    val newByteArray = Arrays.copyOf(buffer.array(), bytes);
-
-    buffer = ByteBuffer.wrap(newByteArray);
+    val newBuffer = buffer.isDirect()
+                    ? ByteBuffer.allocateDirect(bytes)
+                    : ByteBuffer.allocate(bytes);
 
-    buffer.position(Math.min(oldPosition, bytes - 1));
-    writerIndex = Math.min(writerIndex, bytes - 1);
-    readerIndex = Math.min(readerIndex, bytes - 1);
+    replace(newBuffer);
   }
 
   @Override
@@ -296,4 +296,50 @@ class BytesByteBuffer extends BytesAbstract {
   public byte[] array () {
     return buffer.array();
   }
+
+  @Override
+  public byte[] arrayCopy () {
+    return buffer.hasArray()
+           ? super.arrayCopy()
+           : getBytes(0, writerIndex);
+  }
+
+  @Override
+  public ByteBuffer nioBuffer (int index, int length) {
+    if (index < 0 || length < 0 || index + length > buffer.capacity()) {
+      val msg = String.format("Invalid range. index(%d) < 0 || length(%d) < 0 || index(%d)+length(%d) > capacity(%d)",
+                              index, length, index, length, buffer.capacity());
+      throw new IndexOutOfBoundsException(msg);
+    }
+    val result = buffer.duplicate();
+    result.clear();
+    result.position(index);
+    result.limit(index + length);
+    return result.slice();
+  }
+
+  /**
+   * Replaces the underlying buffer with the new one, copies
+   * as much content as the new buffer can hold.
+   *
+   * @param newBuffer the new underlying buffer
+   */
+  protected void replace (@NonNull ByteBuffer newBuffer) {
+    val oldPosition = buffer.position();
+    val length = Math.min(buffer.capacity(), newBuffer.capacity());
+
+    val source = buffer.duplicate();
+    source.clear();
+    source.limit(length);
+    newBuffer.order(buffer.order());
+    newBuffer.put(source);
+    newBuffer.clear();
+
+    buffer = newBuffer;
+
+    val newCapacity = newBuffer.capacity();
+    buffer.position(Math.min(oldPosition, newCapacity));
+    writerIndex = Math.min(writerIndex, newCapacity);
+    readerIndex = Math.min(readerIndex, newCapacity);
+  }
 }
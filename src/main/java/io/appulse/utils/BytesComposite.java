@@ -0,0 +1,363 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.appulse.utils;
+
+import static lombok.AccessLevel.PRIVATE;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.List;
+
+import lombok.EqualsAndHashCode;
+import lombok.NonNull;
+import lombok.experimental.FieldDefaults;
+import lombok.val;
+
+/**
+ * The read-only view over a sequence of buffers, each buffer's content
+ * is its bytes from {@code 0} till its writer index.
+ * <p>
+ * The buffers are not copied, only the values, which span several buffers,
+ * are assembled from their bytes. There is no single backing array, so the
+ * {@link #array()} is not supported and the {@link #nioBuffer(int, int)}
+ * copies the range, if it spans several buffers.
+ */
+@SuppressWarnings("PMD.AvoidDuplicateLiterals")
+@FieldDefaults(level = PRIVATE)
+@EqualsAndHashCode(callSuper = true)
+class BytesComposite extends BytesAbstract {
+
+  final Bytes[] parts;
+
+  // the parts' start indexes
+  final int[] starts;
+
+  final int writerIndex;
+
+  int readerIndex;
+
+  BytesComposite (@NonNull List<Bytes> parts) {
+    super();
+    this.parts = parts.toArray(new Bytes[0]);
+    starts = new int[this.parts.length];
+
+    long total = 0;
+    for (int index = 0; index < this.parts.length; index++) {
+      starts[index] = (int) total;
+      total += this.parts[index].writerIndex();
+      if (total > Integer.MAX_VALUE) {
+        val msg = String.format("The composite buffer's size %d exceeds the maximum %d", total, Integer.MAX_VALUE);
+        throw new IllegalArgumentException(msg);
+      }
+    }
+    writerIndex = (int) total;
+  }
+
+  @Override
+  public boolean isAutoResizable () {
+    return false;
+  }
+
+  @Override
+  public Bytes writeNB (byte[] bytes, int offset, int length) {
+    val msg = "The operation doesn't support in BytesComposite wrapper";
+    throw new UnsupportedOperationException(msg);
+  }
+
+  @Override
+  public Bytes write1B (byte value) {
+    val msg = "The operation doesn't support in BytesComposite wrapper";
+    throw new UnsupportedOperationException(msg);
+  }
+
+  @Override
+  public Bytes write2B (short value) {
+    val msg = "The operation doesn't support in BytesComposite wrapper";
+    throw new UnsupportedOperationException(msg);
+  }
+
+  @Override
+  public Bytes write4B (int value) {
+    val msg = "The operation doesn't support in BytesComposite wrapper";
+    throw new UnsupportedOperationException(msg);
+  }
+
+  @Override
+  public Bytes write8B (long value) {
+    val msg = "The operation doesn't support in BytesComposite wrapper";
+    throw new UnsupportedOperationException(msg);
+  }
+
+  @Override
+  public Bytes setNB (int index, byte[] bytes, int offset, int length) {
+    val msg = "The operation doesn't support in BytesComposite wrapper";
+    throw new UnsupportedOperationException(msg);
+  }
+
+  @Override
+  public Bytes set1B (int index, byte value) {
+    val msg = "The operation doesn't support in BytesComposite wrapper";
+    throw new UnsupportedOperationException(msg);
+  }
+
+  @Override
+  public Bytes set2B (int index, short value) {
+    val msg = "The operation doesn't support in BytesComposite wrapper";
+    throw new UnsupportedOperationException(msg);
+  }
+
+  @Override
+  public Bytes set4B (int index, int value) {
+    val msg = "The operation doesn't support in BytesComposite wrapper";
+    throw new UnsupportedOperationException(msg);
+  }
+
+  @Override
+  public Bytes set8B (int index, long value) {
+    val msg = "The operation doesn't support in BytesComposite wrapper";
+    throw new UnsupportedOperationException(msg);
+  }
+
+  @Override
+  public byte readByte () {
+    val result = getByte(readerIndex);
+    readerIndex += Byte.BYTES;
+    return result;
+  }
+
+  @Override
+  public short readShort () {
+    val result = getShort(readerIndex);
+    readerIndex += Short.BYTES;
+    return result;
+  }
+
+  @Override
+  public int readInt () {
+    val result = getInt(readerIndex);
+    readerIndex += Integer.BYTES;
+    return result;
+  }
+
+  @Override
+  public long readLong () {
+    val result = getLong(readerIndex);
+    readerIndex += Long.BYTES;
+    return result;
+  }
+
+  @Override
+  public float readFloat () {
+    val result = getFloat(readerIndex);
+    readerIndex += Float.BYTES;
+    return result;
+  }
+
+  @Override
+  public double readDouble () {
+    val result = getDouble(readerIndex);
+    readerIndex += Double.BYTES;
+    return result;
+  }
+
+  @Override
+  public char readChar () {
+    val result = getChar(readerIndex);
+    readerIndex += Character.BYTES;
+    return result;
+  }
+
+  @Override
+  public Bytes readBytes (@NonNull byte[] destination, int offset, int length) {
+    copy(readerIndex, destination, offset, length);
+    readerIndex += length;
+    return this;
+  }
+
+  @Override
+  public byte getByte (int index) {
+    checkReaderBounds(index, Byte.BYTES);
+    val part = part(index);
+    return parts[part].getByte(index - starts[part]);
+  }
+
+  @Override
+  public short getShort (int index) {
+    val part = part(index, Short.BYTES);
+    return part >= 0
+           ? parts[part].getShort(index - starts[part])
+           : BytesUtils.unsafeReadShort(getBytes(index, Short.BYTES), 0);
+  }
+
+  @Override
+  public int getInt (int index) {
+    val part = part(index, Integer.BYTES);
+    return part >= 0
+           ? parts[part].getInt(index - starts[part])
+           : BytesUtils.unsafeReadInteger(getBytes(index, Integer.BYTES), 0);
+  }
+
+  @Override
+  public long getLong (int index) {
+    val part = part(index, Long.BYTES);
+    return part >= 0
+           ? parts[part].getLong(index - starts[part])
+           : BytesUtils.unsafeReadLong(getBytes(index, Long.BYTES), 0);
+  }
+
+  @Override
+  public float getFloat (int index) {
+    val part = part(index, Float.BYTES);
+    return part >= 0
+           ? parts[part].getFloat(index - starts[part])
+           : BytesUtils.unsafeReadFloat(getBytes(index, Float.BYTES), 0);
+  }
+
+  @Override
+  public double getDouble (int index) {
+    val part = part(index, Double.BYTES);
+    return part >= 0
+           ? parts[part].getDouble(index - starts[part])
+           : BytesUtils.unsafeReadDouble(getBytes(index, Double.BYTES), 0);
+  }
+
+  @Override
+  public char getChar (int index) {
+    val part = part(index, Character.BYTES);
+    return part >= 0
+           ? parts[part].getChar(index - starts[part])
+           : BytesUtils.unsafeReadCharacter(getBytes(index, Character.BYTES), 0);
+  }
+
+  @Override
+  public byte[] getBytes (int index, int length) {
+    val result = new byte[length];
+    copy(index, result, 0, length);
+    return result;
+  }
+
+  @Override
+  public String getString (int index, int length, @NonNull Charset charset) {
+    return new String(getBytes(index, length), charset);
+  }
+
+  @Override
+  public int capacity () {
+    return writerIndex;
+  }
+
+  @Override
+  public void capacity (int bytes) {
+    val msg = "The operation doesn't support in BytesComposite wrapper";
+    throw new UnsupportedOperationException(msg);
+  }
+
+  @Override
+  public int writerIndex () {
+    return writerIndex;
+  }
+
+  @Override
+  public Bytes writerIndex (int newIndex) {
+    val msg = "The operation doesn't support in BytesComposite wrapper";
+    throw new UnsupportedOperationException(msg);
+  }
+
+  @Override
+  public int readerIndex () {
+    return readerIndex;
+  }
+
+  @Override
+  public Bytes readerIndex (int newIndex) {
+    if (newIndex < 0 || newIndex > writerIndex) {
+      val msg = String.format(
+          "Reader index error: newIndex(%d) < 0 || newIndex(%d) > writerIndex(%d)",
+          newIndex, newIndex, writerIndex
+      );
+      throw new IndexOutOfBoundsException(msg);
+    }
+    readerIndex = newIndex;
+    return this;
+  }
+
+  @Override
+  public byte[] array () {
+    val msg = "The composite buffer has no backing array, use arrayCopy() instead";
+    throw new UnsupportedOperationException(msg);
+  }
+
+  @Override
+  public byte[] arrayCopy () {
+    return getBytes(0, writerIndex);
+  }
+
+  @Override
+  public ByteBuffer nioBuffer (int index, int length) {
+    checkReaderBounds(index, length);
+    if (length == 0) {
+      return ByteBuffer.allocate(0).asReadOnlyBuffer();
+    }
+    val part = part(index, length);
+    return part >= 0
+           ? parts[part].nioBuffer(index - starts[part], length).asReadOnlyBuffer()
+           : ByteBuffer.wrap(getBytes(index, length)).asReadOnlyBuffer();
+  }
+
+  private void copy (int index, byte[] destination, int offset, int length) {
+    checkReaderBounds(index, length);
+    if (offset < 0 || offset + length > destination.length) {
+      val msg = String.format("Destination error. offset(%d) < 0 || offset(%d)+length(%d) > destination.length(%d)",
+                              offset, offset, length, destination.length);
+      throw new IndexOutOfBoundsException(msg);
+    }
+
+    int position = index;
+    int copied = 0;
+    while (copied < length) {
+      val part = part(position);
+      val partIndex = position - starts[part];
+      val chunk = Math.min(length - copied, parts[part].writerIndex() - partIndex);
+      parts[part].nioBuffer(partIndex, chunk).get(destination, offset + copied, chunk);
+      copied += chunk;
+      position += chunk;
+    }
+  }
+
+  // returns the part, which contains the whole range, or -1 if the range spans several parts
+  private int part (int index, int length) {
+    checkReaderBounds(index, length);
+    val result = part(index);
+    return index - starts[result] + length <= parts[result].writerIndex()
+           ? result
+           : -1;
+  }
+
+  // returns the last non-empty part, which starts before or at the index
+  private int part (int index) {
+    int result = Arrays.binarySearch(starts, index);
+    if (result < 0) {
+      return -result - 2;
+    }
+    // skips the empty parts with the same start
+    while (result + 1 < starts.length && starts[result + 1] == index) {
+      result++;
+    }
+    return result;
+  }
+}
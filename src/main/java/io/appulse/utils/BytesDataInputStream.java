@@ -0,0 +1,242 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.appulse.utils;
+
+import static lombok.AccessLevel.PRIVATE;
+
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.experimental.FieldDefaults;
+import lombok.val;
+
+/**
+ * The unsynchronized {@link InputStream} and {@link DataInput} implementation
+ * over a {@link Bytes} buffer.
+ * <p>
+ * Unlike {@link BytesInputStream}, the methods are not synchronized,
+ * so an instance must be confined to one thread. All primitives are read
+ * directly from the buffer, without the per-byte stream calls,
+ * and in the {@link java.io.DataInputStream}'s format.
+ * <p>
+ * Closing a {@code BytesDataInputStream} has no effect.
+ *
+ * @since 1.19.0
+ * @author Artem Labazin
+ */
+@FieldDefaults(level = PRIVATE)
+public class BytesDataInputStream extends InputStream implements DataInput {
+
+  @Getter
+  final Bytes buffer;
+
+  int mark;
+
+  /**
+   * Creates a stream over the byte array, the array is not copied.
+   *
+   * @param bytes the input buffer
+   */
+  public BytesDataInputStream (@NonNull byte[] bytes) {
+    this(Bytes.wrap(bytes));
+  }
+
+  /**
+   * Creates a stream over the buffer's readable bytes.
+   *
+   * @param bytes the input buffer
+   */
+  public BytesDataInputStream (@NonNull Bytes bytes) {
+    super();
+    buffer = bytes;
+    mark = bytes.readerIndex();
+  }
+
+  @Override
+  public int read () {
+    return buffer.isReadable()
+           ? buffer.readUnsignedByte()
+           : -1;
+  }
+
+  @Override
+  public int read (@NonNull byte[] bytes, int offset, int length) {
+    if (length == 0) {
+      return 0;
+    }
+    val readable = buffer.readableBytes();
+    if (readable == 0) {
+      return -1;
+    }
+    val result = Math.min(readable, length);
+    buffer.readBytes(bytes, offset, result);
+    return result;
+  }
+
+  @Override
+  public long skip (long skipBytes) {
+    if (skipBytes <= 0) {
+      return 0;
+    }
+    val result = (int) Math.min(buffer.readableBytes(), skipBytes);
+    buffer.readerIndex(buffer.readerIndex() + result);
+    return result;
+  }
+
+  @Override
+  public int available () {
+    return buffer.readableBytes();
+  }
+
+  @Override
+  public boolean markSupported () {
+    return true;
+  }
+
+  @Override
+  public void mark (int readAheadLimit) {
+    mark = buffer.readerIndex();
+  }
+
+  @Override
+  public void reset () {
+    buffer.readerIndex(mark);
+  }
+
+  @Override
+  public void close () {
+    // no op
+  }
+
+  @Override
+  public void readFully (@NonNull byte[] bytes) throws IOException {
+    readFully(bytes, 0, bytes.length);
+  }
+
+  @Override
+  public void readFully (@NonNull byte[] bytes, int offset, int length) throws IOException {
+    require(length);
+    buffer.readBytes(bytes, offset, length);
+  }
+
+  @Override
+  public int skipBytes (int skipBytes) {
+    return (int) skip(skipBytes);
+  }
+
+  @Override
+  public boolean readBoolean () throws IOException {
+    return readByte() != 0;
+  }
+
+  @Override
+  public byte readByte () throws IOException {
+    require(Byte.BYTES);
+    return buffer.readByte();
+  }
+
+  @Override
+  public int readUnsignedByte () throws IOException {
+    require(Byte.BYTES);
+    return buffer.readUnsignedByte();
+  }
+
+  @Override
+  public short readShort () throws IOException {
+    require(Short.BYTES);
+    return buffer.readShort();
+  }
+
+  @Override
+  public int readUnsignedShort () throws IOException {
+    require(Short.BYTES);
+    return buffer.readUnsignedShort();
+  }
+
+  @Override
+  public char readChar () throws IOException {
+    require(Character.BYTES);
+    return buffer.readChar();
+  }
+
+  @Override
+  public int readInt () throws IOException {
+    require(Integer.BYTES);
+    return buffer.readInt();
+  }
+
+  @Override
+  public long readLong () throws IOException {
+    require(Long.BYTES);
+    return buffer.readLong();
+  }
+
+  @Override
+  public float readFloat () throws IOException {
+    require(Float.BYTES);
+    return buffer.readFloat();
+  }
+
+  @Override
+  public double readDouble () throws IOException {
+    require(Double.BYTES);
+    return buffer.readDouble();
+  }
+
+  /**
+   * Reads the next line of text, the same way as {@link java.io.DataInputStream#readLine()}.
+   *
+   * @return the next line of text or {@code null} if the end of the buffer is reached
+   */
+  @Override
+  public String readLine () {
+    if (!buffer.isReadable()) {
+      return null;
+    }
+
+    val result = new StringBuilder();
+    while (buffer.isReadable()) {
+      val value = (char) buffer.readUnsignedByte();
+      if (value == '\n') {
+        break;
+      }
+      if (value == '\r') {
+        if (buffer.isReadable() && buffer.getByte(buffer.readerIndex()) == '\n') {
+          buffer.readerIndex(buffer.readerIndex() + 1);
+        }
+        break;
+      }
+      result.append(value);
+    }
+    return result.toString();
+  }
+
+  @Override
+  public String readUTF () throws IOException {
+    return DataInputStream.readUTF(this);
+  }
+
+  private void require (int length) throws EOFException {
+    if (buffer.readableBytes() < length) {
+      throw new EOFException();
+    }
+  }
+}
@@ -0,0 +1,238 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.appulse.utils;
+
+import static java.util.Locale.ENGLISH;
+import static lombok.AccessLevel.PRIVATE;
+
+import java.io.DataOutput;
+import java.io.OutputStream;
+import java.io.UTFDataFormatException;
+
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.experimental.FieldDefaults;
+import lombok.val;
+
+/**
+ * The unsynchronized {@link OutputStream} and {@link DataOutput} implementation
+ * over a {@link Bytes} buffer.
+ * <p>
+ * Unlike {@link BytesOutputStream}, the methods are not synchronized,
+ * so an instance must be confined to one thread. All primitives are written
+ * directly to the buffer, without the per-byte stream calls,
+ * and in the {@link java.io.DataOutputStream}'s format.
+ * <p>
+ * Closing a {@code BytesDataOutputStream} has no effect.
+ *
+ * @since 1.19.0
+ * @author Artem Labazin
+ */
+@FieldDefaults(level = PRIVATE)
+public class BytesDataOutputStream extends OutputStream implements DataOutput {
+
+  private static final int MAX_UTF_LENGTH = 65_535;
+
+  @Getter
+  final Bytes buffer;
+
+  byte[] scratch;
+
+  /**
+   * Creates a new stream. The buffer capacity is
+   * initially 32 bytes, though its size increases if necessary.
+   */
+  public BytesDataOutputStream () {
+    this(32);
+  }
+
+  /**
+   * Creates a new stream, with a buffer capacity of the specified size, in bytes.
+   *
+   * @param size the initial size
+   *
+   * @throws IllegalArgumentException if size is negative
+   */
+  public BytesDataOutputStream (int size) {
+    this(createBuffer(size));
+  }
+
+  /**
+   * Creates a stream, which writes to the buffer.
+   *
+   * @param bytes the output buffer
+   */
+  public BytesDataOutputStream (@NonNull Bytes bytes) {
+    super();
+    buffer = bytes;
+    scratch = new byte[0];
+  }
+
+  @Override
+  public void write (int value) {
+    buffer.write1B(value);
+  }
+
+  @Override
+  public void write (@NonNull byte[] bytes) {
+    buffer.writeNB(bytes);
+  }
+
+  @Override
+  public void write (@NonNull byte[] bytes, int offset, int length) {
+    buffer.writeNB(bytes, offset, length);
+  }
+
+  @Override
+  public void writeBoolean (boolean value) {
+    buffer.write1B(value ? 1 : 0);
+  }
+
+  @Override
+  public void writeByte (int value) {
+    buffer.write1B(value);
+  }
+
+  @Override
+  public void writeShort (int value) {
+    buffer.write2B(value);
+  }
+
+  @Override
+  public void writeChar (int value) {
+    buffer.write2B(value);
+  }
+
+  @Override
+  public void writeInt (int value) {
+    buffer.write4B(value);
+  }
+
+  @Override
+  public void writeLong (long value) {
+    buffer.write8B(value);
+  }
+
+  @Override
+  public void writeFloat (float value) {
+    buffer.write4B(value);
+  }
+
+  @Override
+  public void writeDouble (double value) {
+    buffer.write8B(value);
+  }
+
+  @Override
+  public void writeBytes (@NonNull String value) {
+    val length = value.length();
+    val bytes = scratch(length);
+    for (int index = 0; index < length; index++) {
+      bytes[index] = (byte) value.charAt(index);
+    }
+    buffer.writeNB(bytes, 0, length);
+  }
+
+  @Override
+  public void writeChars (@NonNull String value) {
+    val length = value.length();
+    for (int index = 0; index < length; index++) {
+      buffer.write2B(value.charAt(index));
+    }
+  }
+
+  @Override
+  public void writeUTF (@NonNull String value) throws UTFDataFormatException {
+    val length = value.length();
+    int utfLength = length;
+    for (int index = 0; index < length; index++) {
+      val symbol = value.charAt(index);
+      if (symbol >= 0x800) {
+        utfLength += 2;
+      } else if (symbol >= 0x80 || symbol == 0) {
+        utfLength += 1;
+      }
+    }
+
+    if (utfLength > MAX_UTF_LENGTH) {
+      val msg = String.format(ENGLISH, "Encoded string is too long: %d bytes", utfLength);
+      throw new UTFDataFormatException(msg);
+    }
+
+    val bytes = scratch(utfLength);
+    int position = 0;
+    for (int index = 0; index < length; index++) {
+      val symbol = value.charAt(index);
+      if (symbol != 0 && symbol < 0x80) {
+        bytes[position++] = (byte) symbol;
+      } else if (symbol < 0x800) {
+        bytes[position++] = (byte) (0xC0 | (symbol >> 6) & 0x1F);
+        bytes[position++] = (byte) (0x80 | symbol & 0x3F);
+      } else {
+        bytes[position++] = (byte) (0xE0 | (symbol >> 12) & 0x0F);
+        bytes[position++] = (byte) (0x80 | (symbol >> 6) & 0x3F);
+        bytes[position++] = (byte) (0x80 | symbol & 0x3F);
+      }
+    }
+
+    buffer.write2B(utfLength);
+    buffer.writeNB(bytes, 0, utfLength);
+  }
+
+  /**
+   * Resets the stream's buffer, so that all currently accumulated output is discarded.
+   */
+  public void reset () {
+    buffer.reset();
+  }
+
+  /**
+   * Returns the current size of the buffer.
+   *
+   * @return the number of written bytes
+   */
+  public int size () {
+    return buffer.writerIndex();
+  }
+
+  /**
+   * Creates a newly allocated byte array with the written bytes.
+   *
+   * @return the written bytes copy
+   */
+  public byte[] toByteArray () {
+    return buffer.arrayCopy();
+  }
+
+  @Override
+  public void close () {
+    // no op
+  }
+
+  private byte[] scratch (int length) {
+    if (scratch.length < length) {
+      scratch = new byte[Math.max(length, scratch.length * 2)];
+    }
+    return scratch;
+  }
+
+  private static Bytes createBuffer (int size) {
+    if (size < 0) {
+      throw new IllegalArgumentException("Negative initial size: " + size);
+    }
+    return Bytes.resizableArray(size);
+  }
+}
@@ -0,0 +1,124 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.appulse.utils;
+
+import static lombok.AccessLevel.PRIVATE;
+
+import java.nio.ByteBuffer;
+
+import lombok.EqualsAndHashCode;
+import lombok.experimental.FieldDefaults;
+import lombok.val;
+
+/**
+ * The auto resizable {@link Bytes} implementation over an aligned direct
+ * memory region, allocated by {@link DirectMemoryAllocator}.
+ * <p>
+ * The buffer grows off-heap, the previous memory region is freed
+ * immediately after the content is copied to a new one.
+ */
+@FieldDefaults(level = PRIVATE)
+@EqualsAndHashCode(callSuper = true)
+class BytesDirectBuffer extends BytesByteBuffer {
+
+  private static final int MAX_BUFFER_SIZE = Integer.MAX_VALUE - 8;
+
+  private static final ByteBuffer FREED = ByteBuffer.allocate(0);
+
+  final DirectMemoryAllocator allocator;
+
+  ByteBuffer memory;
+
+  static BytesDirectBuffer allocate (DirectMemoryAllocator allocator, int capacity) {
+    val alignedCapacity = allocator.alignedSize(capacity);
+    val memory = allocator.allocate(alignedCapacity);
+    return new BytesDirectBuffer(allocator, memory, alignedCapacity);
+  }
+
+  private BytesDirectBuffer (DirectMemoryAllocator allocator, ByteBuffer memory, int alignedCapacity) {
+    super(allocator.align(memory, alignedCapacity));
+    this.allocator = allocator;
+    this.memory = memory;
+  }
+
+  @Override
+  public boolean isAutoResizable () {
+    return true;
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @throws IndexOutOfBoundsException if the buffer's memory is freed
+   */
+  @Override
+  public void capacity (int bytes) {
+    if (memory == null) {
+      throw new IndexOutOfBoundsException("The buffer's direct memory is freed");
+    }
+    val alignedBytes = Math.min(allocator.alignedSize(bytes), MAX_BUFFER_SIZE);
+    if (alignedBytes == capacity()) {
+      return;
+    }
+    val oldMemory = memory;
+    memory = allocator.allocate(alignedBytes);
+    replace(allocator.align(memory, alignedBytes));
+    allocator.free(oldMemory);
+  }
+
+  @Override
+  public Bytes writerIndex (int newIndex) {
+    if (newIndex < readerIndex()) {
+      throw new IndexOutOfBoundsException();
+    }
+    checkWriteBounds(newIndex, 0);
+    writerIndex = newIndex;
+    return this;
+  }
+
+  @Override
+  protected void checkWriteBounds (int index, int length) {
+    val currentCapacity = capacity();
+    val neededCapacity = index + length;
+    if (currentCapacity >= neededCapacity) {
+      return;
+    }
+
+    int newCapacity = currentCapacity * 2;
+    if (newCapacity - neededCapacity < 0) {
+      newCapacity = neededCapacity;
+    }
+    if (newCapacity - MAX_BUFFER_SIZE > 0) {
+      newCapacity = MAX_BUFFER_SIZE;
+    }
+    capacity(newCapacity);
+  }
+
+  /**
+   * Frees the direct memory region. Any further access to
+   * the buffer's content throws {@link IndexOutOfBoundsException}.
+   */
+  @SuppressWarnings("PMD.NullAssignment")
+  void free () {
+    if (memory == null) {
+      return;
+    }
+    val oldMemory = memory;
+    memory = null;
+    replace(FREED);
+    allocator.free(oldMemory);
+  }
+}
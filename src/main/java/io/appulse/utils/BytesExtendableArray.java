@@ -50,7 +50,7 @@ class BytesExtendableArray extends BytesFixedArray {
     if (newIndex < readerIndex()) {
       throw new IndexOutOfBoundsException();
     }
-    checkWriteBounds(newIndex, 1);
+    checkWriteBounds(newIndex, 0);
     writerIndex = newIndex;
     return this;
   }
@@ -16,20 +16,37 @@
 
 package io.appulse.utils;
 
+import static io.appulse.utils.SizeUnit.BYTES;
 import static io.appulse.utils.SizeUnit.KILOBYTES;
 import static java.util.Locale.ENGLISH;
+import static java.util.Optional.empty;
+import static java.util.Optional.of;
 import static java.util.Optional.ofNullable;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
 import static java.util.stream.Collectors.toCollection;
 import static lombok.AccessLevel.PRIVATE;
 
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
 import java.nio.charset.Charset;
-import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.LinkedBlockingQueue;
-import java.util.concurrent.atomic.LongAdder;
-import java.util.concurrent.locks.Lock;
-import java.util.concurrent.locks.ReentrantLock;
+import java.util.Deque;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Function;
 import java.util.stream.IntStream;
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.ObjectName;
+
+import io.appulse.utils.threads.AppulseExecutors;
+import io.appulse.utils.threads.AppulseThreadFactory;
 
 import lombok.Builder;
 import lombok.NonNull;
@@ -39,12 +56,41 @@ import lombok.val;
 
 /**
  * The customisable {@link Bytes} pool.
+ * <p>
+ * Released buffers are kept in a LIFO order, so the recently used buffers are
+ * reused first and the rarely used ones sink to the bottom, where the idle
+ * trimmer (if {@code idleTimeout} is set) can release them.
+ * <p>
+ * The pool doesn't use locks: the free buffers are kept in a lock-free deque,
+ * and the number of buffers, which could be acquired (reused or created),
+ * is tracked by a non-fair permits counter. A thread waits only if all
+ * {@code maximumBuffersCount} buffers are acquired.
+ * <p>
+ * In the {@code direct} mode the pool creates auto resizable off-heap buffers,
+ * which memory regions are aligned to {@code alignmentBytes} (the OS page size
+ * by default). The total allocated direct memory could be limited by
+ * {@code maximumDirectMemorySize}, and the buffers' memory is freed explicitly
+ * once the buffers are dropped, trimmed or the pool is closed.
+ *
+ * <p>
+ * The pool collects its metrics, see {@link #getStats()}. If the pool has a
+ * {@code name}, it is registered as a JMX MBean with the
+ * {@code io.appulse.utils:type=BytesPool,name=<name>} object name
+ * and unregistered on close.
  *
  * @since 1.15.0
  * @author Artem Labazin
  */
 @FieldDefaults(level = PRIVATE, makeFinal = true)
-public class BytesPool implements AutoCloseable {
+public class BytesPool implements AutoCloseable, BytesPoolMXBean {
+
+  /**
+   * The system property, which enables the debug mode by default
+   * for all pools, see {@link PooledBytes}.
+   *
+   * @since 1.19.0
+   */
+  public static final String DEBUG_PROPERTY = "io.appulse.utils.bytes.pool.debug";
 
   private static final int DEFAULT_INITIAL_BUFFERS_COUNT = 2;
 
@@ -52,34 +98,125 @@ public class BytesPool implements AutoCloseable {
 
   private static final int DEFAULT_INITIAL_BUFFER_SIZE = (int) KILOBYTES.toBytes(8);
 
+  private static final long DEFAULT_MAXIMUM_RETAINED_SIZE = Long.MAX_VALUE;
+
+  private static final int DEFAULT_SHRINK_THRESHOLD = Integer.MAX_VALUE;
+
+  private static final long DEFAULT_MAXIMUM_DIRECT_MEMORY_SIZE = Long.MAX_VALUE;
+
+  int minimumBuffersCount;
+
   int maximumBuffersCount;
 
   int initialBufferSizeBytes;
 
-  Function<Integer, Bytes> bufferCreateFunction;
+  long maximumRetainedBytes;
+
+  int shrinkThresholdBytes;
+
+  long idleTimeoutNanos;
+
+  boolean debug;
+
+  boolean recordAcquireLatency;
 
-  BlockingQueue<Bytes> buffers;
+  Optional<Function<Integer, Bytes>> bufferCreateFunction;
 
-  LongAdder acquiredBuffersCount;
+  Deque<PooledBytes> buffers;
 
-  LongAdder totalElements;
+  Semaphore permits;
 
-  Lock createNewLock;
+  AtomicInteger acquiredBuffersCount;
+
+  AtomicInteger totalElements;
+
+  AtomicLong retainedBytes;
+
+  Optional<ScheduledExecutorService> trimmer;
+
+  Optional<DirectMemoryAllocator> directMemory;
+
+  AtomicBoolean closed;
+
+  BytesPoolMetrics metrics;
+
+  Optional<ObjectName> objectName;
 
   public BytesPool () {
-    this(null, null, null, null);
+    this(null, null, null, null, null, null, null, null, null, null, null, null, null, null, null, null);
   }
 
+  /**
+   * The pool's constructor.
+   *
+   * @param initialBuffersCount the number of buffers created at start, the idle
+   *                            trimmer never goes below this number
+   *
+   * @param maximumBuffersCount the maximum number of buffers in the pool
+   *
+   * @param initialBufferSizeBytes the size of a newly created buffer
+   *
+   * @param bufferCreateFunction the function for creating a new buffer by its size
+   *
+   * @param maximumRetainedSize the maximum size of all free (released) buffers,
+   *                            a released buffer is dropped if the limit is exceeded
+   *
+   * @param maximumRetainedSizeUnit the unit of the {@code maximumRetainedSize}, bytes by default
+   *
+   * @param shrinkThresholdBytes the released buffers with capacity greater than
+   *                             this value are shrunk back to {@code initialBufferSizeBytes}
+   *
+   * @param idleTimeout the time after which a free buffer is released by the
+   *                    background trimmer, the trimmer is disabled if not set
+   *
+   * @param idleTimeoutUnit the unit of the {@code idleTimeout}, milliseconds by default
+   *
+   * @param direct if {@code true}, the pool creates off-heap buffers, it could
+   *               not be used together with {@code bufferCreateFunction}
+   *
+   * @param alignmentBytes the direct buffers' memory alignment, must be a power of two,
+   *                       the OS page size by default
+   *
+   * @param maximumDirectMemorySize the maximum size of the direct memory, allocated by the pool
+   *
+   * @param maximumDirectMemorySizeUnit the unit of the {@code maximumDirectMemorySize}, bytes by default
+   *
+   * @param debug if {@code true}, every access to a pooled buffer is checked, by default
+   *              the value is taken from the {@link #DEBUG_PROPERTY} system property
+   *
+   * @param recordAcquireLatency if {@code true}, the acquire latency histogram is recorded,
+   *                             the other metrics are always collected
+   *
+   * @param name the pool's name, if it is set the pool is registered as a JMX MBean
+   *
+   * @throws IllegalArgumentException if both {@code direct} and {@code bufferCreateFunction}
+   *                                  are set, the alignment is not a power of two or
+   *                                  a pool with the same {@code name} is already registered
+   */
   @Builder
   BytesPool (Integer initialBuffersCount,
              Integer maximumBuffersCount,
              Integer initialBufferSizeBytes,
-             Function<Integer, Bytes> bufferCreateFunction
+             Function<Integer, Bytes> bufferCreateFunction,
+             Long maximumRetainedSize,
+             SizeUnit maximumRetainedSizeUnit,
+             Integer shrinkThresholdBytes,
+             Long idleTimeout,
+             TimeUnit idleTimeoutUnit,
+             Boolean direct,
+             Integer alignmentBytes,
+             Long maximumDirectMemorySize,
+             SizeUnit maximumDirectMemorySizeUnit,
+             Boolean debug,
+             Boolean recordAcquireLatency,
+             String name
   ) {
     int initialBuffers = ofNullable(initialBuffersCount)
         .filter(it -> it >= 0)
         .orElse(DEFAULT_INITIAL_BUFFERS_COUNT);
 
+    this.minimumBuffersCount = initialBuffers;
+
     this.maximumBuffersCount = ofNullable(maximumBuffersCount)
         .filter(it -> it >= 0)
         .filter(it -> it >= initialBuffers)
@@ -89,17 +226,80 @@ public class BytesPool implements AutoCloseable {
         .filter(it -> it > 0)
         .orElse(DEFAULT_INITIAL_BUFFER_SIZE);
 
-    this.bufferCreateFunction = ofNullable(bufferCreateFunction)
-        .orElse(Bytes::resizableArray);
+    if (Boolean.TRUE.equals(direct) && bufferCreateFunction != null) {
+      throw new IllegalArgumentException("The direct mode could not be used with a custom buffer create function");
+    }
+
+    this.directMemory = Boolean.TRUE.equals(direct)
+                        ? of(createDirectMemoryAllocator(alignmentBytes, maximumDirectMemorySize, maximumDirectMemorySizeUnit))
+                        : empty();
+
+    this.debug = ofNullable(debug)
+        .orElseGet(() -> Boolean.getBoolean(DEBUG_PROPERTY));
+
+    val defaultCreateFunction = this.debug
+                                ? Optional.<Function<Integer, Bytes>>of(Bytes::resizableArray)
+                                : Optional.<Function<Integer, Bytes>>empty();
+
+    this.bufferCreateFunction = this.directMemory
+        .<Function<Integer, Bytes>>map(allocator -> size -> BytesDirectBuffer.allocate(allocator, size))
+        .map(Optional::of)
+        .orElseGet(() -> ofNullable(bufferCreateFunction).map(Optional::of).orElse(defaultCreateFunction));
+
+    val retainedSizeUnit = ofNullable(maximumRetainedSizeUnit)
+        .orElse(BYTES);
+
+    this.maximumRetainedBytes = ofNullable(maximumRetainedSize)
+        .filter(it -> it >= 0)
+        .map(retainedSizeUnit::toBytes)
+        .orElse(DEFAULT_MAXIMUM_RETAINED_SIZE);
+
+    this.shrinkThresholdBytes = ofNullable(shrinkThresholdBytes)
+        .filter(it -> it >= this.initialBufferSizeBytes)
+        .orElse(DEFAULT_SHRINK_THRESHOLD);
+
+    val timeoutUnit = ofNullable(idleTimeoutUnit)
+        .orElse(MILLISECONDS);
+
+    this.idleTimeoutNanos = ofNullable(idleTimeout)
+        .filter(it -> it > 0)
+        .map(timeoutUnit::toNanos)
+        .orElse(0L);
+
+    totalElements = new AtomicInteger();
+    acquiredBuffersCount = new AtomicInteger();
+    retainedBytes = new AtomicLong();
+    permits = new Semaphore(this.maximumBuffersCount);
+    closed = new AtomicBoolean(false);
+    metrics = new BytesPoolMetrics();
 
-    totalElements = new LongAdder();
-    acquiredBuffersCount = new LongAdder();
-    createNewLock = new ReentrantLock(true);
+    this.recordAcquireLatency = Boolean.TRUE.equals(recordAcquireLatency);
 
+    val now = System.nanoTime();
     buffers = IntStream.range(0, initialBuffers)
-        .mapToObj(it -> this.bufferCreateFunction.apply(this.initialBufferSizeBytes))
-        .peek(it -> totalElements.increment())
-        .collect(toCollection(LinkedBlockingQueue::new));
+        .mapToObj(it -> newPooledBytes())
+        .peek(it -> totalElements.incrementAndGet())
+        .peek(it -> retainedBytes.addAndGet(it.storage().capacity()))
+        .peek(it -> it.releasedAt = now)
+        .collect(toCollection(ConcurrentLinkedDeque::new));
+    metrics.totalCount(totalElements.get());
+    metrics.retainedBytes(retainedBytes.get());
+
+    trimmer = idleTimeoutNanos > 0
+              ? of(startTrimmer())
+              : empty();
+
+    boolean registered = false;
+    try {
+      objectName = ofNullable(name)
+          .map(this::registerMBean);
+      registered = true;
+    } finally {
+      if (!registered) {
+        closed.set(true);
+        releaseResources();
+      }
+    }
   }
 
   /**
@@ -109,10 +309,25 @@ public class BytesPool implements AutoCloseable {
    */
   @SneakyThrows
   public PooledBytes acquire () {
-    val buffer = getOrCreateBuffer();
-    acquiredBuffersCount.increment();
-    buffer.reset();
-    return new PooledBytes(buffer);
+    val start = recordAcquireLatency
+                ? System.nanoTime()
+                : 0L;
+
+    if (!permits.tryAcquire()) {
+      waitPermit();
+    }
+    val result = pollOrCreateBuffer();
+    result.generation++;
+    metrics.acquiredCount(acquiredBuffersCount.incrementAndGet());
+
+    val storage = result.storage();
+    storage.reset();
+    result.acquiredCapacity = storage.capacity();
+
+    if (recordAcquireLatency) {
+      metrics.acquired(System.nanoTime() - start);
+    }
+    return result;
   }
 
   /**
@@ -121,30 +336,66 @@ public class BytesPool implements AutoCloseable {
    * @param minSize expected minimal buffer size in mytes
    *
    * @return the pooled {@link Bytes} instance
+   *
+   * @throws IllegalStateException if the direct buffer's growth exceeds the direct memory limit
    */
   public PooledBytes acquire (int minSize) {
     val result = acquire();
-    if (result.capacity() < minSize) {
+    if (result.capacity() >= minSize) {
+      return result;
+    }
+    boolean grown = false;
+    try {
       result.capacity(minSize);
+      grown = true;
+      return result;
+    } finally {
+      if (!grown) {
+        result.release();
+      }
     }
-    return result;
   }
 
   /**
    * Release the acquired bytes buffer.
+   * <p>
+   * The buffer is shrunk if its capacity is greater than the shrink threshold,
+   * and it is dropped from the pool if the free buffers' total size exceeds
+   * the retained size limit.
    *
    * @param buffer the buffer to release
+   *
+   * @throws IllegalArgumentException if the buffer is not from this pool
+   *
+   * @throws IllegalStateException if the buffer is already released
    */
   @SuppressWarnings("PMD.AccessorMethodGeneration")
   public void release (@NonNull PooledBytes buffer) {
     if (buffer.parent != this) {
       throw new IllegalArgumentException("The buffer not from this pool");
     }
-    val detached = buffer.detach();
-    if (!buffers.offer(detached)) {
-      throw new IllegalStateException("Unexpected behaviour");
+    if (!buffer.isAcquired()) {
+      throw new IllegalStateException("Pooled bytes buffer already released");
+    }
+    buffer.generation++;
+
+    val storage = buffer.storage();
+    storage.reset();
+    if (storage.capacity() > buffer.acquiredCapacity) {
+      metrics.grown();
+    }
+    if (storage.capacity() > shrinkThresholdBytes) {
+      storage.capacity(initialBufferSizeBytes);
+      metrics.shrunk();
+    }
+
+    if (closed.get()) {
+      discard(buffer);
+    } else {
+      retain(buffer);
     }
-    acquiredBuffersCount.decrement();
+    acquiredBuffersCount.decrementAndGet();
+    permits.release();
   }
 
   /**
@@ -152,17 +403,20 @@ public class BytesPool implements AutoCloseable {
    *
    * @return acquired count
    */
+  @Override
   public int getAcquiredCount () {
-    return acquiredBuffersCount.intValue();
+    return acquiredBuffersCount.get();
   }
 
   /**
-   * Returns the free buffers count.
+   * Returns the free buffers count, it is the number of buffers, which
+   * could be acquired (reused or created) without waiting.
    *
    * @return free count
    */
+  @Override
   public int getFreeCount () {
-    return maximumBuffersCount - acquiredBuffersCount.intValue();
+    return permits.availablePermits();
   }
 
   /**
@@ -170,53 +424,278 @@ public class BytesPool implements AutoCloseable {
    *
    * @return total count
    */
+  @Override
   public int getTotalCount () {
-    return totalElements.intValue();
+    return totalElements.get();
+  }
+
+  /**
+   * Returns the maximum buffers count, the acquiring threads wait
+   * once this number of buffers are acquired.
+   *
+   * @return maximum count, {@link Integer#MAX_VALUE} if the pool is unbounded
+   */
+  @Override
+  public int getMaximumCount () {
+    return maximumBuffersCount;
+  }
+
+  /**
+   * Returns the total size of the free buffers, which are retained by the pool.
+   *
+   * @return retained size in bytes
+   *
+   * @since 1.19.0
+   */
+  @Override
+  public long getRetainedBytes () {
+    return retainedBytes.get();
+  }
+
+  /**
+   * Returns the size of the direct memory, allocated by the pool.
+   *
+   * @return allocated direct memory in bytes, or {@code 0}
+   *         if the pool is not in the direct mode
+   *
+   * @since 1.19.0
+   */
+  @Override
+  public long getDirectMemoryBytes () {
+    return directMemory
+        .map(DirectMemoryAllocator::getUsedBytes)
+        .orElse(0L);
+  }
+
+  @Override
+  public BytesPoolStats getStats () {
+    val builder = BytesPoolStats.builder()
+        .acquiredCount(getAcquiredCount())
+        .freeCount(getFreeCount())
+        .totalCount(getTotalCount())
+        .retainedBytes(getRetainedBytes())
+        .directMemoryBytes(getDirectMemoryBytes());
+
+    return metrics.fill(builder).build();
   }
 
   @Override
   public void close () {
-    createNewLock.lock();
+    closed.set(true);
+    objectName.ifPresent(BytesPool::unregisterMBean);
+    releaseResources();
+  }
+
+  // stops the trimmer and drops the free buffers, the acquired ones are dropped on release
+  private void releaseResources () {
+    trimmer.ifPresent(ExecutorService::shutdownNow);
+
+    PooledBytes idle = buffers.pollFirst();
+    while (idle != null) {
+      drop(idle);
+      idle = buffers.pollFirst();
+    }
+  }
+
+  private void waitPermit () throws InterruptedException {
+    val start = System.nanoTime();
+    permits.acquire();
+    metrics.waited(System.nanoTime() - start);
+  }
+
+  // the caller must hold a permit, so there is a free buffer or a new one could be created
+  private PooledBytes pollOrCreateBuffer () {
+    while (true) {
+      val idle = buffers.pollFirst();
+      if (idle != null) {
+        metrics.reused();
+        return take(idle);
+      }
+      if (tryReserveNewBuffer()) {
+        return createBuffer();
+      }
+      // the last free buffer is being trimmed right now,
+      // the total count will be decreased in a moment
+      Thread.yield();
+    }
+  }
+
+  private boolean tryReserveNewBuffer () {
+    int current = totalElements.get();
+    while (current < maximumBuffersCount) {
+      if (totalElements.compareAndSet(current, current + 1)) {
+        metrics.totalCount(current + 1);
+        return true;
+      }
+      current = totalElements.get();
+    }
+    return false;
+  }
+
+  private PooledBytes createBuffer () {
+    boolean created = false;
     try {
-      buffers.clear();
+      val result = newPooledBytes();
+      created = true;
+      metrics.created();
+      return result;
     } finally {
-      createNewLock.unlock();
+      if (!created) {
+        totalElements.decrementAndGet();
+        permits.release();
+      }
     }
   }
 
-  private Bytes getOrCreateBuffer () throws InterruptedException {
-    val buffer = buffers.poll();
-    if (buffer != null) {
-      return buffer;
+  private PooledBytes newPooledBytes () {
+    if (bufferCreateFunction.isPresent()) {
+      val delegate = bufferCreateFunction.get().apply(initialBufferSizeBytes);
+      return new DelegatingPooledBytes(delegate);
     }
+    return new ArrayPooledBytes(initialBufferSizeBytes);
+  }
+
+  private void retain (PooledBytes buffer) {
+    val capacity = buffer.storage().capacity();
+    val retained = retainedBytes.addAndGet(capacity);
+    if (retained > maximumRetainedBytes) {
+      retainedBytes.addAndGet(-capacity);
+      discard(buffer);
+      metrics.dropped();
+      return;
+    }
+    metrics.retainedBytes(retained);
+
+    buffer.releasedAt = System.nanoTime();
+    if (!buffers.offerFirst(buffer)) {
+      throw new IllegalStateException("Unexpected behaviour");
+    }
+    // the pool could be closed in the meantime
+    if (closed.get() && buffers.removeFirstOccurrence(buffer)) {
+      drop(buffer);
+    }
+  }
 
-    createNewLock.lock();
+  private PooledBytes take (PooledBytes idle) {
+    retainedBytes.addAndGet(-idle.storage().capacity());
+    return idle;
+  }
+
+  private void drop (PooledBytes idle) {
+    discard(take(idle));
+  }
+
+  private void discard (PooledBytes buffer) {
+    totalElements.decrementAndGet();
+    val storage = buffer.storage();
+    if (storage instanceof BytesDirectBuffer) {
+      ((BytesDirectBuffer) storage).free();
+    }
+  }
+
+  private static DirectMemoryAllocator createDirectMemoryAllocator (Integer alignmentBytes,
+                                                                   Long maximumDirectMemorySize,
+                                                                   SizeUnit maximumDirectMemorySizeUnit
+  ) {
+    val alignment = ofNullable(alignmentBytes)
+        .orElse(DirectBufferUtils.PAGE_SIZE);
+
+    if (!DirectBufferUtils.isValidAlignment(alignment)) {
+      val msg = String.format(ENGLISH, "The alignment must be a power of two, but it is %d", alignment);
+      throw new IllegalArgumentException(msg);
+    }
+
+    val sizeUnit = ofNullable(maximumDirectMemorySizeUnit)
+        .orElse(BYTES);
+
+    val maximumBytes = ofNullable(maximumDirectMemorySize)
+        .filter(it -> it > 0)
+        .map(sizeUnit::toBytes)
+        .orElse(DEFAULT_MAXIMUM_DIRECT_MEMORY_SIZE);
+
+    return new DirectMemoryAllocator(alignment, maximumBytes);
+  }
+
+  @SneakyThrows
+  private ObjectName registerMBean (String name) {
+    val result = new ObjectName("io.appulse.utils:type=BytesPool,name=" + ObjectName.quote(name));
     try {
-      if (totalElements.sum() >= maximumBuffersCount) {
-        return buffers.take();
+      ManagementFactory.getPlatformMBeanServer().registerMBean(this, result);
+    } catch (InstanceAlreadyExistsException ex) {
+      val msg = String.format(ENGLISH, "The bytes pool with the name '%s' is already registered", name);
+      throw new IllegalArgumentException(msg, ex);
+    }
+    return result;
+  }
+
+  @SneakyThrows
+  private static void unregisterMBean (ObjectName name) {
+    val server = ManagementFactory.getPlatformMBeanServer();
+    if (server.isRegistered(name)) {
+      server.unregisterMBean(name);
+    }
+  }
+
+  private ScheduledExecutorService startTrimmer () {
+    val threadFactory = AppulseThreadFactory.builder()
+        .name("bytes-pool-trimmer-%d")
+        .daemon(true)
+        .build();
+
+    val result = AppulseExecutors.newScheduledThreadPool()
+        .threadFactory(threadFactory)
+        .build();
+
+    result.scheduleWithFixedDelay(this::trimIdleBuffers, idleTimeoutNanos, idleTimeoutNanos, NANOSECONDS);
+    return result;
+  }
+
+  private void trimIdleBuffers () {
+    val idleSince = System.nanoTime() - idleTimeoutNanos;
+    while (totalElements.get() > minimumBuffersCount) {
+      val oldest = buffers.peekLast();
+      if (oldest == null || oldest.releasedAt - idleSince > 0) {
+        return;
+      }
+      // the buffer could be acquired and released again in the meantime
+      if (!buffers.removeLastOccurrence(oldest)) {
+        continue;
+      }
+      if (oldest.releasedAt - idleSince > 0) {
+        buffers.offerFirst(oldest);
+      } else {
+        drop(oldest);
+        metrics.trimmed();
       }
-      val newBuffer = bufferCreateFunction.apply(initialBufferSizeBytes);
-      totalElements.increment();
-      return newBuffer;
-    } finally {
-      createNewLock.unlock();
     }
   }
 
   /**
    * Specific {@link Bytes} implementation for the pools.
+   * <p>
+   * The instances are bound to their pooled buffers and reused across
+   * acquisitions, so acquiring doesn't allocate anything. A pool without
+   * a custom buffer create function hands out the array buffers
+   * themselves, without any delegation and checks. The other buffers
+   * are wrapped and every access is checked to be done between
+   * acquiring and releasing. The debug mode (see {@link #DEBUG_PROPERTY})
+   * makes the pool wrap the array buffers too.
    */
   @FieldDefaults(level = PRIVATE)
-  @SuppressWarnings("PMD.LinguisticNaming")
-  public final class PooledBytes extends BytesAbstract implements AutoCloseable {
-
-    Bytes delegate;
+  @SuppressWarnings("PMD.AccessorMethodGeneration")
+  public abstract class PooledBytes extends BytesExtendableArray implements AutoCloseable {
 
     BytesPool parent = BytesPool.this;
 
-    PooledBytes (Bytes delegate) {
-      super();
-      this.delegate = delegate;
+    // odd while the buffer is acquired, even while it is in the pool
+    int generation;
+
+    long releasedAt;
+
+    int acquiredCapacity;
+
+    PooledBytes (int initialSize) {
+      super(initialSize);
     }
 
     /**
@@ -231,6 +710,51 @@ public class BytesPool implements AutoCloseable {
       release();
     }
 
+    /**
+     * Tells if the buffer is acquired, it is the buffer's ownership stamp.
+     *
+     * @return {@code true} if the buffer is acquired and not released yet
+     */
+    public boolean isAcquired () {
+      return (generation & 1) == 1;
+    }
+
+    /**
+     * Returns the actual buffer, which holds the content.
+     *
+     * @return the buffer's storage
+     */
+    abstract Bytes storage ();
+  }
+
+  private final class ArrayPooledBytes extends PooledBytes {
+
+    ArrayPooledBytes (int initialSize) {
+      super(initialSize);
+    }
+
+    @Override
+    Bytes storage () {
+      return this;
+    }
+  }
+
+  @FieldDefaults(level = PRIVATE, makeFinal = true)
+  @SuppressWarnings("PMD.LinguisticNaming")
+  private final class DelegatingPooledBytes extends PooledBytes {
+
+    Bytes delegate;
+
+    DelegatingPooledBytes (Bytes delegate) {
+      super(0);
+      this.delegate = delegate;
+    }
+
+    @Override
+    Bytes storage () {
+      return delegate;
+    }
+
     @Override
     public boolean isAutoResizable () {
       validate();
@@ -441,19 +965,24 @@ public class BytesPool implements AutoCloseable {
       return delegate.array();
     }
 
+    @Override
+    public byte[] arrayCopy () {
+      validate();
+      return delegate.arrayCopy();
+    }
+
+    @Override
+    public ByteBuffer nioBuffer (int index, int length) {
+      validate();
+      return delegate.nioBuffer(index, length);
+    }
+
     private void validate () {
-      if (delegate != null) {
+      if (isAcquired()) {
         return;
       }
       val msg = String.format(ENGLISH, "Pooled bytes buffer already released");
       throw new IllegalStateException(msg);
     }
-
-    @SuppressWarnings("PMD.NullAssignment")
-    private Bytes detach () {
-      val result = delegate;
-      delegate = null;
-      return result;
-    }
   }
 }
@@ -0,0 +1,74 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.appulse.utils;
+
+/**
+ * The {@link BytesPool} management interface.
+ *
+ * @since 1.19.0
+ * @author Artem Labazin
+ */
+public interface BytesPoolMXBean {
+
+  /**
+   * Returns the acquired buffers count.
+   *
+   * @return acquired count
+   */
+  int getAcquiredCount ();
+
+  /**
+   * Returns the free buffers count.
+   *
+   * @return free count
+   */
+  int getFreeCount ();
+
+  /**
+   * Returns the total buffers count.
+   *
+   * @return total count
+   */
+  int getTotalCount ();
+
+  /**
+   * Returns the maximum buffers count, {@link Integer#MAX_VALUE} if the pool is unbounded.
+   *
+   * @return maximum count
+   */
+  int getMaximumCount ();
+
+  /**
+   * Returns the total size of the free buffers, which are retained by the pool.
+   *
+   * @return retained size in bytes
+   */
+  long getRetainedBytes ();
+
+  /**
+   * Returns the size of the direct memory, allocated by the pool.
+   *
+   * @return allocated direct memory in bytes
+   */
+  long getDirectMemoryBytes ();
+
+  /**
+   * Returns the pool's metrics snapshot.
+   *
+   * @return the metrics snapshot
+   */
+  BytesPoolStats getStats ();
+}
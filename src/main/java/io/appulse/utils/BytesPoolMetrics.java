@@ -0,0 +1,136 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.appulse.utils;
+
+import static lombok.AccessLevel.PRIVATE;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import lombok.experimental.FieldDefaults;
+import lombok.val;
+
+/**
+ * The {@link BytesPool} metrics collector.
+ *
+ * @since 1.19.0
+ * @author Artem Labazin
+ */
+@FieldDefaults(level = PRIVATE, makeFinal = true)
+final class BytesPoolMetrics {
+
+  LongAdder reuseCount = new LongAdder();
+
+  LongAdder createCount = new LongAdder();
+
+  LongAdder waitCount = new LongAdder();
+
+  LongAdder growthCount = new LongAdder();
+
+  LongAdder shrinkCount = new LongAdder();
+
+  LongAdder dropCount = new LongAdder();
+
+  LongAdder trimCount = new LongAdder();
+
+  AtomicInteger peakAcquiredCount = new AtomicInteger();
+
+  AtomicInteger peakTotalCount = new AtomicInteger();
+
+  AtomicLong peakRetainedBytes = new AtomicLong();
+
+  LatencyRecorder acquireLatency = new LatencyRecorder();
+
+  LatencyRecorder waitLatency = new LatencyRecorder();
+
+  void reused () {
+    reuseCount.increment();
+  }
+
+  void created () {
+    createCount.increment();
+  }
+
+  void waited (long nanos) {
+    waitCount.increment();
+    waitLatency.record(nanos);
+  }
+
+  void acquired (long nanos) {
+    acquireLatency.record(nanos);
+  }
+
+  void grown () {
+    growthCount.increment();
+  }
+
+  void shrunk () {
+    shrinkCount.increment();
+  }
+
+  void dropped () {
+    dropCount.increment();
+  }
+
+  void trimmed () {
+    trimCount.increment();
+  }
+
+  void acquiredCount (int value) {
+    if (value > peakAcquiredCount.get()) {
+      peakAcquiredCount.accumulateAndGet(value, Math::max);
+    }
+  }
+
+  void totalCount (int value) {
+    if (value > peakTotalCount.get()) {
+      peakTotalCount.accumulateAndGet(value, Math::max);
+    }
+  }
+
+  void retainedBytes (long value) {
+    if (value > peakRetainedBytes.get()) {
+      peakRetainedBytes.accumulateAndGet(value, Math::max);
+    }
+  }
+
+  /**
+   * Fills the stats builder with the collected metrics.
+   *
+   * @param builder the stats builder
+   *
+   * @return the same builder
+   */
+  BytesPoolStats.BytesPoolStatsBuilder fill (BytesPoolStats.BytesPoolStatsBuilder builder) {
+    val reused = reuseCount.sum();
+    val created = createCount.sum();
+    return builder
+        .peakAcquiredCount(peakAcquiredCount.get())
+        .peakTotalCount(peakTotalCount.get())
+        .peakRetainedBytes(peakRetainedBytes.get())
+        .acquireCount(reused + created)
+        .reuseCount(reused)
+        .createCount(created)
+        .waitCount(waitCount.sum())
+        .growthCount(growthCount.sum())
+        .shrinkCount(shrinkCount.sum())
+        .dropCount(dropCount.sum())
+        .trimCount(trimCount.sum())
+        .acquireLatency(acquireLatency.snapshot())
+        .waitLatency(waitLatency.snapshot());
+  }
+}
@@ -0,0 +1,160 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.appulse.utils;
+
+import lombok.Builder;
+import lombok.Value;
+import lombok.val;
+
+/**
+ * The {@link BytesPool} metrics snapshot.
+ *
+ * @since 1.19.0
+ * @author Artem Labazin
+ */
+@Value
+@Builder
+public class BytesPoolStats {
+
+  /**
+   * The number of currently acquired buffers.
+   */
+  int acquiredCount;
+
+  /**
+   * The number of buffers, which could be acquired without waiting.
+   */
+  int freeCount;
+
+  /**
+   * The number of buffers, created by the pool and not dropped yet.
+   */
+  int totalCount;
+
+  /**
+   * The maximum number of simultaneously acquired buffers.
+   */
+  int peakAcquiredCount;
+
+  /**
+   * The maximum number of simultaneously existed buffers.
+   */
+  int peakTotalCount;
+
+  /**
+   * The total size of the free buffers, which are retained by the pool.
+   */
+  long retainedBytes;
+
+  /**
+   * The maximum total size of the retained free buffers.
+   */
+  long peakRetainedBytes;
+
+  /**
+   * The size of the direct memory, allocated by the pool.
+   */
+  long directMemoryBytes;
+
+  /**
+   * The number of acquisitions.
+   */
+  long acquireCount;
+
+  /**
+   * The number of acquisitions, which reused a free buffer.
+   */
+  long reuseCount;
+
+  /**
+   * The number of acquisitions, which created a new buffer.
+   */
+  long createCount;
+
+  /**
+   * The number of acquisitions, which waited for a released buffer.
+   */
+  long waitCount;
+
+  /**
+   * The number of buffers, which were released with a bigger capacity
+   * than they had at acquiring.
+   */
+  long growthCount;
+
+  /**
+   * The number of released buffers, which were shrunk to the initial size.
+   */
+  long shrinkCount;
+
+  /**
+   * The number of released buffers, which were dropped because of
+   * the retained size limit.
+   */
+  long dropCount;
+
+  /**
+   * The number of free buffers, released by the idle trimmer.
+   */
+  long trimCount;
+
+  /**
+   * The acquire latency, it is recorded only if the pool is built with
+   * the {@code recordAcquireLatency} option, otherwise its count is zero.
+   */
+  Latency acquireLatency;
+
+  /**
+   * The waiting for a released buffer latency.
+   */
+  Latency waitLatency;
+
+  /**
+   * Returns the share of the acquisitions, which reused a free buffer.
+   *
+   * @return the reuse ratio between {@code 0.0} and {@code 1.0}
+   */
+  public double getReuseRatio () {
+    val served = reuseCount + createCount;
+    return served == 0
+           ? 0.0
+           : (double) reuseCount / served;
+  }
+
+  /**
+   * The latency histogram snapshot, all values are in nanoseconds.
+   */
+  @Value
+  @Builder
+  public static class Latency {
+
+    long count;
+
+    long totalNanos;
+
+    double meanNanos;
+
+    long maxNanos;
+
+    long p50Nanos;
+
+    long p90Nanos;
+
+    long p99Nanos;
+
+    long p999Nanos;
+  }
+}
@@ -19,6 +19,7 @@ package io.appulse.utils;
 import static lombok.AccessLevel.PACKAGE;
 import static lombok.AccessLevel.PRIVATE;
 
+import java.nio.ByteBuffer;
 import java.nio.charset.Charset;
 
 import lombok.EqualsAndHashCode;
@@ -247,4 +248,14 @@ class BytesReadOnly extends BytesAbstract {
   public byte[] array () {
     return delegate.array();
   }
+
+  @Override
+  public byte[] arrayCopy () {
+    return delegate.arrayCopy();
+  }
+
+  @Override
+  public ByteBuffer nioBuffer (int index, int length) {
+    return delegate.nioBuffer(index, length).asReadOnlyBuffer();
+  }
 }
@@ -18,6 +18,7 @@ package io.appulse.utils;
 
 import static lombok.AccessLevel.PRIVATE;
 
+import java.nio.ByteBuffer;
 import java.nio.charset.Charset;
 
 import lombok.Builder;
@@ -227,6 +228,23 @@ class BytesSlice extends BytesFixedArray {
     return super.getString(newIndex, length, charset);
   }
 
+  @Override
+  public ByteBuffer nioBuffer () {
+    return nioBuffer(readerIndex(), readableBytes());
+  }
+
+  @Override
+  public ByteBuffer nioBuffer (int index, int length) {
+    if (index < 0 || length < 0 || index + length > capacity()) {
+      val msg = String.format(
+          "Invalid range. index(%d) < 0 || length(%d) < 0 || index(%d)+length(%d) > capacity(%d)",
+          index, length, index, length, capacity()
+      );
+      throw new IndexOutOfBoundsException(msg);
+    }
+    return super.nioBuffer(from + index, length);
+  }
+
   @Override
   public int capacity () {
     return to - from;
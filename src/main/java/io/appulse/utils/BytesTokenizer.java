@@ -0,0 +1,278 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.appulse.utils;
+
+import static java.util.Locale.ENGLISH;
+import static java.util.Optional.ofNullable;
+import static lombok.AccessLevel.PRIVATE;
+
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.stream.Stream;
+
+import lombok.Builder;
+import lombok.SneakyThrows;
+import lombok.experimental.FieldDefaults;
+import lombok.val;
+
+/**
+ * The streaming tokenizer, which splits the input by a delimiter.
+ * <p>
+ * The input is read into a single buffer, which is refilled when it is
+ * exhausted, and the tokens are returned as a reusable read-only view of
+ * this buffer, so there are no allocations per token. The tokens, which
+ * span the buffer's refills, are moved to the buffer's start, and the
+ * buffer is grown if a token doesn't fit into it.
+ * <p>
+ * By default, the input is split by lines: the delimiter is {@code LF}
+ * and the trailing {@code CR} is dropped, so both {@code CRLF} and
+ * {@code LF} line endings are supported.
+ * <p>
+ * The tokenizer doesn't close the source.
+ *
+ * @since 1.19.0
+ * @author Artem Labazin
+ */
+@FieldDefaults(level = PRIVATE)
+public final class BytesTokenizer {
+
+  private static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+
+  private static final byte[] LINE_FEED = { '\n' };
+
+  private static final byte CARRIAGE_RETURN = '\r';
+
+  final ReadableByteChannel channel;
+
+  final InputStream inputStream;
+
+  final byte[] delimiter;
+
+  final boolean lines;
+
+  final int maxTokenSize;
+
+  ByteBuffer data;
+
+  Bytes token;
+
+  // the unconsumed data's start and end
+  int start;
+
+  int limit;
+
+  // the position from which the delimiter search continues
+  int scan;
+
+  boolean endOfInput;
+
+  /**
+   * The tokenizer's constructor, exactly one source must be specified.
+   *
+   * @param channel the source channel, it must be in the blocking mode
+   *
+   * @param inputStream the source stream
+   *
+   * @param bytes the source buffer, its readable bytes are tokenized without
+   *              copying, the buffer's indexes are not changed
+   *
+   * @param delimiter the tokens' delimiter, by default the input is split by lines
+   *
+   * @param bufferSizeBytes the initial buffer's size, 64 KiB by default
+   *
+   * @param maxTokenSizeBytes the maximum token's size, there is no limit by default
+   *
+   * @throws IllegalArgumentException if there is no source or more than one source,
+   *                                  or if the delimiter is empty
+   */
+  @Builder
+  BytesTokenizer (ReadableByteChannel channel,
+                  InputStream inputStream,
+                  Bytes bytes,
+                  byte[] delimiter,
+                  Integer bufferSizeBytes,
+                  Integer maxTokenSizeBytes
+  ) {
+    val sources = Stream.of(channel, inputStream, bytes)
+        .filter(Objects::nonNull)
+        .count();
+    if (sources != 1) {
+      val msg = String.format(ENGLISH, "Exactly one source must be specified, but there are %d", sources);
+      throw new IllegalArgumentException(msg);
+    }
+    if (delimiter != null && delimiter.length == 0) {
+      throw new IllegalArgumentException("The delimiter must not be empty");
+    }
+
+    this.channel = channel;
+    this.inputStream = inputStream;
+    this.lines = delimiter == null;
+    this.delimiter = lines
+                     ? LINE_FEED
+                     : Arrays.copyOf(delimiter, delimiter.length);
+
+    this.maxTokenSize = ofNullable(maxTokenSizeBytes)
+        .filter(it -> it > 0)
+        .orElse(Integer.MAX_VALUE);
+
+    if (bytes == null) {
+      val size = ofNullable(bufferSizeBytes)
+          .filter(it -> it > 0)
+          .orElse(DEFAULT_BUFFER_SIZE);
+      setData(ByteBuffer.allocate(size));
+    } else {
+      setData(bytes.nioBuffer());
+      limit = data.capacity();
+      endOfInput = true;
+    }
+  }
+
+  /**
+   * Returns the next token.
+   * <p>
+   * The returned view is reused and it is valid only till the next call,
+   * its readable bytes are the token's content without the delimiter.
+   * The last token could have no delimiter after it.
+   *
+   * @return the next token's view, or {@code null} if the input is over
+   *
+   * @throws IllegalStateException if the token's size exceeds the maximum size
+   */
+  public Bytes next () {
+    while (true) {
+      val found = indexOf(scan, limit);
+      if (found >= 0) {
+        int end = found;
+        if (lines && end > start && data.get(end - 1) == CARRIAGE_RETURN) {
+          end--;
+        }
+        checkTokenSize(end - start);
+        val result = token(start, end);
+        start = found + delimiter.length;
+        scan = start;
+        return result;
+      }
+
+      if (endOfInput) {
+        if (start == limit) {
+          return null;
+        }
+        checkTokenSize(limit - start);
+        val result = token(start, limit);
+        start = limit;
+        scan = limit;
+        return result;
+      }
+
+      scan = Math.max(start, limit - delimiter.length + 1);
+      fill();
+    }
+  }
+
+  private Bytes token (int from, int to) {
+    token.readerIndex(0);
+    token.writerIndex(to);
+    token.readerIndex(from);
+    return token;
+  }
+
+  private int indexOf (int from, int to) {
+    val first = delimiter[0];
+    val last = to - delimiter.length;
+    for (int index = from; index <= last; index++) {
+      if (data.get(index) == first && matches(index)) {
+        return index;
+      }
+    }
+    return -1;
+  }
+
+  private boolean matches (int index) {
+    for (int offset = 1; offset < delimiter.length; offset++) {
+      if (data.get(index + offset) != delimiter[offset]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  @SneakyThrows
+  private void fill () {
+    if (limit == data.capacity()) {
+      makeSpace();
+    }
+
+    int read;
+    do {
+      read = channel != null
+             ? readChannel()
+             : inputStream.read(data.array(), limit, data.capacity() - limit);
+    } while (read == 0);
+
+    if (read < 0) {
+      endOfInput = true;
+    } else {
+      limit += read;
+    }
+  }
+
+  @SneakyThrows
+  private int readChannel () {
+    val target = data.duplicate();
+    target.limit(target.capacity());
+    target.position(limit);
+    return channel.read(target);
+  }
+
+  // moves the unconsumed data to the buffer's start, or grows the buffer if it is full
+  private void makeSpace () {
+    val length = limit - start;
+    // the unconsumed data is a token's part, with a dropped CR and a delimiter's part
+    val slack = delimiter.length - 1 + (lines ? 1 : 0);
+    if (length > (long) maxTokenSize + slack) {
+      checkTokenSize(length);
+    }
+
+    if (start > 0) {
+      System.arraycopy(data.array(), start, data.array(), 0, length);
+    } else {
+      val capacity = (int) Math.min((long) data.capacity() * 2, Integer.MAX_VALUE - 8);
+      if (capacity <= data.capacity()) {
+        throw new IllegalStateException("The token doesn't fit into the maximum buffer's size");
+      }
+      setData(ByteBuffer.wrap(Arrays.copyOf(data.array(), capacity)));
+    }
+    scan -= start;
+    limit = length;
+    start = 0;
+  }
+
+  private void checkTokenSize (int size) {
+    if (size > maxTokenSize) {
+      val msg = String.format(ENGLISH, "The token's size exceeds the maximum %d bytes", maxTokenSize);
+      throw new IllegalStateException(msg);
+    }
+  }
+
+  private void setData (ByteBuffer buffer) {
+    data = buffer;
+    token = new BytesByteBuffer(buffer.asReadOnlyBuffer());
+  }
+}
@@ -0,0 +1,282 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.appulse.utils;
+
+import static lombok.AccessLevel.PRIVATE;
+
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.GatheringByteChannel;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import io.appulse.utils.BytesPool.PooledBytes;
+
+import lombok.NonNull;
+import lombok.SneakyThrows;
+import lombok.experimental.FieldDefaults;
+import lombok.val;
+
+/**
+ * This class implements an output stream in which the data is
+ * written into a chain of fixed-size chunks, taken from a {@link BytesPool}
+ * (or allocated, if there is no pool).
+ * <p>
+ * Unlike the {@link BytesOutputStream}, the written data is never moved:
+ * a full chunk is not grown and copied, the next chunk is added instead.
+ * The result could be handed off without consolidation - as a composite
+ * read-only {@link Bytes} view, as the chunks' views, or written to
+ * a channel with one gathering write.
+ * <p>
+ * The views are valid till the stream is {@link #reset() reset} or
+ * {@link #close() closed}, which return the chunks to the pool.
+ *
+ * @since 1.19.0
+ * @author Artem Labazin
+ */
+@FieldDefaults(level = PRIVATE)
+public class ChunkedBytesOutputStream extends OutputStream {
+
+  private static final int DEFAULT_CHUNK_SIZE = 8192;
+
+  final BytesPool pool;
+
+  final int chunkSize;
+
+  final List<Bytes> chunks = new ArrayList<>();
+
+  Bytes current;
+
+  long size;
+
+  /**
+   * Creates a new stream, which allocates 8 KiB chunks on the heap.
+   */
+  public ChunkedBytesOutputStream () {
+    this(null, DEFAULT_CHUNK_SIZE);
+  }
+
+  /**
+   * Creates a new stream, which takes 8 KiB chunks from the pool.
+   *
+   * @param pool the chunks' pool
+   */
+  public ChunkedBytesOutputStream (BytesPool pool) {
+    this(pool, DEFAULT_CHUNK_SIZE);
+  }
+
+  /**
+   * Creates a new stream with the chunks of the specified size.
+   *
+   * @param pool the chunks' pool, if it is {@code null}, the chunks are allocated on the heap
+   *
+   * @param chunkSize the minimal chunk's size, in bytes; a pooled chunk could be bigger
+   *
+   * @exception IllegalArgumentException if the chunk's size is not positive.
+   */
+  public ChunkedBytesOutputStream (BytesPool pool, int chunkSize) {
+    super();
+    if (chunkSize <= 0) {
+      throw new IllegalArgumentException("Non-positive chunk size: " + chunkSize);
+    }
+    this.pool = pool;
+    this.chunkSize = chunkSize;
+  }
+
+  @Override
+  public synchronized void write (int value) {
+    if (current == null || current.writerIndex() == current.capacity()) {
+      nextChunk();
+    }
+    current.write1B(value);
+    size++;
+  }
+
+  @Override
+  public synchronized void write (@NonNull byte[] bytes, int offset, int length) {
+    if (offset < 0 || length < 0 || offset + length > bytes.length) {
+      throw new IndexOutOfBoundsException();
+    }
+
+    int written = 0;
+    while (written < length) {
+      if (current == null || current.writerIndex() == current.capacity()) {
+        nextChunk();
+      }
+      val chunk = Math.min(length - written, current.capacity() - current.writerIndex());
+      current.writeNB(bytes, offset + written, chunk);
+      written += chunk;
+    }
+    size += length;
+  }
+
+  /**
+   * Writes the buffer's readable bytes into the stream, the buffer's
+   * reader index is moved to its writer index.
+   *
+   * @param bytes the bytes to write
+   */
+  public synchronized void write (@NonNull Bytes bytes) {
+    val source = bytes.nioBuffer();
+    val length = source.remaining();
+    while (source.hasRemaining()) {
+      if (current == null || current.writerIndex() == current.capacity()) {
+        nextChunk();
+      }
+      val chunk = Math.min(source.remaining(), current.capacity() - current.writerIndex());
+      val view = source.duplicate();
+      view.limit(view.position() + chunk);
+      current.nioBuffer(current.writerIndex(), chunk).put(view);
+      current.writerIndex(current.writerIndex() + chunk);
+      source.position(source.position() + chunk);
+    }
+    size += length;
+    bytes.readerIndex(bytes.writerIndex());
+  }
+
+  /**
+   * Returns the current size of the written data.
+   *
+   * @return the number of valid bytes in this output stream.
+   */
+  public synchronized long size () {
+    return size;
+  }
+
+  /**
+   * Returns the read-only views of the chunks' written data, without copying.
+   *
+   * @return the chunks' views, in the writing order
+   */
+  public synchronized List<Bytes> chunks () {
+    val result = new ArrayList<Bytes>(chunks.size());
+    for (val chunk : chunks) {
+      result.add(Bytes.readOnly(chunk));
+    }
+    return Collections.unmodifiableList(result);
+  }
+
+  /**
+   * Returns the read-only composite view of the written data, without copying.
+   * <p>
+   * The view has no backing array, and its {@link Bytes#nioBuffer() nioBuffer}
+   * copies the range, if it spans several chunks.
+   *
+   * @return the written data's view
+   *
+   * @throws IllegalStateException if the size exceeds {@link Integer#MAX_VALUE}
+   */
+  public synchronized Bytes toBytes () {
+    if (size > Integer.MAX_VALUE) {
+      throw new IllegalStateException("The stream's size exceeds the maximum buffer size: " + size);
+    }
+    return chunks.size() == 1
+           ? Bytes.readOnly(chunks.get(0))
+           : new BytesComposite(chunks);
+  }
+
+  /**
+   * Creates a newly allocated byte array with the written data.
+   *
+   * @return the current contents of this output stream, as a byte array.
+   *
+   * @throws IllegalStateException if the size exceeds {@link Integer#MAX_VALUE}
+   */
+  public synchronized byte[] toByteArray () {
+    if (size > Integer.MAX_VALUE) {
+      throw new IllegalStateException("The stream's size exceeds the maximum array size: " + size);
+    }
+    val result = new byte[(int) size];
+    int offset = 0;
+    for (val chunk : chunks) {
+      val length = chunk.writerIndex();
+      chunk.nioBuffer(0, length).get(result, offset, length);
+      offset += length;
+    }
+    return result;
+  }
+
+  /**
+   * Writes all the data to the channel with gathering writes, without copying.
+   * The stream's content is not changed.
+   *
+   * @param channel the target channel
+   *
+   * @return the number of written bytes
+   */
+  @SneakyThrows
+  public synchronized long writeTo (@NonNull GatheringByteChannel channel) {
+    val views = new ByteBuffer[chunks.size()];
+    for (int index = 0; index < views.length; index++) {
+      val chunk = chunks.get(index);
+      views[index] = chunk.nioBuffer(0, chunk.writerIndex());
+    }
+
+    long written = 0;
+    while (written < size) {
+      val result = channel.write(views);
+      if (result < 0) {
+        break;
+      }
+      written += result;
+    }
+    return written;
+  }
+
+  /**
+   * Writes all the data to the output stream, chunk by chunk.
+   * The stream's content is not changed.
+   *
+   * @param outputStream the target stream
+   */
+  public synchronized void writeTo (@NonNull OutputStream outputStream) {
+    for (val chunk : chunks) {
+      WriteBytesUtils.write(outputStream, chunk.nioBuffer(0, chunk.writerIndex()));
+    }
+  }
+
+  /**
+   * Discards all the written data and returns the chunks to the pool.
+   * The stream can be used again.
+   */
+  public synchronized void reset () {
+    for (val chunk : chunks) {
+      if (chunk instanceof PooledBytes) {
+        ((PooledBytes) chunk).release();
+      }
+    }
+    chunks.clear();
+    current = null;
+    size = 0;
+  }
+
+  /**
+   * Returns the chunks to the pool, see {@link #reset()}.
+   */
+  @Override
+  public void close () {
+    reset();
+  }
+
+  private void nextChunk () {
+    current = pool == null
+              ? Bytes.allocate(chunkSize)
+              : pool.acquire(chunkSize);
+    chunks.add(current);
+  }
+}
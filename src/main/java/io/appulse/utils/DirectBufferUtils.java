@@ -0,0 +1,269 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.appulse.utils;
+
+import static java.lang.invoke.MethodType.methodType;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.security.AccessController;
+import java.security.PrivilegedAction;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+import lombok.SneakyThrows;
+import lombok.val;
+
+/**
+ * The helpers for the direct (off-heap) {@link ByteBuffer}s: page size detection,
+ * aligned allocation and explicit freeing.
+ * <p>
+ * All JDK internals are accessed reflectively and every helper has a safe
+ * fallback: the default page size, unaligned memory and freeing by the GC.
+ *
+ * @since 1.19.0
+ * @author Artem Labazin
+ */
+@SuppressWarnings({
+    "PMD.AvoidAccessibilityAlteration",
+    "PMD.AvoidCatchingThrowable"
+})
+final class DirectBufferUtils {
+
+  static final int DEFAULT_PAGE_SIZE = 4096;
+
+  static final int PAGE_SIZE;
+
+  private static final Optional<MethodHandle> ALIGNMENT_OFFSET;
+
+  private static final Optional<Field> ADDRESS;
+
+  private static final Consumer<ByteBuffer> CLEANER;
+
+  static {
+    val unsafe = findUnsafe();
+    PAGE_SIZE = unsafe
+        .map(DirectBufferUtils::pageSize)
+        .orElse(DEFAULT_PAGE_SIZE);
+
+    ALIGNMENT_OFFSET = findAlignmentOffset();
+    ADDRESS = ALIGNMENT_OFFSET.isPresent()
+              ? Optional.empty()
+              : findAddress();
+
+    CLEANER = unsafe
+        .flatMap(DirectBufferUtils::findInvokeCleaner)
+        .orElseGet(DirectBufferUtils::findCleaner);
+  }
+
+  /**
+   * Allocates a direct buffer, which is bigger than the requested {@code capacity}
+   * to be able to provide an aligned view of it via {@link #align(ByteBuffer, int, int)}.
+   *
+   * @param capacity the needed aligned memory size
+   *
+   * @param alignment the memory alignment, a power of two
+   *
+   * @return the new raw direct buffer
+   */
+  static ByteBuffer allocate (int capacity, int alignment) {
+    val slack = alignment > 1
+                ? alignment - 1
+                : 0;
+    return ByteBuffer.allocateDirect(capacity + slack);
+  }
+
+  /**
+   * Returns an aligned slice of the raw direct buffer.
+   * <p>
+   * If the memory address couldn't be obtained, the slice is just not aligned.
+   *
+   * @param raw the raw buffer, created by {@link #allocate(int, int)}
+   *
+   * @param capacity the slice's capacity
+   *
+   * @param alignment the memory alignment, a power of two
+   *
+   * @return the aligned slice
+   */
+  static ByteBuffer align (ByteBuffer raw, int capacity, int alignment) {
+    val duplicate = raw.duplicate();
+    duplicate.clear();
+    if (alignment > 1) {
+      val misalignment = alignmentOffset(raw, alignment);
+      val offset = misalignment == 0
+                   ? 0
+                   : alignment - misalignment;
+      duplicate.position(offset);
+    }
+    duplicate.limit(duplicate.position() + capacity);
+    return duplicate.slice();
+  }
+
+  /**
+   * Frees the direct buffer's memory immediately, without waiting for the GC.
+   * <p>
+   * The buffer must not be used after that call.
+   *
+   * @param raw the original (not a slice or a duplicate) direct buffer
+   */
+  static void free (ByteBuffer raw) {
+    if (raw.isDirect()) {
+      CLEANER.accept(raw);
+    }
+  }
+
+  /**
+   * Rounds the value up to the nearest multiple of the alignment.
+   *
+   * @param value the value to round
+   *
+   * @param alignment the alignment, a power of two
+   *
+   * @return the rounded value
+   */
+  static int alignSize (int value, int alignment) {
+    if (alignment <= 1) {
+      return value;
+    }
+    val mask = alignment - 1;
+    return (value + mask) & ~mask;
+  }
+
+  /**
+   * Checks that the alignment is a positive power of two.
+   *
+   * @param alignment the alignment to check
+   *
+   * @return {@code true} if the alignment is valid
+   */
+  static boolean isValidAlignment (int alignment) {
+    return alignment > 0 && Integer.bitCount(alignment) == 1;
+  }
+
+  @SneakyThrows
+  private static int alignmentOffset (ByteBuffer buffer, int alignment) {
+    if (ALIGNMENT_OFFSET.isPresent()) {
+      return (int) ALIGNMENT_OFFSET.get().invoke(buffer, 0, alignment);
+    }
+    if (ADDRESS.isPresent()) {
+      val address = ADDRESS.get().getLong(buffer);
+      return (int) (address & (alignment - 1));
+    }
+    return 0;
+  }
+
+  private static Optional<Object> findUnsafe () {
+    try {
+      val type = Class.forName("sun.misc.Unsafe");
+      val field = type.getDeclaredField("theUnsafe");
+      makeAccessible(field);
+      return Optional.ofNullable(field.get(null));
+    } catch (Throwable ex) {
+      return Optional.empty();
+    }
+  }
+
+  private static int pageSize (Object unsafe) {
+    try {
+      val method = unsafe.getClass().getMethod("pageSize");
+      return (int) method.invoke(unsafe);
+    } catch (Throwable ex) {
+      return DEFAULT_PAGE_SIZE;
+    }
+  }
+
+  // Java 9+
+  private static Optional<MethodHandle> findAlignmentOffset () {
+    try {
+      val type = methodType(int.class, int.class, int.class);
+      val handle = MethodHandles.publicLookup().findVirtual(ByteBuffer.class, "alignmentOffset", type);
+      return Optional.of(handle);
+    } catch (Throwable ex) {
+      return Optional.empty();
+    }
+  }
+
+  // Java 8
+  private static Optional<Field> findAddress () {
+    try {
+      val field = Buffer.class.getDeclaredField("address");
+      makeAccessible(field);
+      return Optional.of(field);
+    } catch (Throwable ex) {
+      return Optional.empty();
+    }
+  }
+
+  // Java 9+
+  private static Optional<Consumer<ByteBuffer>> findInvokeCleaner (Object unsafe) {
+    try {
+      val type = methodType(void.class, ByteBuffer.class);
+      val handle = MethodHandles.lookup()
+          .findVirtual(unsafe.getClass(), "invokeCleaner", type)
+          .bindTo(unsafe);
+      return Optional.of(buffer -> invokeCleaner(handle, buffer));
+    } catch (Throwable ex) {
+      return Optional.empty();
+    }
+  }
+
+  // Java 8
+  private static Consumer<ByteBuffer> findCleaner () {
+    try {
+      val cleaner = Class.forName("sun.nio.ch.DirectBuffer").getMethod("cleaner");
+      val clean = Class.forName("sun.misc.Cleaner").getMethod("clean");
+      return buffer -> clean(cleaner, clean, buffer);
+    } catch (Throwable ex) {
+      return buffer -> {
+        // the memory will be freed by GC
+      };
+    }
+  }
+
+  @SneakyThrows
+  private static void invokeCleaner (MethodHandle handle, ByteBuffer buffer) {
+    handle.invoke(buffer);
+  }
+
+  @SneakyThrows
+  private static void clean (Method cleaner, Method clean, ByteBuffer buffer) {
+    val instance = cleaner.invoke(buffer);
+    if (instance != null) {
+      clean.invoke(instance);
+    }
+  }
+
+  private static void makeAccessible (Field field) {
+    AccessController.doPrivileged(new PrivilegedAction<Object>() {
+
+      @Override
+      public Object run () {
+        field.setAccessible(true);
+        return null;
+      }
+    });
+  }
+
+  private DirectBufferUtils () {
+    throw new UnsupportedOperationException();
+  }
+}
@@ -0,0 +1,124 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.appulse.utils;
+
+import static java.util.Locale.ENGLISH;
+import static lombok.AccessLevel.PRIVATE;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicLong;
+
+import lombok.experimental.FieldDefaults;
+import lombok.val;
+
+/**
+ * The direct memory allocator with aligned buffers and a hard limit
+ * of the allocated memory.
+ *
+ * @since 1.19.0
+ * @author Artem Labazin
+ */
+@FieldDefaults(level = PRIVATE, makeFinal = true)
+final class DirectMemoryAllocator {
+
+  int alignment;
+
+  long maximumBytes;
+
+  AtomicLong usedBytes;
+
+  DirectMemoryAllocator (int alignment, long maximumBytes) {
+    this.alignment = alignment;
+    this.maximumBytes = maximumBytes;
+    usedBytes = new AtomicLong();
+  }
+
+  /**
+   * Rounds the requested size up to the allocator's alignment.
+   *
+   * @param capacity the requested size
+   *
+   * @return the aligned size
+   */
+  int alignedSize (int capacity) {
+    return DirectBufferUtils.alignSize(capacity, alignment);
+  }
+
+  /**
+   * Allocates a raw direct buffer for an aligned memory region of the specified size.
+   *
+   * @param capacity the aligned memory size, see {@link #alignedSize(int)}
+   *
+   * @return the raw buffer, the memory region could be obtained via {@link #align(ByteBuffer, int)}
+   *
+   * @throws IllegalStateException if the allocation exceeds the allocator's limit
+   */
+  ByteBuffer allocate (int capacity) {
+    val required = (long) capacity + (alignment > 1 ? alignment - 1 : 0);
+    while (true) {
+      val used = usedBytes.get();
+      if (used + required > maximumBytes) {
+        val msg = String.format(ENGLISH,
+            "Direct memory limit exceeded: requested %d bytes, used %d of %d bytes",
+            required, used, maximumBytes
+        );
+        throw new IllegalStateException(msg);
+      }
+      if (usedBytes.compareAndSet(used, used + required)) {
+        break;
+      }
+    }
+
+    try {
+      return DirectBufferUtils.allocate(capacity, alignment);
+    } catch (OutOfMemoryError ex) {
+      usedBytes.addAndGet(-required);
+      throw ex;
+    }
+  }
+
+  /**
+   * Returns the aligned memory region of the raw buffer.
+   *
+   * @param raw the raw buffer, created by {@link #allocate(int)}
+   *
+   * @param capacity the memory region size
+   *
+   * @return the aligned buffer
+   */
+  ByteBuffer align (ByteBuffer raw, int capacity) {
+    return DirectBufferUtils.align(raw, capacity, alignment);
+  }
+
+  /**
+   * Frees the raw buffer's memory.
+   *
+   * @param raw the raw buffer, created by {@link #allocate(int)}
+   */
+  void free (ByteBuffer raw) {
+    usedBytes.addAndGet(-raw.capacity());
+    DirectBufferUtils.free(raw);
+  }
+
+  /**
+   * Returns the currently allocated memory size.
+   *
+   * @return the allocated bytes
+   */
+  long getUsedBytes () {
+    return usedBytes.get();
+  }
+}
@@ -18,11 +18,16 @@ package io.appulse.utils;
 
 import static java.util.Locale.ENGLISH;
 
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.CharBuffer;
+import java.util.Arrays;
 import java.util.Formatter;
 import java.util.FormatterClosedException;
 import java.util.IllegalFormatException;
 
 import lombok.NonNull;
+import lombok.SneakyThrows;
 import lombok.val;
 
 /**
@@ -45,7 +50,28 @@ public final class HexUtil {
     NEW_LINE = newLine;
   }
 
-  private static final char[] HEX_CODES = "0123456789ABCDEF".toCharArray();
+  // the two hex digits of every byte value, at the index (value * 2)
+  private static final char[] UPPER_CASE_PAIRS = digitPairs("0123456789ABCDEF");
+
+  private static final char[] LOWER_CASE_PAIRS = digitPairs("0123456789abcdef");
+
+  // the values of the ASCII hex digits, -1 for the other characters
+  private static final byte[] DIGIT_VALUES = digitValues();
+
+  private static final int ROW_BYTES = 16;
+
+  // |<8 offset digits>|<16 * 3 + 1 hex dump>|<16 ascii dump>|
+  private static final int ROW_WIDTH = 1 + 8 + 1 + ROW_BYTES * 3 + 1 + 1 + ROW_BYTES + 1;
+
+  private static final String DUMP_BORDER =
+      "+--------+-------------------------------------------------+----------------+";
+
+  private static final String DUMP_HEADER =
+      "         +-------------------------------------------------+" + NEW_LINE +
+      "         |  0  1  2  3  4  5  6  7  8  9  a  b  c  d  e  f |" + NEW_LINE +
+      DUMP_BORDER;
+
+  private static final ThreadLocal<RowFormatter> ROW_FORMATTER = ThreadLocal.withInitial(RowFormatter::new);
 
   /**
    * Converts an array of bytes into a string.
@@ -59,12 +85,211 @@ public final class HexUtil {
    * @since 1.16.1
    */
   public static String toHexString (@NonNull byte[] bytes) {
-    val result = new StringBuilder(bytes.length * 2);
-    for (val value : bytes) {
-      result.append(HEX_CODES[(value >> 4) & 0xF]);
-      result.append(HEX_CODES[value & 0xF]);
+    return toHexString(bytes, true);
+  }
+
+  /**
+   * Converts an array of bytes into a string.
+   *
+   * @param bytes an array of bytes
+   *
+   * @param upperCase {@code true} for the upper case digits, {@code false} for the lower case
+   *
+   * @return a string containing a lexical representation of HEX binary
+   *
+   * @since 1.19.0
+   */
+  public static String toHexString (@NonNull byte[] bytes, boolean upperCase) {
+    val pairs = pairs(upperCase);
+    val result = new char[bytes.length * 2];
+    for (int index = 0; index < bytes.length; index++) {
+      val pair = (bytes[index] & 0xFF) << 1;
+      result[index << 1] = pairs[pair];
+      result[(index << 1) + 1] = pairs[pair + 1];
     }
-    return result.toString();
+    return new String(result);
+  }
+
+  /**
+   * Converts the buffer's range into a string.
+   *
+   * @param buffer the source buffer, its indices are not changed
+   *
+   * @param index the range's start
+   *
+   * @param length the range's length
+   *
+   * @param upperCase {@code true} for the upper case digits, {@code false} for the lower case
+   *
+   * @return a string containing a lexical representation of HEX binary
+   *
+   * @since 1.19.0
+   */
+  public static String toHexString (@NonNull Bytes buffer, int index, int length, boolean upperCase) {
+    val result = new char[length * 2];
+    encode(buffer, index, length, result, 0, upperCase);
+    return new String(result);
+  }
+
+  /**
+   * Encodes the buffer's range into the hex digits of the char array.
+   *
+   * @param source the source buffer, its indices are not changed
+   *
+   * @param index the range's start
+   *
+   * @param length the range's length
+   *
+   * @param target the target char array
+   *
+   * @param offset the target array's offset
+   *
+   * @param upperCase {@code true} for the upper case digits, {@code false} for the lower case
+   *
+   * @return the number of written chars, it is {@code length * 2}
+   *
+   * @throws IndexOutOfBoundsException if the range is out of the buffer's capacity,
+   *                                   or the target array has no space for the digits
+   *
+   * @since 1.19.0
+   */
+  public static int encode (@NonNull Bytes source, int index, int length,
+                            @NonNull char[] target, int offset, boolean upperCase
+  ) {
+    checkRange(source, index, length);
+    if (offset < 0 || offset + length * 2 > target.length) {
+      val msg = String.format(ENGLISH,
+          "expected: 0 <= offset(%d) <= offset+length*2(%d) <= target.length(%d)",
+          offset, offset + length * 2, target.length
+      );
+      throw new IndexOutOfBoundsException(msg);
+    }
+
+    val pairs = pairs(upperCase);
+    int position = offset;
+    for (int current = index; current < index + length; current++) {
+      val pair = source.getUnsignedByte(current) << 1;
+      target[position++] = pairs[pair];
+      target[position++] = pairs[pair + 1];
+    }
+    return length * 2;
+  }
+
+  /**
+   * Appends the hex digits of the buffer's range to the {@link Appendable},
+   * for example, to a {@link StringBuilder} or a {@link java.io.Writer}.
+   *
+   * @param source the source buffer, its indices are not changed
+   *
+   * @param index the range's start
+   *
+   * @param length the range's length
+   *
+   * @param target the target appendable
+   *
+   * @param upperCase {@code true} for the upper case digits, {@code false} for the lower case
+   *
+   * @return the number of written chars, it is {@code length * 2}
+   *
+   * @since 1.19.0
+   */
+  @SneakyThrows
+  public static int encode (@NonNull Bytes source, int index, int length,
+                            @NonNull Appendable target, boolean upperCase
+  ) {
+    checkRange(source, index, length);
+    if (target instanceof StringBuilder) {
+      val builder = (StringBuilder) target;
+      builder.ensureCapacity(builder.length() + length * 2);
+    }
+
+    val pairs = pairs(upperCase);
+    for (int current = index; current < index + length; current++) {
+      val pair = source.getUnsignedByte(current) << 1;
+      target.append(pairs[pair]).append(pairs[pair + 1]);
+    }
+    return length * 2;
+  }
+
+  /**
+   * Writes the hex digits of the buffer's range as ASCII bytes into the target buffer,
+   * starting at its writer index.
+   *
+   * @param source the source buffer, its indices are not changed
+   *
+   * @param index the range's start
+   *
+   * @param length the range's length
+   *
+   * @param target the target buffer, its writer index is moved by the written bytes' count
+   *
+   * @param upperCase {@code true} for the upper case digits, {@code false} for the lower case
+   *
+   * @return the number of written bytes, it is {@code length * 2}
+   *
+   * @since 1.19.0
+   */
+  public static int encode (@NonNull Bytes source, int index, int length,
+                            @NonNull Bytes target, boolean upperCase
+  ) {
+    checkRange(source, index, length);
+    val pairs = pairs(upperCase);
+    for (int current = index; current < index + length; current++) {
+      val pair = source.getUnsignedByte(current) << 1;
+      target.write2B((short) (pairs[pair] << 8 | pairs[pair + 1]));
+    }
+    return length * 2;
+  }
+
+  /**
+   * Decodes the hex digits (in any case) into the target buffer, starting at its writer index.
+   *
+   * @param source the hex digits
+   *
+   * @param target the target buffer, its writer index is moved by the decoded bytes' count
+   *
+   * @return the number of decoded bytes
+   *
+   * @throws IllegalArgumentException if the source has an odd length or not hex digits
+   *
+   * @since 1.19.0
+   */
+  public static int decode (@NonNull CharSequence source, @NonNull Bytes target) {
+    val length = source.length();
+    checkEvenLength(length);
+    for (int index = 0; index < length; index += 2) {
+      target.write1B(decode(source.charAt(index), source.charAt(index + 1), index));
+    }
+    return length / 2;
+  }
+
+  /**
+   * Decodes the ASCII hex digits (in any case) of the source buffer's range
+   * into the target buffer, starting at its writer index.
+   *
+   * @param source the source buffer, its indices are not changed
+   *
+   * @param index the range's start
+   *
+   * @param length the range's length
+   *
+   * @param target the target buffer, its writer index is moved by the decoded bytes' count
+   *
+   * @return the number of decoded bytes
+   *
+   * @throws IllegalArgumentException if the range has an odd length or not hex digits
+   *
+   * @since 1.19.0
+   */
+  public static int decode (@NonNull Bytes source, int index, int length, @NonNull Bytes target) {
+    checkRange(source, index, length);
+    checkEvenLength(length);
+    for (int current = index; current < index + length; current += 2) {
+      val high = (char) source.getUnsignedByte(current);
+      val low = (char) source.getUnsignedByte(current + 1);
+      target.write1B(decode(high, low, current - index));
+    }
+    return length / 2;
   }
 
   /**
@@ -83,20 +308,11 @@ public final class HexUtil {
    */
   public static byte[] toByteArray (@NonNull String string) {
     val length = string.length();
-    if (length % 2 != 0) {
-      val msg = String.format(ENGLISH, "hexBinary needs to be even-length: %s", string);
-      throw new IllegalArgumentException(msg);
-    }
+    checkEvenLength(length);
 
     val result = new byte[length / 2];
     for (int index = 0; index < length; index += 2) {
-      int hight = hexToBin(string.charAt(index));
-      int low = hexToBin(string.charAt(index + 1));
-      if (hight == -1 || low == -1) {
-        val msg = String.format(ENGLISH, "contains illegal character for hexBinary: %s", string);
-        throw new IllegalArgumentException(msg);
-      }
-      result[index / 2] = (byte) (hight * 16 + low);
+      result[index / 2] = decode(string.charAt(index), string.charAt(index + 1), index);
     }
     return result;
   }
@@ -109,7 +325,11 @@ public final class HexUtil {
    * @return the result string
    */
   public static String byteToHex (int value) {
-    return String.format(ENGLISH, "%02x", value);
+    if ((value & ~0xFF) != 0) {
+      return Integer.toHexString(value);
+    }
+    val pair = value << 1;
+    return new String(LOWER_CASE_PAIRS, pair, 2);
   }
 
   /**
@@ -160,66 +380,222 @@ public final class HexUtil {
    *
    * @return the human-readable multi-line hexadecimal dump
    */
-  @SuppressWarnings("PMD.AvoidInstantiatingObjectsInLoops")
   public static String prettyHexDump (@NonNull Bytes buffer, int offset, int length) {
-    if (offset < 0 || length < 0 || offset + length > buffer.capacity()) {
-      val msg = String.format(ENGLISH,
-          "expected: 0 <= offset(%d) <= offset+length(%d) <= buffer.capacity(%d)",
-          offset, length, buffer.capacity()
-      );
-      throw new IndexOutOfBoundsException(msg);
-    }
+    checkDumpRange(buffer, offset, length);
     if (length == 0) {
       return "";
     }
 
-    val result = new StringBuilder()
-        .append("         +-------------------------------------------------+").append(NEW_LINE)
-        .append("         |  0  1  2  3  4  5  6  7  8  9  a  b  c  d  e  f |").append(NEW_LINE)
-        .append("+--------+-------------------------------------------------+----------------+");
+    val rows = (length + ROW_BYTES - 1) / ROW_BYTES;
+    val result = new StringBuilder((rows + 4) * (ROW_WIDTH + NEW_LINE.length()));
+    prettyHexDump(buffer, offset, length, result, Integer.MAX_VALUE);
+    return result.toString();
+  }
 
-    val elementsInRow = 16;
-    val rows = (int) Math.ceil(length / (double) elementsInRow);
-    for (int row = 0; row < rows; row++) {
-      val hexDump = new StringBuilder("                                                 ");
-      val asciiDump = new StringBuilder("                ");
+  /**
+   * Writes a multi-line hexadecimal dump of the specified {@link Bytes} readable bytes
+   * to the {@link Appendable}, for example, to a {@link java.io.Writer}.
+   *
+   * @param buffer the byte array buffer to dump, its indices are not changed
+   *
+   * @param target the dump's target
+   *
+   * @return the number of dumped bytes
+   *
+   * @since 1.19.0
+   */
+  public static int prettyHexDump (@NonNull Bytes buffer, @NonNull Appendable target) {
+    return prettyHexDump(buffer, buffer.readerIndex(), buffer.readableBytes(), target, Integer.MAX_VALUE);
+  }
 
-      val rowStartIndex = row * elementsInRow + offset;
-      val limit = Math.min(buffer.writerIndex() - rowStartIndex, elementsInRow);
-      for (int index = 0; index < limit; index++) {
-        val value = buffer.getUnsignedByte(rowStartIndex + index);
+  /**
+   * Writes a multi-line hexadecimal dump of the specified {@link Bytes} range
+   * to the {@link Appendable}, row by row.
+   * <p>
+   * The dump doesn't depend on the range's size in memory: every row is formatted
+   * in the current thread's reusable buffer and written to the target at once.
+   * If the range has more than {@code maxRows} rows (of 16 bytes), only the first
+   * {@code maxRows} rows are dumped, followed by a line with the truncated bytes' count.
+   *
+   * @param buffer the byte array buffer to dump, its indices are not changed
+   *
+   * @param offset the buffer's offset
+   *
+   * @param length the dump's length
+   *
+   * @param target the dump's target
+   *
+   * @param maxRows the maximum number of the dumped rows
+   *
+   * @return the number of dumped bytes, less than {@code length} if the dump was truncated
+   *
+   * @throws IndexOutOfBoundsException if the range is out of the buffer's capacity
+   *
+   * @throws IllegalArgumentException if {@code maxRows} is negative
+   *
+   * @since 1.19.0
+   */
+  @SneakyThrows
+  public static int prettyHexDump (@NonNull Bytes buffer, int offset, int length,
+                                   @NonNull Appendable target, int maxRows
+  ) {
+    checkDumpRange(buffer, offset, length);
+    if (maxRows < 0) {
+      val msg = String.format(ENGLISH, "maxRows must be non-negative, but was %d", maxRows);
+      throw new IllegalArgumentException(msg);
+    }
+    if (length == 0) {
+      return 0;
+    }
 
-        val hexIndex = 1 + 3 * index;
-        hexDump.setCharAt(hexIndex, HEX_CODES[(value >> 4) & 0xF]);
-        hexDump.setCharAt(hexIndex + 1, HEX_CODES[value & 0xF]);
+    target.append(DUMP_HEADER);
 
-        asciiDump.setCharAt(index, byteToChar(value));
-      }
+    val rows = (length + ROW_BYTES - 1) / ROW_BYTES;
+    val dumpedRows = Math.min(rows, maxRows);
+    val formatter = ROW_FORMATTER.get();
+    for (int row = 0; row < dumpedRows; row++) {
+      val rowStartIndex = offset + row * ROW_BYTES;
+      val count = Math.min(offset + length - rowStartIndex, ROW_BYTES);
+      formatter.format(buffer, rowStartIndex, count, row);
+      formatter.writeTo(target);
+    }
 
-      result.append(NEW_LINE)
-          .append('|').append(String.format(ENGLISH, "%07x0", row))
-          .append('|').append(hexDump)
-          .append('|').append(asciiDump)
-          .append('|');
+    val dumped = Math.min(length, dumpedRows * ROW_BYTES);
+    if (dumped < length) {
+      target.append(NEW_LINE)
+          .append(String.format(ENGLISH, "|   ...  | %d of %d bytes are truncated", length - dumped, length));
     }
+    target.append(NEW_LINE).append(DUMP_BORDER);
+    return dumped;
+  }
 
-    return result.append(NEW_LINE)
-        .append("+--------+-------------------------------------------------+----------------+")
-        .toString();
+  private static byte decode (char high, char low, int position) {
+    val highValue = high < DIGIT_VALUES.length
+                    ? DIGIT_VALUES[high]
+                    : -1;
+    val lowValue = low < DIGIT_VALUES.length
+                   ? DIGIT_VALUES[low]
+                   : -1;
+    if ((highValue | lowValue) < 0) {
+      val msg = String.format(ENGLISH, "contains illegal character for hexBinary at %d: '%c%c'", position, high, low);
+      throw new IllegalArgumentException(msg);
+    }
+    return (byte) (highValue << 4 | lowValue);
   }
 
-  private static int hexToBin (char character) {
-    if (Character.isDigit(character)) {
-      return character - '0';
+  private static void checkDumpRange (Bytes buffer, int offset, int length) {
+    if (offset < 0 || length < 0 || offset + length > buffer.capacity()) {
+      val msg = String.format(ENGLISH,
+          "expected: 0 <= offset(%d) <= offset+length(%d) <= buffer.capacity(%d)",
+          offset, offset + length, buffer.capacity()
+      );
+      throw new IndexOutOfBoundsException(msg);
     }
+  }
 
-    val letter = Character.toUpperCase(character);
-    return 'A' <= letter && letter <= 'F'
-           ? letter - 'A' + 10
-           : -1;
+  private static void checkEvenLength (int length) {
+    if (length % 2 != 0) {
+      val msg = String.format(ENGLISH, "hexBinary needs to be even-length, but was %d", length);
+      throw new IllegalArgumentException(msg);
+    }
+  }
+
+  private static void checkRange (Bytes buffer, int index, int length) {
+    if (index < 0 || length < 0 || index + length > buffer.capacity()) {
+      val msg = String.format(ENGLISH,
+          "expected: 0 <= index(%d) <= index+length(%d) <= buffer.capacity(%d)",
+          index, index + length, buffer.capacity()
+      );
+      throw new IndexOutOfBoundsException(msg);
+    }
+  }
+
+  private static char[] pairs (boolean upperCase) {
+    return upperCase
+           ? UPPER_CASE_PAIRS
+           : LOWER_CASE_PAIRS;
+  }
+
+  private static char[] digitPairs (String digits) {
+    val result = new char[256 * 2];
+    for (int value = 0; value < 256; value++) {
+      result[value << 1] = digits.charAt(value >> 4);
+      result[(value << 1) + 1] = digits.charAt(value & 0xF);
+    }
+    return result;
+  }
+
+  private static byte[] digitValues () {
+    val result = new byte['f' + 1];
+    Arrays.fill(result, (byte) -1);
+    for (int value = 0; value < 16; value++) {
+      result["0123456789abcdef".charAt(value)] = (byte) value;
+      result["0123456789ABCDEF".charAt(value)] = (byte) value;
+    }
+    return result;
   }
 
   private HexUtil () {
     throw new UnsupportedOperationException();
   }
+
+  // the dump's row, formatted in place, reused by the thread's dumps
+  private static final class RowFormatter {
+
+    private static final int HEX_DUMP_START = 1 + 8 + 1;
+
+    private static final int ASCII_DUMP_START = HEX_DUMP_START + ROW_BYTES * 3 + 1 + 1;
+
+    private final char[] row = new char[NEW_LINE.length() + ROW_WIDTH];
+
+    private final CharBuffer view = CharBuffer.wrap(row);
+
+    RowFormatter () {
+      NEW_LINE.getChars(0, NEW_LINE.length(), row, 0);
+      Arrays.fill(row, NEW_LINE.length(), row.length, ' ');
+      row[NEW_LINE.length()] = '|';
+      row[NEW_LINE.length() + HEX_DUMP_START - 1] = '|';
+      row[NEW_LINE.length() + ASCII_DUMP_START - 1] = '|';
+      row[row.length - 1] = '|';
+    }
+
+    void format (Bytes buffer, int index, int count, int rowNumber) {
+      val start = NEW_LINE.length();
+
+      // the row's offset (rowNumber * 16) as 8 lower case hex digits
+      row[start + 8] = '0';
+      int number = rowNumber;
+      for (int position = start + 7; position > start; position--) {
+        row[position] = LOWER_CASE_PAIRS[((number & 0xF) << 1) + 1];
+        number >>>= 4;
+      }
+
+      val hexStart = start + HEX_DUMP_START;
+      val asciiStart = start + ASCII_DUMP_START;
+      for (int column = 0; column < ROW_BYTES; column++) {
+        val hexIndex = hexStart + 1 + column * 3;
+        if (column < count) {
+          val value = buffer.getUnsignedByte(index + column);
+          row[hexIndex] = UPPER_CASE_PAIRS[value << 1];
+          row[hexIndex + 1] = UPPER_CASE_PAIRS[(value << 1) + 1];
+          row[asciiStart + column] = byteToChar(value);
+        } else {
+          row[hexIndex] = ' ';
+          row[hexIndex + 1] = ' ';
+          row[asciiStart + column] = ' ';
+        }
+      }
+    }
+
+    void writeTo (Appendable target) throws IOException {
+      if (target instanceof Writer) {
+        ((Writer) target).write(row);
+      } else if (target instanceof StringBuilder) {
+        ((StringBuilder) target).append(row);
+      } else {
+        view.clear();
+        target.append(view);
+      }
+    }
+  }
 }
@@ -0,0 +1,381 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.appulse.utils;
+
+import static java.util.Locale.ENGLISH;
+import static java.util.Optional.empty;
+import static java.util.Optional.ofNullable;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static lombok.AccessLevel.PRIVATE;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import lombok.Builder;
+import lombok.NonNull;
+import lombok.SneakyThrows;
+import lombok.experimental.FieldDefaults;
+import lombok.val;
+
+/**
+ * The segmented append-only journal (write-ahead log).
+ * <p>
+ * The records are written into fixed-size memory-mapped segment files as
+ * length-prefixed and CRC32-checksummed entries, every record gets a sequential
+ * offset. The segment is rolled when the next record doesn't fit into it,
+ * the old segments are deleted by the total size and age limits.
+ * <p>
+ * A record is found by its offset in O(log n): the segment is found with
+ * a binary search by the segments' base offsets, and the record's position
+ * with a binary search in the segment's sparse index.
+ * <p>
+ * On open, the last segment is scanned and its torn tail (the partially
+ * written records after a crash) is truncated.
+ * <p>
+ * The written records are in the OS page cache right after the {@link #append(Bytes)}
+ * call, so they survive the process crash; use {@link #flush()} to sync them to the disk.
+ * <p>
+ * All methods are thread-safe.
+ *
+ * @since 1.19.0
+ * @author Artem Labazin
+ */
+@FieldDefaults(level = PRIVATE, makeFinal = true)
+public final class Journal implements AutoCloseable {
+
+  private static final int DEFAULT_SEGMENT_SIZE = 64 * 1024 * 1024;
+
+  private static final int DEFAULT_INDEX_INTERVAL = 4096;
+
+  Path folder;
+
+  int segmentSize;
+
+  int indexInterval;
+
+  long maxTotalSizeBytes;
+
+  long maxSegmentAgeMillis;
+
+  List<JournalSegment> segments;
+
+  /**
+   * The journal's constructor, it opens the journal in the folder or creates a new one.
+   *
+   * @param folder the journal's folder, it is created if it doesn't exist
+   *
+   * @param segmentSizeBytes the segment file's size, 64 MiB by default
+   *
+   * @param indexIntervalBytes the number of bytes between the sparse index entries, 4 KiB by default
+   *
+   * @param maxTotalSize the journal's size, after which the oldest segments are deleted,
+   *                     there is no limit by default
+   *
+   * @param maxTotalSizeUnit the unit of the {@code maxTotalSize}, bytes by default
+   *
+   * @param maxSegmentAge the sealed segment's age, after which it is deleted,
+   *                      there is no limit by default
+   *
+   * @param maxSegmentAgeUnit the unit of the {@code maxSegmentAge}, milliseconds by default
+   */
+  @Builder
+  @SneakyThrows
+  Journal (@NonNull Path folder,
+           Integer segmentSizeBytes,
+           Integer indexIntervalBytes,
+           Long maxTotalSize,
+           SizeUnit maxTotalSizeUnit,
+           Long maxSegmentAge,
+           TimeUnit maxSegmentAgeUnit
+  ) {
+    this.folder = folder;
+
+    this.segmentSize = ofNullable(segmentSizeBytes)
+        .filter(it -> it > JournalSegment.HEADER_SIZE)
+        .orElse(DEFAULT_SEGMENT_SIZE);
+
+    this.indexInterval = ofNullable(indexIntervalBytes)
+        .filter(it -> it > 0)
+        .orElse(DEFAULT_INDEX_INTERVAL);
+
+    this.maxTotalSizeBytes = ofNullable(maxTotalSizeUnit)
+        .orElse(SizeUnit.BYTES)
+        .toBytes(ofNullable(maxTotalSize)
+            .filter(it -> it > 0)
+            .orElse(Long.MAX_VALUE));
+
+    this.maxSegmentAgeMillis = ofNullable(maxSegmentAgeUnit)
+        .orElse(MILLISECONDS)
+        .toMillis(ofNullable(maxSegmentAge)
+            .filter(it -> it > 0)
+            .orElse(Long.MAX_VALUE));
+
+    Files.createDirectories(folder);
+    segments = openSegments();
+  }
+
+  /**
+   * Appends the record's readable bytes to the journal, the record's
+   * reader index is moved to its writer index.
+   *
+   * @param record the record to append
+   *
+   * @return the record's offset
+   *
+   * @throws IllegalArgumentException if the record is bigger than a segment
+   */
+  public synchronized long append (@NonNull Bytes record) {
+    val payload = record.nioBuffer();
+    val length = payload.remaining();
+    if (JournalSegment.recordSize(length) > segmentSize) {
+      val msg = String.format(ENGLISH, "The record's size %d exceeds the segment's size %d", length, segmentSize);
+      throw new IllegalArgumentException(msg);
+    }
+
+    JournalSegment active = activeSegment();
+    if (!active.hasSpace(length)) {
+      active = roll();
+    }
+    val offset = active.append(payload);
+    record.readerIndex(record.writerIndex());
+    return offset;
+  }
+
+  /**
+   * Appends the record to the journal, see {@link #append(Bytes)}.
+   *
+   * @param record the record to append
+   *
+   * @return the record's offset
+   */
+  public long append (@NonNull byte[] record) {
+    return append(Bytes.wrap(record));
+  }
+
+  /**
+   * Reads the record by its offset.
+   *
+   * @param offset the record's offset
+   *
+   * @return the copy of the record, or empty if there is no such record
+   */
+  public synchronized Optional<Bytes> read (long offset) {
+    val segment = findSegment(offset);
+    if (segment == null) {
+      return empty();
+    }
+    val payload = segment.payload(segment.find(offset));
+    val result = Bytes.allocate(payload.remaining());
+    payload.get(result.array());
+    result.writerIndex(result.capacity());
+    return Optional.of(result);
+  }
+
+  /**
+   * Reads the records one by one, starting from the offset.
+   * <p>
+   * The consumer gets the read-only zero-copy view of the record, which
+   * is valid only inside the call. The journal is locked during the reading.
+   *
+   * @param fromOffset the first record's offset, if it is less than the
+   *                   {@link #getFirstOffset() first offset}, the reading starts from the first record
+   *
+   * @param consumer the records consumer, it returns {@code false} to stop the reading
+   *
+   * @return the offset of the next not read record
+   */
+  public synchronized long read (long fromOffset, @NonNull RecordConsumer consumer) {
+    long offset = Math.max(fromOffset, getFirstOffset());
+    JournalSegment segment = findSegment(offset);
+    while (segment != null) {
+      int position = segment.find(offset);
+      while (offset < segment.getNextOffset()) {
+        val payload = segment.payload(position);
+        val record = Bytes.wrap(payload);
+        record.writerIndex(payload.capacity());
+        if (!consumer.accept(offset, Bytes.readOnly(record))) {
+          return offset + 1;
+        }
+        position = segment.nextPosition(position);
+        offset++;
+      }
+      segment = findSegment(offset);
+    }
+    return offset;
+  }
+
+  /**
+   * Syncs the written records to the disk.
+   */
+  public synchronized void flush () {
+    activeSegment().flush();
+  }
+
+  /**
+   * Deletes the sealed segments, which exceed the total size or age limits.
+   * <p>
+   * It is called automatically on every segment roll.
+   *
+   * @return the number of deleted segments
+   */
+  public synchronized int deleteExpiredSegments () {
+    val now = System.currentTimeMillis();
+    long totalSize = 0;
+    for (val segment : segments) {
+      totalSize += segment.capacity();
+    }
+
+    int deleted = 0;
+    while (segments.size() > 1) {
+      val oldest = segments.get(0);
+      val expired = now - oldest.getLastModified() > maxSegmentAgeMillis;
+      if (!expired && totalSize <= maxTotalSizeBytes) {
+        break;
+      }
+      segments.remove(0);
+      totalSize -= oldest.capacity();
+      oldest.delete();
+      deleted++;
+    }
+    return deleted;
+  }
+
+  /**
+   * Returns the offset of the first (oldest) available record.
+   *
+   * @return the first record's offset
+   */
+  public synchronized long getFirstOffset () {
+    return segments.get(0).getBaseOffset();
+  }
+
+  /**
+   * Returns the offset, which will be assigned to the next appended record.
+   *
+   * @return the next record's offset
+   */
+  public synchronized long getNextOffset () {
+    return activeSegment().getNextOffset();
+  }
+
+  /**
+   * Returns the number of the journal's segment files.
+   *
+   * @return the number of segments
+   */
+  public synchronized int getSegmentsCount () {
+    return segments.size();
+  }
+
+  /**
+   * Syncs and closes the journal.
+   */
+  @Override
+  public synchronized void close () {
+    activeSegment().flush();
+    for (val segment : segments) {
+      segment.close();
+    }
+    segments.clear();
+  }
+
+  private JournalSegment activeSegment () {
+    if (segments.isEmpty()) {
+      throw new IllegalStateException("The journal is closed");
+    }
+    return segments.get(segments.size() - 1);
+  }
+
+  private JournalSegment roll () {
+    val previous = activeSegment();
+    previous.seal();
+
+    val result = JournalSegment.create(folder, previous.getNextOffset(), segmentSize, indexInterval);
+    segments.add(result);
+    deleteExpiredSegments();
+    return result;
+  }
+
+  // binary search by the segments' base offsets
+  private JournalSegment findSegment (long offset) {
+    int low = 0;
+    int high = segments.size() - 1;
+    while (low <= high) {
+      val middle = (low + high) >>> 1;
+      val segment = segments.get(middle);
+      if (offset < segment.getBaseOffset()) {
+        high = middle - 1;
+      } else if (offset >= segment.getNextOffset()) {
+        low = middle + 1;
+      } else {
+        return segment;
+      }
+    }
+    return null;
+  }
+
+  @SneakyThrows
+  private List<JournalSegment> openSegments () {
+    final List<Long> baseOffsets;
+    try (val files = Files.list(folder)) {
+      baseOffsets = files
+          .map(it -> it.getFileName().toString())
+          .filter(it -> it.endsWith(JournalSegment.LOG_SUFFIX))
+          .map(it -> it.substring(0, it.length() - JournalSegment.LOG_SUFFIX.length()))
+          .filter(it -> it.matches("\\d+"))
+          .map(Long::valueOf)
+          .sorted()
+          .collect(Collectors.toList());
+    }
+
+    val result = new ArrayList<JournalSegment>(baseOffsets.size() + 1);
+    for (int index = 0; index < baseOffsets.size(); index++) {
+      val last = index == baseOffsets.size() - 1;
+      val segment = JournalSegment.open(folder, baseOffsets.get(index), segmentSize, indexInterval, !last);
+      result.add(segment);
+    }
+    if (result.isEmpty()) {
+      result.add(JournalSegment.create(folder, 0, segmentSize, indexInterval));
+    }
+    return result;
+  }
+
+  /**
+   * The journal's records consumer.
+   *
+   * @since 1.19.0
+   */
+  @FunctionalInterface
+  public interface RecordConsumer {
+
+    /**
+     * Accepts the next record.
+     *
+     * @param offset the record's offset
+     *
+     * @param record the read-only record's view, which is valid only inside the call
+     *
+     * @return {@code true} to continue the reading, {@code false} to stop it
+     */
+    boolean accept (long offset, Bytes record);
+  }
+}
@@ -0,0 +1,362 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.appulse.utils;
+
+import static java.nio.channels.FileChannel.MapMode.READ_WRITE;
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.TRUNCATE_EXISTING;
+import static java.nio.file.StandardOpenOption.WRITE;
+import static java.util.Locale.ENGLISH;
+import static lombok.AccessLevel.PRIVATE;
+
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+
+import lombok.Getter;
+import lombok.SneakyThrows;
+import lombok.experimental.FieldDefaults;
+import lombok.val;
+
+/**
+ * The journal's segment: a fixed-size memory-mapped file with the records,
+ * its offsets range starts from the {@code baseOffset}.
+ * <p>
+ * The record's format is {@code [int length][int crc32][payload]}, where the
+ * checksum covers the length and the payload, so the zeroed (never written)
+ * space and the torn records are detected as the segment's end.
+ * <p>
+ * The sparse index keeps a record's position every {@code indexInterval} bytes,
+ * it is stored in the {@code .index} file when the segment is sealed.
+ */
+@FieldDefaults(level = PRIVATE)
+final class JournalSegment {
+
+  static final String LOG_SUFFIX = ".log";
+
+  static final String INDEX_SUFFIX = ".index";
+
+  static final int HEADER_SIZE = Integer.BYTES * 2;
+
+  @Getter
+  final long baseOffset;
+
+  @Getter
+  final Path path;
+
+  final Path indexPath;
+
+  final int indexInterval;
+
+  final FileChannel channel;
+
+  final MappedByteBuffer mapped;
+
+  final CRC32 crc = new CRC32();
+
+  final ByteBuffer lengthBuffer = ByteBuffer.allocate(Integer.BYTES);
+
+  // the sparse index: relative offsets and their positions
+  int[] indexOffsets = new int[16];
+
+  int[] indexPositions = new int[16];
+
+  int indexSize;
+
+  int lastIndexedPosition = -1;
+
+  @Getter
+  int position;
+
+  @Getter
+  int count;
+
+  @Getter
+  long lastModified;
+
+  @Getter
+  boolean sealed;
+
+  @SneakyThrows
+  private JournalSegment (Path folder, long baseOffset, int size, int indexInterval, boolean sealed) {
+    this.baseOffset = baseOffset;
+    this.path = folder.resolve(fileName(baseOffset, LOG_SUFFIX));
+    this.indexPath = folder.resolve(fileName(baseOffset, INDEX_SUFFIX));
+    this.indexInterval = indexInterval;
+
+    channel = FileChannel.open(path, CREATE, READ, WRITE);
+    val fileSize = channel.size();
+    val mappingSize = sealed && fileSize > 0
+                      ? fileSize
+                      : Math.max(size, fileSize);
+    mapped = channel.map(READ_WRITE, 0, mappingSize);
+    lastModified = Files.getLastModifiedTime(path).toMillis();
+  }
+
+  /**
+   * Creates a new empty segment.
+   */
+  static JournalSegment create (Path folder, long baseOffset, int size, int indexInterval) {
+    return new JournalSegment(folder, baseOffset, size, indexInterval, false);
+  }
+
+  /**
+   * Opens the existent segment, restores its position and the index.
+   * <p>
+   * The sealed segment's index is loaded from its file (if it is valid),
+   * otherwise, the segment is scanned and the torn tail is truncated.
+   */
+  static JournalSegment open (Path folder, long baseOffset, int size, int indexInterval, boolean sealed) {
+    val result = new JournalSegment(folder, baseOffset, size, indexInterval, sealed);
+    if (!sealed || !result.loadIndex()) {
+      result.recover();
+    }
+    result.sealed = sealed;
+    return result;
+  }
+
+  static String fileName (long baseOffset, String suffix) {
+    return String.format(ENGLISH, "%020d%s", baseOffset, suffix);
+  }
+
+  static int recordSize (int length) {
+    return HEADER_SIZE + length;
+  }
+
+  long getNextOffset () {
+    return baseOffset + count;
+  }
+
+  boolean hasSpace (int length) {
+    return mapped.capacity() - position >= recordSize(length);
+  }
+
+  int capacity () {
+    return mapped.capacity();
+  }
+
+  /**
+   * Appends the payload's remaining bytes as a new record.
+   *
+   * @return the record's offset
+   */
+  long append (ByteBuffer payload) {
+    val length = payload.remaining();
+    val checksum = checksum(length, payload.duplicate());
+
+    val target = mapped.duplicate();
+    target.position(position);
+    target.putInt(length);
+    target.putInt(checksum);
+    target.put(payload);
+
+    index(count, position);
+    position += recordSize(length);
+    lastModified = System.currentTimeMillis();
+    return baseOffset + count++;
+  }
+
+  /**
+   * Returns the position of the record by its offset, or {@code -1} if there is no such record.
+   */
+  int find (long offset) {
+    if (offset < baseOffset || offset >= getNextOffset()) {
+      return -1;
+    }
+    val relative = (int) (offset - baseOffset);
+    int slot = Arrays.binarySearch(indexOffsets, 0, indexSize, relative);
+    if (slot < 0) {
+      slot = -slot - 2;
+    }
+
+    int current = indexOffsets[slot];
+    int currentPosition = indexPositions[slot];
+    while (current < relative) {
+      currentPosition += recordSize(mapped.getInt(currentPosition));
+      current++;
+    }
+    return currentPosition;
+  }
+
+  /**
+   * Returns the read-only view of the record's payload at the position.
+   */
+  ByteBuffer payload (int recordPosition) {
+    val length = mapped.getInt(recordPosition);
+    val result = mapped.asReadOnlyBuffer();
+    result.position(recordPosition + HEADER_SIZE);
+    result.limit(recordPosition + HEADER_SIZE + length);
+    return result.slice();
+  }
+
+  int nextPosition (int recordPosition) {
+    return recordPosition + recordSize(mapped.getInt(recordPosition));
+  }
+
+  @SneakyThrows
+  void flush () {
+    mapped.force();
+  }
+
+  /**
+   * Makes the segment read-only: flushes it and stores its index.
+   */
+  @SneakyThrows
+  void seal () {
+    flush();
+    storeIndex();
+    Files.setLastModifiedTime(path, FileTime.fromMillis(lastModified));
+    sealed = true;
+  }
+
+  @SneakyThrows
+  void close () {
+    channel.close();
+    DirectBufferUtils.free(mapped);
+  }
+
+  @SneakyThrows
+  void delete () {
+    close();
+    Files.deleteIfExists(indexPath);
+    Files.deleteIfExists(path);
+  }
+
+  private void index (int relativeOffset, int recordPosition) {
+    if (lastIndexedPosition >= 0 && recordPosition - lastIndexedPosition < indexInterval) {
+      return;
+    }
+    if (indexSize == indexOffsets.length) {
+      indexOffsets = Arrays.copyOf(indexOffsets, indexSize * 2);
+      indexPositions = Arrays.copyOf(indexPositions, indexSize * 2);
+    }
+    indexOffsets[indexSize] = relativeOffset;
+    indexPositions[indexSize] = recordPosition;
+    indexSize++;
+    lastIndexedPosition = recordPosition;
+  }
+
+  // scans the records from the start, the first invalid one is the end of the segment
+  private void recover () {
+    position = 0;
+    count = 0;
+    indexSize = 0;
+    lastIndexedPosition = -1;
+
+    val limit = mapped.capacity();
+    while (limit - position >= HEADER_SIZE) {
+      val length = mapped.getInt(position);
+      if (length < 0 || length > limit - position - HEADER_SIZE || !isValid(position, length)) {
+        break;
+      }
+      index(count, position);
+      position += recordSize(length);
+      count++;
+    }
+    clearTail();
+  }
+
+  private boolean isValid (int recordPosition, int length) {
+    val payload = mapped.duplicate();
+    payload.position(recordPosition + HEADER_SIZE);
+    payload.limit(recordPosition + HEADER_SIZE + length);
+    return checksum(length, payload) == mapped.getInt(recordPosition + Integer.BYTES);
+  }
+
+  private int checksum (int length, ByteBuffer payload) {
+    lengthBuffer.putInt(0, length);
+    lengthBuffer.clear();
+    crc.reset();
+    crc.update(lengthBuffer);
+    crc.update(payload);
+    return (int) crc.getValue();
+  }
+
+  // zeroes a torn record's remains, so they couldn't be taken for a valid record later
+  private void clearTail () {
+    val limit = mapped.capacity();
+    for (int index = position; index < limit; index++) {
+      if (mapped.get(index) != 0) {
+        for (int zero = index; zero < limit; zero++) {
+          mapped.put(zero, (byte) 0);
+        }
+        return;
+      }
+    }
+  }
+
+  @SneakyThrows
+  private void storeIndex () {
+    val buffer = ByteBuffer.allocate(Integer.BYTES * (2 + indexSize * 2));
+    buffer.putInt(position);
+    buffer.putInt(count);
+    for (int index = 0; index < indexSize; index++) {
+      buffer.putInt(indexOffsets[index]);
+      buffer.putInt(indexPositions[index]);
+    }
+    buffer.flip();
+
+    val temporary = indexPath.resolveSibling(indexPath.getFileName() + ".tmp");
+    try (val output = FileChannel.open(temporary, CREATE, WRITE, TRUNCATE_EXISTING)) {
+      WriteBytesUtils.write(output, buffer, buffer.remaining());
+      output.force(true);
+    }
+    Files.move(temporary, indexPath, ATOMIC_MOVE, REPLACE_EXISTING);
+  }
+
+  @SneakyThrows
+  private boolean loadIndex () {
+    if (Files.notExists(indexPath)) {
+      return false;
+    }
+    val bytes = Files.readAllBytes(indexPath);
+    if (bytes.length < Integer.BYTES * 2 || bytes.length % (Integer.BYTES * 2) != 0) {
+      return false;
+    }
+
+    val buffer = ByteBuffer.wrap(bytes);
+    val storedPosition = buffer.getInt();
+    val storedCount = buffer.getInt();
+    val storedIndexSize = buffer.remaining() / (Integer.BYTES * 2);
+    if (storedPosition < 0 || storedPosition > mapped.capacity() || storedCount < 0
+        || storedCount > 0 && storedIndexSize == 0) {
+      return false;
+    }
+
+    indexOffsets = new int[Math.max(storedIndexSize, 1)];
+    indexPositions = new int[Math.max(storedIndexSize, 1)];
+    for (int index = 0; index < storedIndexSize; index++) {
+      indexOffsets[index] = buffer.getInt();
+      indexPositions[index] = buffer.getInt();
+    }
+    indexSize = storedIndexSize;
+    lastIndexedPosition = storedIndexSize > 0
+                          ? indexPositions[storedIndexSize - 1]
+                          : -1;
+    position = storedPosition;
+    count = storedCount;
+    return true;
+  }
+}
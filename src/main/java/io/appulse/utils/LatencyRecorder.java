@@ -0,0 +1,135 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.appulse.utils;
+
+import static lombok.AccessLevel.PRIVATE;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import lombok.experimental.FieldDefaults;
+import lombok.val;
+
+/**
+ * The lock-free latency histogram.
+ * <p>
+ * Every power of two range is split into {@link #SUB_BUCKETS} linear buckets,
+ * so the reported percentiles are accurate within 25 percent.
+ *
+ * @since 1.19.0
+ * @author Artem Labazin
+ */
+@FieldDefaults(level = PRIVATE, makeFinal = true)
+final class LatencyRecorder {
+
+  private static final int SUB_BUCKET_BITS = 2;
+
+  private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+  private static final int BUCKETS = (Long.SIZE - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+  AtomicLongArray buckets;
+
+  LongAdder count;
+
+  LongAdder totalNanos;
+
+  AtomicLong maxNanos;
+
+  LatencyRecorder () {
+    buckets = new AtomicLongArray(BUCKETS);
+    count = new LongAdder();
+    totalNanos = new LongAdder();
+    maxNanos = new AtomicLong();
+  }
+
+  /**
+   * Records the latency value.
+   *
+   * @param nanos the latency in nanoseconds, negative values are treated as zero
+   */
+  void record (long nanos) {
+    val value = Math.max(nanos, 0L);
+    buckets.incrementAndGet(bucketIndex(value));
+    count.increment();
+    totalNanos.add(value);
+    if (value > maxNanos.get()) {
+      maxNanos.accumulateAndGet(value, Math::max);
+    }
+  }
+
+  /**
+   * Creates the recorded values snapshot.
+   *
+   * @return the latency snapshot
+   */
+  BytesPoolStats.Latency snapshot () {
+    val counts = new long[BUCKETS];
+    long total = 0;
+    for (int index = 0; index < BUCKETS; index++) {
+      counts[index] = buckets.get(index);
+      total += counts[index];
+    }
+
+    val sum = totalNanos.sum();
+    return BytesPoolStats.Latency.builder()
+        .count(total)
+        .totalNanos(sum)
+        .meanNanos(total == 0 ? 0 : (double) sum / total)
+        .maxNanos(maxNanos.get())
+        .p50Nanos(percentile(counts, total, 0.5))
+        .p90Nanos(percentile(counts, total, 0.9))
+        .p99Nanos(percentile(counts, total, 0.99))
+        .p999Nanos(percentile(counts, total, 0.999))
+        .build();
+  }
+
+  private long percentile (long[] counts, long total, double percentile) {
+    if (total == 0) {
+      return 0;
+    }
+    val rank = (long) Math.ceil(total * percentile);
+    long seen = 0;
+    for (int index = 0; index < counts.length; index++) {
+      seen += counts[index];
+      if (seen >= rank) {
+        return Math.min(bucketUpperBound(index), maxNanos.get());
+      }
+    }
+    return maxNanos.get();
+  }
+
+  private static int bucketIndex (long value) {
+    if (value < SUB_BUCKETS) {
+      return (int) value;
+    }
+    val highestBit = Long.SIZE - 1 - Long.numberOfLeadingZeros(value);
+    val shift = highestBit - SUB_BUCKET_BITS;
+    val subBucket = (int) (value >>> shift) & (SUB_BUCKETS - 1);
+    return (shift + 1) * SUB_BUCKETS + subBucket;
+  }
+
+  private static long bucketUpperBound (int index) {
+    if (index < SUB_BUCKETS) {
+      return index;
+    }
+    val shift = index / SUB_BUCKETS - 1;
+    val subBucket = index % SUB_BUCKETS;
+    val lowerBound = (long) (SUB_BUCKETS + subBucket) << shift;
+    return lowerBound + (1L << shift) - 1;
+  }
+}
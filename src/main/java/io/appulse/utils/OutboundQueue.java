@@ -0,0 +1,308 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.appulse.utils;
+
+import static java.util.Optional.ofNullable;
+import static lombok.AccessLevel.PRIVATE;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.GatheringByteChannel;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import lombok.Builder;
+import lombok.NonNull;
+import lombok.SneakyThrows;
+import lombok.experimental.FieldDefaults;
+import lombok.val;
+
+/**
+ * The outbound messages' queue of a channel, which coalesces the messages
+ * into the gathering writes.
+ * <p>
+ * The messages are added by any number of producers without locks. The
+ * {@link #flush(GatheringByteChannel) flush} sends the queued messages with
+ * the gathering writes of up to {@code maxGatheringBuffers} messages each,
+ * so many small messages are sent with a few system calls. Only one thread
+ * flushes at a time: a concurrent flush returns at once, and the messages
+ * are sent by the active flushing thread, so the producers could simply
+ * call {@code add} and then {@code flush}.
+ * <p>
+ * The queue tracks the not sent bytes: it becomes not writable when they
+ * reach the high watermark, and writable again when they fall to the low
+ * watermark. The producers should stop adding messages while the queue
+ * is not writable, the changes are reported to the {@link WritabilityListener}.
+ * <p>
+ * The sent {@link BytesPool pooled} messages are released.
+ *
+ * @since 1.19.0
+ * @author Artem Labazin
+ */
+@FieldDefaults(level = PRIVATE, makeFinal = true)
+public final class OutboundQueue implements AutoCloseable {
+
+  private static final long DEFAULT_HIGH_WATERMARK = 1024 * 1024;
+
+  private static final int DEFAULT_MAX_GATHERING_BUFFERS = 64;
+
+  Queue<Bytes> messages = new ConcurrentLinkedQueue<>();
+
+  AtomicLong pendingBytes = new AtomicLong();
+
+  AtomicBoolean flushing = new AtomicBoolean();
+
+  AtomicBoolean writable = new AtomicBoolean(true);
+
+  AtomicBoolean closed = new AtomicBoolean();
+
+  long highWatermark;
+
+  long lowWatermark;
+
+  WritabilityListener listener;
+
+  // the gathering write's views, used only by the flushing thread
+  ByteBuffer[] views;
+
+  /**
+   * The queue's constructor.
+   *
+   * @param highWatermarkBytes the pending bytes' count, at which the queue becomes
+   *                           not writable, 1 MiB by default
+   *
+   * @param lowWatermarkBytes the pending bytes' count, at which the queue becomes
+   *                          writable again, a half of the high watermark by default
+   *
+   * @param maxGatheringBuffers the maximum number of messages in one gathering write, 64 by default
+   *
+   * @param listener the writability changes' listener, optional
+   */
+  @Builder
+  OutboundQueue (Long highWatermarkBytes,
+                 Long lowWatermarkBytes,
+                 Integer maxGatheringBuffers,
+                 WritabilityListener listener
+  ) {
+    highWatermark = ofNullable(highWatermarkBytes)
+        .filter(it -> it > 0)
+        .orElse(DEFAULT_HIGH_WATERMARK);
+
+    lowWatermark = ofNullable(lowWatermarkBytes)
+        .filter(it -> it >= 0 && it <= highWatermark)
+        .orElse(highWatermark / 2);
+
+    views = new ByteBuffer[ofNullable(maxGatheringBuffers)
+        .filter(it -> it > 0)
+        .orElse(DEFAULT_MAX_GATHERING_BUFFERS)];
+
+    this.listener = listener;
+  }
+
+  /**
+   * Adds the message's readable bytes to the queue.
+   * <p>
+   * The queue takes the message's ownership: it must not be changed after
+   * the call, the {@link BytesPool pooled} message is released after sending.
+   *
+   * @param message the message to send
+   *
+   * @return {@code true} if the queue is still writable,
+   *         {@code false} if the producer should wait for the flushing
+   *
+   * @throws IllegalStateException if the queue is closed
+   */
+  public boolean add (@NonNull Bytes message) {
+    if (closed.get()) {
+      throw new IllegalStateException("The queue is closed");
+    }
+    val pending = pendingBytes.addAndGet(message.readableBytes());
+    messages.add(message);
+    if (closed.get()) {
+      // the queue was closed concurrently, the message is released with the rest
+      discardIfClosed();
+      throw new IllegalStateException("The queue is closed");
+    }
+
+    if (pending >= highWatermark && writable.compareAndSet(true, false)) {
+      notifyListener(false);
+      // the flushing thread could have drained the queue meanwhile
+      if (pendingBytes.get() <= lowWatermark && writable.compareAndSet(false, true)) {
+        notifyListener(true);
+      }
+    }
+    return writable.get();
+  }
+
+  /**
+   * Writes the queued messages to the channel with the gathering writes,
+   * till the queue is empty or the (non-blocking) channel doesn't accept
+   * more bytes.
+   * <p>
+   * If another thread is flushing the queue, the method returns immediately.
+   *
+   * @param channel the target channel
+   *
+   * @return the number of written bytes
+   */
+  @SneakyThrows
+  public long flush (@NonNull GatheringByteChannel channel) {
+    long total = 0;
+    boolean blocked = false;
+    while (!blocked && !messages.isEmpty() && flushing.compareAndSet(false, true)) {
+      try {
+        while (!blocked) {
+          val count = collectViews();
+          if (count == 0) {
+            break;
+          }
+          val written = channel.write(views, 0, count);
+          total += written;
+          blocked = completeViews(count);
+          written(written);
+        }
+      } finally {
+        flushing.set(false);
+      }
+    }
+    discardIfClosed();
+    return total;
+  }
+
+  /**
+   * Tells if the queue's pending bytes are below the high watermark,
+   * or fell to the low watermark after reaching the high one.
+   *
+   * @return {@code true} if the queue is writable
+   */
+  public boolean isWritable () {
+    return writable.get();
+  }
+
+  /**
+   * Tells if the queue has no messages to send.
+   *
+   * @return {@code true} if the queue is empty
+   */
+  public boolean isEmpty () {
+    return messages.isEmpty();
+  }
+
+  /**
+   * Returns the number of the queued and not sent bytes.
+   *
+   * @return the pending bytes' count
+   */
+  public long getPendingBytes () {
+    return pendingBytes.get();
+  }
+
+  /**
+   * Closes the queue and releases the not sent messages.
+   */
+  @Override
+  public void close () {
+    closed.set(true);
+    discardIfClosed();
+  }
+
+  private int collectViews () {
+    int count = 0;
+    for (val message : messages) {
+      views[count] = message.nioBuffer();
+      count++;
+      if (count == views.length) {
+        break;
+      }
+    }
+    return count;
+  }
+
+  // removes the fully written messages, returns true if the channel didn't accept all views
+  private boolean completeViews (int count) {
+    boolean blocked = false;
+    for (int index = 0; index < count; index++) {
+      val view = views[index];
+      views[index] = null;
+      if (blocked) {
+        continue;
+      }
+      if (view.hasRemaining()) {
+        val message = messages.peek();
+        message.readerIndex(message.readerIndex() + view.position());
+        blocked = true;
+      } else {
+        release(messages.poll());
+      }
+    }
+    return blocked;
+  }
+
+  private void written (long bytes) {
+    val pending = pendingBytes.addAndGet(-bytes);
+    if (pending <= lowWatermark && writable.compareAndSet(false, true)) {
+      notifyListener(true);
+      // a producer could have crossed the high watermark meanwhile
+      if (pendingBytes.get() >= highWatermark && writable.compareAndSet(true, false)) {
+        notifyListener(false);
+      }
+    }
+  }
+
+  private void discardIfClosed () {
+    while (closed.get() && !messages.isEmpty() && flushing.compareAndSet(false, true)) {
+      try {
+        for (Bytes message = messages.poll(); message != null; message = messages.poll()) {
+          pendingBytes.addAndGet(-message.readableBytes());
+          release(message);
+        }
+      } finally {
+        flushing.set(false);
+      }
+    }
+  }
+
+  private void notifyListener (boolean isWritable) {
+    if (listener != null) {
+      listener.writabilityChanged(isWritable);
+    }
+  }
+
+  private static void release (Bytes message) {
+    if (message instanceof BytesPool.PooledBytes) {
+      ((BytesPool.PooledBytes) message).release();
+    }
+  }
+
+  /**
+   * The queue's writability changes' listener.
+   * <p>
+   * It is called by the producer's thread, which reached the high watermark,
+   * or by the flushing thread, so it must not block.
+   */
+  @FunctionalInterface
+  public interface WritabilityListener {
+
+    /**
+     * Handles the queue's writability change.
+     *
+     * @param writable the queue's new state
+     */
+    void writabilityChanged (boolean writable);
+  }
+}
@@ -0,0 +1,313 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.appulse.utils;
+
+import static java.nio.file.StandardOpenOption.READ;
+import static java.util.Locale.ENGLISH;
+import static java.util.Optional.ofNullable;
+import static lombok.AccessLevel.PRIVATE;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.BinaryOperator;
+import java.util.function.Function;
+
+import io.appulse.utils.threads.AppulseExecutors;
+
+import lombok.Builder;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+import lombok.SneakyThrows;
+import lombok.Value;
+import lombok.experimental.FieldDefaults;
+import lombok.val;
+
+/**
+ * Processes a file in parallel, chunk by chunk.
+ * <p>
+ * The file is split into the page-aligned chunks, which are read positionally
+ * into the pooled {@link Bytes} and mapped on a {@link ForkJoinPool}. The chunks'
+ * results are combined with a reducer in the file's order, so the reducer must
+ * be associative, but not necessarily commutative.
+ * <p>
+ * If the record delimiter is set, each chunk's end is moved forward right after
+ * the nearest delimiter, so a record never crosses the chunks' boundaries.
+ * <p>
+ * Example:
+ * <pre>{@code
+ * try (val processor = ParallelFileProcessor.builder()
+ *     .delimiter(new byte[] { '\n' })
+ *     .build()) {
+ *
+ *   long lines = processor.process(path, 0L, chunk -> countLines(chunk.getContent()), Long::sum);
+ * }
+ * }</pre>
+ *
+ * @since 1.19.0
+ * @author Artem Labazin
+ */
+@FieldDefaults(level = PRIVATE, makeFinal = true)
+public final class ParallelFileProcessor implements AutoCloseable {
+
+  private static final int DEFAULT_CHUNK_SIZE = 4 * 1024 * 1024;
+
+  private static final int SCAN_BLOCK_SIZE = 8192;
+
+  int chunkSize;
+
+  Optional<byte[]> delimiter;
+
+  ForkJoinPool executor;
+
+  boolean ownExecutor;
+
+  BytesPool bytesPool;
+
+  boolean ownBytesPool;
+
+  /**
+   * The processor's constructor.
+   *
+   * @param chunkSizeBytes the chunk's size, it is rounded up to the OS page size,
+   *                       4 MiB by default
+   *
+   * @param delimiter the record delimiter, if it is set, the chunks contain only whole records
+   *
+   * @param parallelism the parallelism of the internal pool, the number of CPUs by default;
+   *                    it is ignored if the {@code executor} is set
+   *
+   * @param executor the pool for the chunks processing, if it is not set, a new pool
+   *                 is created via {@link AppulseExecutors#newWorkStealingPool()}
+   *                 and it is shut down on the processor's close
+   *
+   * @param bytesPool the pool of the chunks' buffers, if it is not set, a new pool
+   *                  with the {@code parallelism} buffers is created and closed on the processor's close
+   */
+  @Builder
+  ParallelFileProcessor (Integer chunkSizeBytes,
+                         byte[] delimiter,
+                         Integer parallelism,
+                         ForkJoinPool executor,
+                         BytesPool bytesPool
+  ) {
+    this.chunkSize = DirectBufferUtils.alignSize(
+        ofNullable(chunkSizeBytes)
+            .filter(it -> it > 0)
+            .orElse(DEFAULT_CHUNK_SIZE),
+        DirectBufferUtils.PAGE_SIZE
+    );
+
+    this.delimiter = ofNullable(delimiter)
+        .filter(it -> it.length > 0)
+        .map(it -> it.clone());
+
+    this.ownExecutor = executor == null;
+    this.executor = ofNullable(executor)
+        .orElseGet(() -> AppulseExecutors.newWorkStealingPool()
+            .parallelism(ofNullable(parallelism)
+                .filter(it -> it > 0)
+                .orElse(Runtime.getRuntime().availableProcessors()))
+            .build());
+
+    this.ownBytesPool = bytesPool == null;
+    this.bytesPool = ofNullable(bytesPool)
+        .orElseGet(() -> BytesPool.builder()
+            .initialBuffersCount(0)
+            .maximumBuffersCount(this.executor.getParallelism())
+            .initialBufferSizeBytes(chunkSize)
+            .build());
+  }
+
+  /**
+   * Processes the file.
+   * <p>
+   * The chunk's content is valid only inside the {@code mapper}'s call,
+   * the buffer is returned to the pool right after it.
+   *
+   * @param <T> the result's type
+   *
+   * @param path the file to process
+   *
+   * @param identity the result for an empty file
+   *
+   * @param mapper the function, which computes the chunk's result
+   *
+   * @param reducer the associative function, which combines two adjacent chunks' results
+   *
+   * @return the combined result
+   */
+  @SneakyThrows
+  public <T> T process (@NonNull Path path, T identity,
+                        @NonNull Function<Chunk, T> mapper,
+                        @NonNull BinaryOperator<T> reducer
+  ) {
+    try (val channel = FileChannel.open(path, READ)) {
+      val regions = split(channel);
+      if (regions.isEmpty()) {
+        return identity;
+      }
+      val task = new ChunksTask<T>(channel, regions, 0, regions.size(), mapper, reducer);
+      return executor.invoke(task);
+    }
+  }
+
+  @Override
+  public void close () {
+    if (ownExecutor) {
+      executor.shutdown();
+    }
+    if (ownBytesPool) {
+      bytesPool.close();
+    }
+  }
+
+  @SneakyThrows
+  private List<long[]> split (FileChannel channel) {
+    val size = channel.size();
+    val result = new ArrayList<long[]>();
+
+    long start = 0;
+    while (start < size) {
+      long end = Math.min(start + chunkSize, size);
+      if (delimiter.isPresent() && end < size) {
+        end = findRecordEnd(channel, start, end, size);
+      }
+      if (end - start > Integer.MAX_VALUE) {
+        val msg = String.format(ENGLISH, "The record at position %d is too big to fit into a chunk", start);
+        throw new IllegalStateException(msg);
+      }
+      result.add(new long[] { start, end - start });
+      start = end;
+    }
+    return result;
+  }
+
+  // returns the position right after the first delimiter, which ends at or after the 'from'
+  @SneakyThrows
+  private long findRecordEnd (FileChannel channel, long start, long from, long size) {
+    val pattern = delimiter.get();
+    val block = ByteBuffer.allocate(Math.max(SCAN_BLOCK_SIZE, pattern.length * 2));
+
+    long position = Math.max(start, from - pattern.length);
+    while (position < size) {
+      block.clear();
+      val readed = ReadBytesUtils.read(channel, position, block);
+      if (readed < pattern.length) {
+        break;
+      }
+      val found = indexOf(block.array(), readed, pattern);
+      if (found >= 0) {
+        return position + found + pattern.length;
+      }
+      position += readed - pattern.length + 1;
+    }
+    return size;
+  }
+
+  private static int indexOf (byte[] array, int length, byte[] pattern) {
+    for (int index = 0; index <= length - pattern.length; index++) {
+      if (matches(array, index, pattern)) {
+        return index;
+      }
+    }
+    return -1;
+  }
+
+  private static boolean matches (byte[] array, int index, byte[] pattern) {
+    for (int offset = 0; offset < pattern.length; offset++) {
+      if (array[index + offset] != pattern[offset]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * The file's chunk.
+   *
+   * @since 1.19.0
+   */
+  @Value
+  public static class Chunk {
+
+    /**
+     * The chunk's index, starting from 0.
+     */
+    int index;
+
+    /**
+     * The chunk's start position in the file.
+     */
+    long position;
+
+    /**
+     * The chunk's content, it is valid only inside the mapper's call.
+     */
+    Bytes content;
+  }
+
+  @RequiredArgsConstructor
+  @FieldDefaults(level = PRIVATE, makeFinal = true)
+  private final class ChunksTask<T> extends RecursiveTask<T> {
+
+    private static final long serialVersionUID = 7_846_220_015_431_562_114L;
+
+    transient FileChannel channel;
+
+    transient List<long[]> regions;
+
+    int from;
+
+    int to;
+
+    transient Function<Chunk, T> mapper;
+
+    transient BinaryOperator<T> reducer;
+
+    @Override
+    protected T compute () {
+      if (to - from == 1) {
+        return map(from);
+      }
+      val middle = (from + to) >>> 1;
+      val left = new ChunksTask<T>(channel, regions, from, middle, mapper, reducer);
+      val right = new ChunksTask<T>(channel, regions, middle, to, mapper, reducer);
+      left.fork();
+      val rightResult = right.compute();
+      return reducer.apply(left.join(), rightResult);
+    }
+
+    private T map (int index) {
+      val region = regions.get(index);
+      val position = region[0];
+      val length = (int) region[1];
+
+      try (val buffer = bytesPool.acquire(length)) {
+        val view = buffer.nioBuffer(0, length);
+        val readed = ReadBytesUtils.read(channel, position, view);
+        buffer.writerIndex(readed);
+        return mapper.apply(new Chunk(index, position, buffer));
+      }
+    }
+  }
+}
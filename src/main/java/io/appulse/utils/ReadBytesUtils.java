@@ -16,13 +16,16 @@
 
 package io.appulse.utils;
 
+import static java.nio.channels.FileChannel.MapMode.READ_ONLY;
 import static java.nio.file.StandardOpenOption.READ;
 import static java.util.Locale.ENGLISH;
 
 import java.io.File;
 import java.io.InputStream;
 import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.ScatteringByteChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
 
@@ -38,8 +41,23 @@ import lombok.val;
  */
 public final class ReadBytesUtils {
 
+  /**
+   * The default file size, starting from which {@link #readAll(Path)}
+   * maps the file into memory instead of reading it into a heap buffer.
+   *
+   * @since 1.19.0
+   */
+  public static final long DEFAULT_MAPPING_THRESHOLD = 16L * 1024 * 1024;
+
+  private static final int DEFAULT_BUFFER_SIZE = 64;
+
+  private static final int STREAM_CHUNK_SIZE = 8192;
+
   /**
    * Reads all bytes from the stream till the end of the stream.
+   * <p>
+   * The initial buffer's size is taken from {@link InputStream#available()},
+   * so, the content of files and in-memory streams is read without resizing.
    *
    * @param inputStream the input data stream
    *
@@ -47,21 +65,108 @@ public final class ReadBytesUtils {
    */
   @SneakyThrows
   public static Bytes read (@NonNull InputStream inputStream) {
-    val buffer = Bytes.resizableArray(64);
+    val buffer = Bytes.resizableArray(Math.max(inputStream.available(), DEFAULT_BUFFER_SIZE));
 
     while (true) {
+      if (!buffer.isWritable()) {
+        // the buffer is full, checks the end of the stream before growing
+        val next = inputStream.read();
+        if (next == -1) {
+          break;
+        }
+        buffer.capacity(buffer.capacity() * 2);
+        buffer.write1B(next);
+      }
       val readed = inputStream.read(buffer.array(), buffer.writerIndex(), buffer.writableBytes());
       if (readed == -1) {
         break;
       }
       buffer.writerIndex(buffer.writerIndex() + readed);
-      if (!buffer.isWritable()) {
-        buffer.capacity(buffer.capacity() * 2);
-      }
     }
     return buffer;
   }
 
+  /**
+   * Reads the whole file, see {@link #readAll(Path, long)}.
+   *
+   * @param file the file to read
+   *
+   * @return the file's content
+   *
+   * @since 1.19.0
+   */
+  public static Bytes readAll (@NonNull File file) {
+    return readAll(file.toPath(), DEFAULT_MAPPING_THRESHOLD);
+  }
+
+  /**
+   * Reads the whole file, see {@link #readAll(Path, long)}.
+   *
+   * @param file the file to read
+   *
+   * @param mappingThreshold the file size, starting from which the file is mapped into memory
+   *
+   * @return the file's content
+   *
+   * @since 1.19.0
+   */
+  public static Bytes readAll (@NonNull File file, long mappingThreshold) {
+    return readAll(file.toPath(), mappingThreshold);
+  }
+
+  /**
+   * Reads the whole file, with the {@link #DEFAULT_MAPPING_THRESHOLD default mapping threshold},
+   * see {@link #readAll(Path, long)}.
+   *
+   * @param path the file to read
+   *
+   * @return the file's content
+   *
+   * @since 1.19.0
+   */
+  public static Bytes readAll (Path path) {
+    return readAll(path, DEFAULT_MAPPING_THRESHOLD);
+  }
+
+  /**
+   * Reads the whole file.
+   * <p>
+   * If the file is smaller than the {@code mappingThreshold}, its content is read
+   * into a resizable heap buffer, which size is taken from the file's size up front.
+   * Otherwise, the file is mapped into memory and a <b>read-only</b> {@link Bytes}
+   * over the mapped region is returned; the mapping stays valid after the file is closed
+   * and is released by the GC.
+   *
+   * @param path the file to read
+   *
+   * @param mappingThreshold the file size, starting from which the file is mapped into memory
+   *
+   * @return the file's content
+   *
+   * @throws IllegalArgumentException if the threshold is negative or the file
+   *                                  is bigger than {@link Integer#MAX_VALUE} bytes
+   *
+   * @since 1.19.0
+   */
+  @SneakyThrows
+  public static Bytes readAll (@NonNull Path path, long mappingThreshold) {
+    if (mappingThreshold < 0) {
+      val msg = String.format(ENGLISH, "Invalid mapping threshold %d. The threshold must be greater or equal 0", mappingThreshold);
+      throw new IllegalArgumentException(msg);
+    }
+
+    try (val channel = FileChannel.open(path, READ)) {
+      val size = channel.size();
+      if (size > Integer.MAX_VALUE) {
+        val msg = String.format(ENGLISH, "The file '%s' is too big (%d bytes) to fit into Bytes", path, size);
+        throw new IllegalArgumentException(msg);
+      }
+      return size >= mappingThreshold && size > 0
+             ? map(channel, (int) size)
+             : readAll(channel, (int) size);
+    }
+  }
+
   /**
    * Reads all bytes from the stream till the end of the stream or
    * requested length reached.
@@ -160,9 +265,9 @@ public final class ReadBytesUtils {
    *
    * @return the total number of bytes read into the buffer.
    */
-  @SneakyThrows
   public static int read (@NonNull InputStream inputStream, @NonNull Bytes buffer, int length) {
-    val readed = read(inputStream, buffer.array(), buffer.writerIndex(), length);
+    val view = writableView(buffer, length);
+    val readed = read(inputStream, view, view.remaining());
     buffer.writerIndex(buffer.writerIndex() + readed);
     return readed;
   }
@@ -178,10 +283,31 @@ public final class ReadBytesUtils {
    *
    * @return the total number of bytes read into the buffer.
    */
+  @SneakyThrows
   public static int read (@NonNull InputStream inputStream, @NonNull ByteBuffer buffer, int length) {
-    val readed = read(inputStream, buffer.array(), buffer.position(), length);
-    buffer.position(buffer.position() + readed);
-    return readed;
+    checkLength(length);
+    val count = Math.min(buffer.remaining(), length);
+    if (count == 0) {
+      return 0;
+    }
+    if (buffer.hasArray()) {
+      val readed = read(inputStream, buffer.array(), buffer.arrayOffset() + buffer.position(), count);
+      buffer.position(buffer.position() + readed);
+      return readed;
+    }
+
+    // direct buffers are filled chunk by chunk
+    val chunk = new byte[Math.min(count, STREAM_CHUNK_SIZE)];
+    int totalReaded = 0;
+    while (totalReaded < count) {
+      val readed = inputStream.read(chunk, 0, Math.min(count - totalReaded, chunk.length));
+      if (readed < 0) {
+        break;
+      }
+      buffer.put(chunk, 0, readed);
+      totalReaded += readed;
+    }
+    return totalReaded;
   }
 
   /**
@@ -322,9 +448,20 @@ public final class ReadBytesUtils {
    */
   @SneakyThrows
   public static int read (@NonNull ReadableByteChannel channel, @NonNull ByteBuffer buffer, int length) {
-    val readed = read(channel, buffer.array(), length);
-    buffer.position(buffer.position() + readed);
-    return readed;
+    checkLength(length);
+    val view = buffer.duplicate();
+    view.limit(buffer.position() + Math.min(buffer.remaining(), length));
+
+    int totalReaded = 0;
+    while (view.hasRemaining()) {
+      val readed = channel.read(view);
+      if (readed < 0) {
+        break;
+      }
+      totalReaded += readed;
+    }
+    buffer.position(view.position());
+    return totalReaded;
   }
 
   /**
@@ -351,13 +488,91 @@ public final class ReadBytesUtils {
    *
    * @return the total number of bytes read into the buffer.
    */
-  @SneakyThrows
   public static int read (@NonNull ReadableByteChannel channel, @NonNull Bytes buffer, int length) {
-    val readed = read(channel, buffer.array(), buffer.writerIndex(), length);
+    val view = writableView(buffer, length);
+    val readed = read(channel, view, view.remaining());
     buffer.writerIndex(buffer.writerIndex() + readed);
     return readed;
   }
 
+  /**
+   * Reads the bytes from the file's position to the specified buffer,
+   * till the buffer is full or the end of the file is reached.
+   * <p>
+   * The channel's position is not modified, so the method could be used
+   * concurrently by different threads.
+   *
+   * @param channel the file channel to read
+   *
+   * @param position the file position at which the reading is started
+   *
+   * @param buffer the buffer into which the data is read
+   *
+   * @return the total number of bytes read into the buffer.
+   *
+   * @since 1.19.0
+   */
+  @SneakyThrows
+  public static int read (@NonNull FileChannel channel, long position, @NonNull ByteBuffer buffer) {
+    if (position < 0) {
+      val msg = String.format(ENGLISH, "Invalid position %d. The position must be greater or equal 0", position);
+      throw new IllegalArgumentException(msg);
+    }
+
+    int totalReaded = 0;
+    while (buffer.hasRemaining()) {
+      val readed = channel.read(buffer, position + totalReaded);
+      if (readed < 0) {
+        break;
+      }
+      totalReaded += readed;
+    }
+    return totalReaded;
+  }
+
+  /**
+   * Fills the writable bytes of the buffers from the channel with
+   * a scattering read, so the data is spread over the buffers with
+   * the minimal number of system calls.
+   * <p>
+   * The buffers are filled one by one, till all of them are full
+   * or the end of the channel is reached. The writer index of each
+   * buffer is advanced by the number of its read bytes.
+   *
+   * @param channel the input data channel
+   *
+   * @param buffers the buffers into which the data is read
+   *
+   * @return the total number of bytes read into the buffers.
+   *
+   * @since 1.19.0
+   */
+  @SneakyThrows
+  public static long read (@NonNull ScatteringByteChannel channel, @NonNull Bytes... buffers) {
+    val views = new ByteBuffer[buffers.length];
+    long remaining = 0;
+    for (int i = 0; i < buffers.length; i++) {
+      val buffer = buffers[i];
+      views[i] = buffer.nioBuffer(buffer.writerIndex(), buffer.writableBytes());
+      remaining += views[i].remaining();
+    }
+
+    long totalReaded = 0;
+    while (totalReaded < remaining) {
+      val readed = channel.read(views);
+      if (readed < 0) {
+        break;
+      }
+      totalReaded += readed;
+    }
+
+    for (int i = 0; i < buffers.length; i++) {
+      val buffer = buffers[i];
+      buffer.writerIndex(buffer.writerIndex() + views[i].position());
+    }
+    return totalReaded;
+  }
+
   /**
    * Reads all bytes from the file to the specified buffer.
    *
@@ -570,6 +785,51 @@ public final class ReadBytesUtils {
     }
   }
 
+  @SneakyThrows
+  private static Bytes map (FileChannel channel, int size) {
+    val mapped = channel.map(READ_ONLY, 0, size);
+    val buffer = Bytes.wrap(mapped);
+    buffer.writerIndex(size);
+    return Bytes.readOnly(buffer);
+  }
+
+  @SneakyThrows
+  private static Bytes readAll (FileChannel channel, int size) {
+    // the size could be stale or unknown (for example, for procfs files),
+    // so the content is read till the end of the channel
+    val buffer = Bytes.resizableArray(Math.max(size, DEFAULT_BUFFER_SIZE));
+    val probe = ByteBuffer.allocate(1);
+    while (true) {
+      if (!buffer.isWritable()) {
+        probe.clear();
+        if (channel.read(probe) <= 0) {
+          break;
+        }
+        buffer.capacity(buffer.capacity() * 2);
+        buffer.write1B(probe.get(0));
+      }
+      val target = ByteBuffer.wrap(buffer.array(), buffer.writerIndex(), buffer.writableBytes());
+      val readed = channel.read(target);
+      if (readed == -1) {
+        break;
+      }
+      buffer.writerIndex(buffer.writerIndex() + readed);
+    }
+    return buffer;
+  }
+
+  private static ByteBuffer writableView (Bytes buffer, int length) {
+    checkLength(length);
+    return buffer.nioBuffer(buffer.writerIndex(), Math.min(buffer.writableBytes(), length));
+  }
+
+  private static void checkLength (int length) {
+    if (length < 0) {
+      val msg = String.format(ENGLISH, "Invalid length %d. The length must be greater or equal 0", length);
+      throw new IndexOutOfBoundsException(msg);
+    }
+  }
+
   private ReadBytesUtils () {
     throw new UnsupportedOperationException();
   }
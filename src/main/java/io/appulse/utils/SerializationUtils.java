@@ -16,14 +16,15 @@
 
 package io.appulse.utils;
 
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
 import java.io.OutputStream;
 import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
 
 import io.appulse.utils.exception.SerializationException;
 
@@ -77,9 +78,138 @@ public final class SerializationUtils {
    * @since 1.8.0
    */
   public static byte[] serialize (Serializable obj) {
-    val byteArrayOutputStream = new ByteArrayOutputStream(512);
-    serialize(obj, byteArrayOutputStream);
-    return byteArrayOutputStream.toByteArray();
+    val buffer = Bytes.resizableArray(512);
+    serializeInto(obj, buffer);
+    return buffer.arrayCopy();
+  }
+
+  /**
+   * Serializes an {@code Object} into the buffer, starting at its writer index.
+   * <p>
+   * The object is written through the unsynchronized {@link BytesDataOutputStream},
+   * without intermediate arrays. If the serialization fails, the buffer's writer
+   * index is restored.
+   *
+   * @param object the object to serialize to bytes, may be null
+   *
+   * @param target the target buffer, its writer index is moved by the written bytes' count
+   *
+   * @return the number of written bytes
+   *
+   * @throws NullPointerException if {@code target} is {@code null}
+   *
+   * @throws SerializationException (runtime) if the serialization fails
+   *
+   * @since 1.19.0
+   */
+  public static int serializeInto (Serializable object, @NonNull Bytes target) {
+    val start = target.writerIndex();
+    try (val objectOutputStream = new ObjectOutputStream(new BytesDataOutputStream(target))) {
+      objectOutputStream.writeObject(object);
+    } catch (IOException ex) {
+      target.writerIndex(start);
+      throw new SerializationException(ex);
+    } catch (RuntimeException ex) {
+      target.writerIndex(start);
+      throw ex;
+    }
+    return target.writerIndex() - start;
+  }
+
+  /**
+   * Serializes an {@code Object} into a buffer acquired from the pool.
+   * <p>
+   * The caller owns the returned buffer and must {@link BytesPool.PooledBytes#release() release} it.
+   *
+   * @param object the object to serialize to bytes, may be null
+   *
+   * @param pool the buffers' pool
+   *
+   * @return the pooled buffer with the serialized object
+   *
+   * @throws NullPointerException if {@code pool} is {@code null}
+   *
+   * @throws SerializationException (runtime) if the serialization fails
+   *
+   * @since 1.19.0
+   */
+  public static BytesPool.PooledBytes serializePooled (Serializable object, @NonNull BytesPool pool) {
+    val result = pool.acquire();
+    try {
+      serializeInto(object, result);
+    } catch (RuntimeException ex) {
+      result.release();
+      throw ex;
+    }
+    return result;
+  }
+
+  /**
+   * Serializes the objects into the buffer with one object stream,
+   * starting at the buffer's writer index.
+   * <p>
+   * The class descriptors are written only once, and the objects, referenced
+   * several times, are written only once too, so a batch of similar objects
+   * is much smaller and faster than the separately serialized ones.
+   * The batch is read back by {@link #deserializeAll(Bytes)}.
+   *
+   * @param objects the objects to serialize, may contain nulls
+   *
+   * @param target the target buffer, its writer index is moved by the written bytes' count
+   *
+   * @return the number of written bytes
+   *
+   * @throws NullPointerException if {@code objects} or {@code target} is {@code null}
+   *
+   * @throws SerializationException (runtime) if the serialization fails
+   *
+   * @since 1.19.0
+   */
+  public static int serializeAll (@NonNull Collection<? extends Serializable> objects, @NonNull Bytes target) {
+    val start = target.writerIndex();
+    try (val objectOutputStream = new ObjectOutputStream(new BytesDataOutputStream(target))) {
+      objectOutputStream.writeInt(objects.size());
+      for (val object : objects) {
+        objectOutputStream.writeObject(object);
+      }
+    } catch (IOException ex) {
+      target.writerIndex(start);
+      throw new SerializationException(ex);
+    } catch (RuntimeException ex) {
+      target.writerIndex(start);
+      throw ex;
+    }
+    return target.writerIndex() - start;
+  }
+
+  /**
+   * Serializes the objects into a buffer acquired from the pool, see {@link #serializeAll(Collection, Bytes)}.
+   * <p>
+   * The caller owns the returned buffer and must {@link BytesPool.PooledBytes#release() release} it.
+   *
+   * @param objects the objects to serialize, may contain nulls
+   *
+   * @param pool the buffers' pool
+   *
+   * @return the pooled buffer with the serialized objects
+   *
+   * @throws NullPointerException if {@code objects} or {@code pool} is {@code null}
+   *
+   * @throws SerializationException (runtime) if the serialization fails
+   *
+   * @since 1.19.0
+   */
+  public static BytesPool.PooledBytes serializeAllPooled (@NonNull Collection<? extends Serializable> objects,
+                                                          @NonNull BytesPool pool
+  ) {
+    val result = pool.acquire();
+    try {
+      serializeAll(objects, result);
+    } catch (RuntimeException ex) {
+      result.release();
+      throw ex;
+    }
+    return result;
   }
 
   /**
@@ -137,7 +267,63 @@ public final class SerializationUtils {
    * @since 1.8.0
    */
   public static <T> T deserialize (@NonNull byte[] objectData) {
-    return deserialize(new ByteArrayInputStream(objectData));
+    return deserialize(Bytes.wrap(objectData));
+  }
+
+  /**
+   * Deserializes a single {@code Object} from the buffer's readable bytes.
+   * <p>
+   * The object is read through the unsynchronized {@link BytesDataInputStream},
+   * the buffer's reader index is moved to the object's end, so several objects,
+   * serialized one after another, could be read by the consecutive calls.
+   *
+   * @param <T> the object type to be deserialized
+   *
+   * @param source the buffer with the serialized object
+   *
+   * @return the deserialized object
+   *
+   * @throws NullPointerException if {@code source} is {@code null}
+   *
+   * @throws SerializationException (runtime) if the serialization fails
+   *
+   * @since 1.19.0
+   */
+  public static <T> T deserialize (@NonNull Bytes source) {
+    return deserialize(new BytesDataInputStream(source));
+  }
+
+  /**
+   * Deserializes the objects, written by {@link #serializeAll(Collection, Bytes)},
+   * from the buffer's readable bytes.
+   * <p>
+   * The buffer's reader index is moved to the batch's end.
+   *
+   * @param <T> the objects type to be deserialized
+   *
+   * @param source the buffer with the serialized objects
+   *
+   * @return the deserialized objects, in the serialization order
+   *
+   * @throws NullPointerException if {@code source} is {@code null}
+   *
+   * @throws SerializationException (runtime) if the serialization fails
+   *
+   * @since 1.19.0
+   */
+  public static <T> List<T> deserializeAll (@NonNull Bytes source) {
+    try (val objectInputStream = new ObjectInputStream(new BytesDataInputStream(source))) {
+      val count = objectInputStream.readInt();
+      val result = new ArrayList<T>(count);
+      for (int index = 0; index < count; index++) {
+        @SuppressWarnings("unchecked")
+        T obj = (T) objectInputStream.readObject();
+        result.add(obj);
+      }
+      return result;
+    } catch (ClassNotFoundException | IOException ex) {
+      throw new SerializationException(ex);
+    }
   }
 
   private SerializationUtils() {
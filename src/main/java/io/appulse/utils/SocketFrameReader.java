@@ -0,0 +1,291 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.appulse.utils;
+
+import static java.util.Locale.ENGLISH;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static lombok.AccessLevel.PRIVATE;
+
+import java.io.EOFException;
+import java.io.InputStream;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import lombok.NonNull;
+import lombok.SneakyThrows;
+import lombok.experimental.FieldDefaults;
+import lombok.val;
+
+/**
+ * The blocking socket's frames reader with the deadlines.
+ * <p>
+ * Each read has an overall deadline, which spans all the socket reads
+ * needed for the frame, so a slow peer, which sends the frame byte by byte,
+ * can't hold the reading thread longer than the timeout. The deadline is
+ * applied via the socket's {@code SO_TIMEOUT}, which is restored after the read.
+ * <p>
+ * The socket's data is read by chunks into the reader's buffer, the bytes
+ * after the frame are kept for the next read. The frames are written into
+ * the caller's buffers, for example, the {@link BytesPool pooled} ones.
+ * <p>
+ * After a read's exception (the deadline exceeding, the end of the stream or
+ * a malformed frame) the reader's position in the stream is undefined, so
+ * the socket must be closed.
+ *
+ * @since 1.19.0
+ * @author Artem Labazin
+ */
+@FieldDefaults(level = PRIVATE)
+public final class SocketFrameReader {
+
+  private static final int DEFAULT_BUFFER_SIZE = 8 * 1024;
+
+  private static final long MAX_TIMEOUT_NANOS = Long.MAX_VALUE / 2;
+
+  final Socket socket;
+
+  final InputStream input;
+
+  byte[] buffer;
+
+  // the buffered data's start and end
+  int start;
+
+  int limit;
+
+  /**
+   * Creates the reader with the default buffer's size (8 KiB).
+   *
+   * @param socket the source socket
+   */
+  public SocketFrameReader (@NonNull Socket socket) {
+    this(socket, DEFAULT_BUFFER_SIZE);
+  }
+
+  /**
+   * Creates the reader.
+   *
+   * @param socket the source socket
+   *
+   * @param bufferSize the size of the chunks, read from the socket
+   */
+  @SneakyThrows
+  public SocketFrameReader (@NonNull Socket socket, int bufferSize) {
+    if (bufferSize <= 0) {
+      val msg = String.format(ENGLISH, "Buffer size must be positive, but was %d", bufferSize);
+      throw new IllegalArgumentException(msg);
+    }
+    this.socket = socket;
+    input = socket.getInputStream();
+    buffer = new byte[bufferSize];
+  }
+
+  /**
+   * Reads the frame of the fixed length and writes it into the target buffer.
+   *
+   * @param target the frame's buffer, its writer index is moved by the frame's length
+   *
+   * @param length the frame's length
+   *
+   * @param timeout the read's overall timeout
+   *
+   * @param unit the {@code timeout}'s unit
+   *
+   * @return the target buffer
+   *
+   * @throws java.net.SocketTimeoutException if the frame is not read before the deadline
+   *
+   * @throws java.io.EOFException if the stream is ended before the frame's end
+   *
+   * @throws IndexOutOfBoundsException if the target is not auto-resizable and has no space for the frame
+   */
+  @SneakyThrows
+  public Bytes readFixed (@NonNull Bytes target, int length, long timeout, @NonNull TimeUnit unit) {
+    if (length < 0) {
+      val msg = String.format(ENGLISH, "Length must not be negative, but was %d", length);
+      throw new IllegalArgumentException(msg);
+    }
+    val deadline = deadline(timeout, unit);
+    val originalTimeout = socket.getSoTimeout();
+    try {
+      transfer(target, length, deadline);
+    } finally {
+      socket.setSoTimeout(originalTimeout);
+    }
+    return target;
+  }
+
+  /**
+   * Reads the frame with the 4 bytes (big-endian) length prefix and
+   * writes its payload (without the prefix) into the target buffer.
+   *
+   * @param target the frame's buffer, its writer index is moved by the payload's length
+   *
+   * @param maxLength the payload's maximum length
+   *
+   * @param timeout the read's overall timeout
+   *
+   * @param unit the {@code timeout}'s unit
+   *
+   * @return the target buffer
+   *
+   * @throws java.net.SocketTimeoutException if the frame is not read before the deadline
+   *
+   * @throws java.io.EOFException if the stream is ended before the frame's end
+   *
+   * @throws IllegalStateException if the frame's length is negative or greater than {@code maxLength}
+   */
+  @SneakyThrows
+  public Bytes readLengthPrefixed (@NonNull Bytes target, int maxLength, long timeout, @NonNull TimeUnit unit) {
+    val deadline = deadline(timeout, unit);
+    val originalTimeout = socket.getSoTimeout();
+    try {
+      while (limit - start < Integer.BYTES) {
+        fill(deadline);
+      }
+      val length = BytesUtils.unsafeReadInteger(buffer, start);
+      if (length < 0 || length > maxLength) {
+        val msg = String.format(ENGLISH, "Invalid frame length %d, the maximum is %d", length, maxLength);
+        throw new IllegalStateException(msg);
+      }
+      start += Integer.BYTES;
+      transfer(target, length, deadline);
+    } finally {
+      socket.setSoTimeout(originalTimeout);
+    }
+    return target;
+  }
+
+  /**
+   * Reads the delimiter terminated frame and writes it (without the delimiter) into the target buffer.
+   *
+   * @param target the frame's buffer, its writer index is moved by the frame's length
+   *
+   * @param delimiter the frames' delimiter
+   *
+   * @param maxLength the frame's maximum length
+   *
+   * @param timeout the read's overall timeout
+   *
+   * @param unit the {@code timeout}'s unit
+   *
+   * @return the target buffer
+   *
+   * @throws java.net.SocketTimeoutException if the frame is not read before the deadline
+   *
+   * @throws java.io.EOFException if the stream is ended before the delimiter
+   *
+   * @throws IllegalStateException if the frame is longer than {@code maxLength}
+   */
+  @SneakyThrows
+  public Bytes readDelimited (@NonNull Bytes target, @NonNull byte[] delimiter, int maxLength,
+                              long timeout, @NonNull TimeUnit unit
+  ) {
+    if (delimiter.length == 0) {
+      throw new IllegalArgumentException("The delimiter must not be empty");
+    }
+    val deadline = deadline(timeout, unit);
+    val originalTimeout = socket.getSoTimeout();
+    try {
+      // the number of the scanned bytes from the start, which don't begin the delimiter
+      int scanned = 0;
+      while (true) {
+        val last = limit - delimiter.length;
+        for (int index = start + scanned; index <= last; index++) {
+          if (matches(index, delimiter)) {
+            val length = index - start;
+            if (length > maxLength) {
+              break;
+            }
+            target.writeNB(buffer, start, length);
+            start = index + delimiter.length;
+            return target;
+          }
+        }
+        if (limit - start > maxLength + delimiter.length) {
+          val msg = String.format(ENGLISH, "The frame exceeds the maximum length %d", maxLength);
+          throw new IllegalStateException(msg);
+        }
+        scanned = Math.max(0, limit - start - delimiter.length + 1);
+        fill(deadline);
+      }
+    } finally {
+      socket.setSoTimeout(originalTimeout);
+    }
+  }
+
+  private boolean matches (int index, byte[] delimiter) {
+    for (int offset = 0; offset < delimiter.length; offset++) {
+      if (buffer[index + offset] != delimiter[offset]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private void transfer (Bytes target, int length, long deadline) {
+    int remaining = length;
+    while (remaining > 0) {
+      if (start == limit) {
+        start = 0;
+        limit = 0;
+        fill(deadline);
+      }
+      val count = Math.min(remaining, limit - start);
+      target.writeNB(buffer, start, count);
+      start += count;
+      remaining -= count;
+    }
+  }
+
+  // reads the next chunk after the buffered data, compacting or growing the buffer if it is full
+  @SneakyThrows
+  private void fill (long deadline) {
+    if (limit == buffer.length) {
+      if (start > 0) {
+        System.arraycopy(buffer, start, buffer, 0, limit - start);
+        limit -= start;
+        start = 0;
+      } else {
+        buffer = Arrays.copyOf(buffer, buffer.length * 2);
+      }
+    }
+
+    val remainingNanos = deadline - System.nanoTime();
+    if (remainingNanos <= 0) {
+      throw new SocketTimeoutException("The read's deadline is exceeded");
+    }
+    val remainingMillis = Math.max(1, NANOSECONDS.toMillis(remainingNanos));
+    socket.setSoTimeout((int) Math.min(remainingMillis, Integer.MAX_VALUE));
+
+    val read = input.read(buffer, limit, buffer.length - limit);
+    if (read < 0) {
+      throw new EOFException("The stream is ended before the frame's end");
+    }
+    limit += read;
+  }
+
+  private static long deadline (long timeout, TimeUnit unit) {
+    if (timeout <= 0) {
+      val msg = String.format(ENGLISH, "Timeout must be positive, but was %d", timeout);
+      throw new IllegalArgumentException(msg);
+    }
+    return System.nanoTime() + Math.min(unit.toNanos(timeout), MAX_TIMEOUT_NANOS);
+  }
+}
@@ -16,17 +16,27 @@
 
 package io.appulse.utils;
 
+import static java.util.Locale.ENGLISH;
 import static java.util.Optional.empty;
 import static java.util.Optional.of;
-import static java.util.concurrent.TimeUnit.SECONDS;
+import static lombok.AccessLevel.PRIVATE;
 
 import java.io.IOException;
 import java.net.InetSocketAddress;
 import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.nio.channels.NetworkChannel;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
 import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
 
+import lombok.Getter;
 import lombok.NonNull;
 import lombok.SneakyThrows;
+import lombok.experimental.FieldDefaults;
+import lombok.val;
 
 /**
  * The utility class for working with TCP connections.
@@ -36,11 +46,30 @@ import lombok.SneakyThrows;
  */
 public final class SocketUtils {
 
+  private static final int MIN_PORT = 1;
+
+  private static final int MAX_PORT = 65_535;
+
+  private static final int MIN_READ_BUFFER_SIZE = 64;
+
   public static Optional<Integer> findFreePort () {
     return findFreePort(1024, 65_535);
   }
 
+  /**
+   * Finds a free TCP port in the range, starting from its upper bound.
+   * <p>
+   * The port is not reserved, so another process could take it before
+   * the caller; use {@link #reservePort(int, int)} to avoid this.
+   *
+   * @param from the range's lower bound, inclusive
+   *
+   * @param to the range's upper bound, inclusive
+   *
+   * @return the free port, or empty if there are no free ports in the range
+   */
   public static Optional<Integer> findFreePort (int from, int to) {
+    checkRange(from, to);
     for (int port = to; port >= from; port--) {
       if (isPortAvailable(port)) {
         return of(port);
@@ -49,13 +78,70 @@ public final class SocketUtils {
     return empty();
   }
 
+  /**
+   * Tells if the TCP port could be bound. The check doesn't wait
+   * for the network timeouts, a busy port fails the binding immediately.
+   *
+   * @param port the port to check
+   *
+   * @return {@code true} if the port is free
+   */
   public static boolean isPortAvailable (int port) {
-    try (Socket socket = new Socket()) {
-      socket.connect(new InetSocketAddress("localhost", port), (int) SECONDS.toMillis(1));
+    val reservation = bind(port, SocketUtils::bindTcp);
+    if (reservation == null) {
       return false;
-    } catch (IOException ex) {
-      return true;
     }
+    reservation.close();
+    return true;
+  }
+
+  /**
+   * Reserves a free TCP port, chosen by the OS from the ephemeral range.
+   *
+   * @return the port's reservation
+   */
+  @SneakyThrows
+  public static PortReservation reservePort () {
+    return new PortReservation(bindTcp(0));
+  }
+
+  /**
+   * Reserves a free TCP port in the range.
+   * <p>
+   * The candidate ports are bound one by one, starting from a random
+   * port in the range, so concurrent processes don't compete for the same ports.
+   *
+   * @param from the range's lower bound, inclusive
+   *
+   * @param to the range's upper bound, inclusive
+   *
+   * @return the port's reservation, or empty if there are no free ports in the range
+   */
+  public static Optional<PortReservation> reservePort (int from, int to) {
+    return reserve(from, to, SocketUtils::bindTcp);
+  }
+
+  /**
+   * Reserves a free UDP port, chosen by the OS from the ephemeral range.
+   *
+   * @return the port's reservation
+   */
+  @SneakyThrows
+  public static PortReservation reserveUdpPort () {
+    return new PortReservation(bindUdp(0));
+  }
+
+  /**
+   * Reserves a free UDP port in the range, see {@link #reservePort(int, int)}.
+   *
+   * @param from the range's lower bound, inclusive
+   *
+   * @param to the range's upper bound, inclusive
+   *
+   * @return the port's reservation, or empty if there are no free ports in the range
+   */
+  public static Optional<PortReservation> reserveUdpPort (int from, int to) {
+    return reserve(from, to, SocketUtils::bindUdp);
   }
 
   @SneakyThrows
@@ -78,6 +164,250 @@ public final class SocketUtils {
     return ReadBytesUtils.read(socket.getInputStream(), fixedLength);
   }
 
+  /**
+   * Reads the available bytes from the channel into the buffer's writable space,
+   * the buffer's writer index is moved by the number of read bytes.
+   * <p>
+   * The method doesn't wait for the data in the non-blocking mode: it reads till
+   * the channel has no more data or the buffer is full, so it is suitable for
+   * a selector loop. An auto-resizable buffer is grown, if it has no writable space.
+   *
+   * @param channel the source channel
+   *
+   * @param buffer the target buffer, for example, a {@link BytesPool pooled} one
+   *
+   * @return the number of read bytes, possibly zero,
+   *         or {@code -1} if the channel has reached end-of-stream and nothing was read
+   *
+   * @since 1.19.0
+   */
+  @SneakyThrows
+  public static int read (@NonNull SocketChannel channel, @NonNull Bytes buffer) {
+    if (buffer.writableBytes() == 0 && buffer.isAutoResizable()) {
+      buffer.capacity(Math.max(buffer.capacity() * 2, MIN_READ_BUFFER_SIZE));
+    }
+
+    int total = 0;
+    while (buffer.writableBytes() > 0) {
+      val target = buffer.nioBuffer(buffer.writerIndex(), buffer.writableBytes());
+      val read = channel.read(target);
+      if (read < 0) {
+        return total == 0
+               ? -1
+               : total;
+      }
+      if (read == 0) {
+        break;
+      }
+      buffer.writerIndex(buffer.writerIndex() + read);
+      total += read;
+    }
+    return total;
+  }
+
+  /**
+   * Writes the buffer's readable bytes to the channel without copying,
+   * the buffer's reader index is moved by the number of written bytes.
+   * <p>
+   * In the non-blocking mode, the method writes as much as the socket's send
+   * buffer accepts and returns, the rest stays readable in the buffer.
+   *
+   * @param channel the target channel
+   *
+   * @param buffer the buffer to write
+   *
+   * @return the number of written bytes, possibly zero
+   *
+   * @since 1.19.0
+   */
+  @SneakyThrows
+  public static int write (@NonNull SocketChannel channel, @NonNull Bytes buffer) {
+    val source = buffer.nioBuffer();
+    while (source.hasRemaining()) {
+      if (channel.write(source) == 0) {
+        break;
+      }
+    }
+    val written = source.position();
+    buffer.readerIndex(buffer.readerIndex() + written);
+    return written;
+  }
+
+  /**
+   * Writes the buffers' readable bytes to the channel with gathering writes
+   * and without copying, see {@link #write(SocketChannel, Bytes)}.
+   *
+   * @param channel the target channel
+   *
+   * @param buffers the buffers to write
+   *
+   * @return the total number of written bytes, possibly zero
+   *
+   * @since 1.19.0
+   */
+  @SneakyThrows
+  public static long write (@NonNull SocketChannel channel, @NonNull Bytes... buffers) {
+    val views = new ByteBuffer[buffers.length];
+    long remaining = 0;
+    for (int index = 0; index < buffers.length; index++) {
+      views[index] = buffers[index].nioBuffer();
+      remaining += views[index].remaining();
+    }
+
+    long total = 0;
+    while (total < remaining) {
+      val written = channel.write(views);
+      if (written == 0) {
+        break;
+      }
+      total += written;
+    }
+
+    for (int index = 0; index < buffers.length; index++) {
+      val buffer = buffers[index];
+      buffer.readerIndex(buffer.readerIndex() + views[index].position());
+    }
+    return total;
+  }
+
+  private static Optional<PortReservation> reserve (int from, int to, BindFunction function) {
+    checkRange(from, to);
+    val size = to - from + 1;
+    val offset = ThreadLocalRandom.current().nextInt(size);
+    for (int index = 0; index < size; index++) {
+      val port = from + (offset + index) % size;
+      val reservation = bind(port, function);
+      if (reservation != null) {
+        return of(reservation);
+      }
+    }
+    return empty();
+  }
+
+  private static PortReservation bind (int port, BindFunction function) {
+    try {
+      return new PortReservation(function.bind(port));
+    } catch (IOException ex) {
+      return null;
+    }
+  }
+
+  private static NetworkChannel bindTcp (int port) throws IOException {
+    val channel = ServerSocketChannel.open();
+    try {
+      return channel.bind(new InetSocketAddress(port));
+    } catch (IOException ex) {
+      channel.close();
+      throw ex;
+    }
+  }
+
+  private static NetworkChannel bindUdp (int port) throws IOException {
+    val channel = DatagramChannel.open();
+    try {
+      return channel.bind(new InetSocketAddress(port));
+    } catch (IOException ex) {
+      channel.close();
+      throw ex;
+    }
+  }
+
+  private static void checkRange (int from, int to) {
+    if (from < MIN_PORT || to > MAX_PORT || from > to) {
+      val msg = String.format(ENGLISH, "Invalid ports range [%d, %d]. The range must be within [%d, %d]",
+                              from, to, MIN_PORT, MAX_PORT);
+      throw new IllegalArgumentException(msg);
+    }
+  }
+
   private SocketUtils () {
   }
+
+  @FunctionalInterface
+  private interface BindFunction {
+
+    NetworkChannel bind (int port) throws IOException;
+  }
+
+  /**
+   * The reserved port: the bound socket, which keeps the port busy till
+   * the caller takes it over or closes the reservation.
+   * <p>
+   * The caller could use the bound channel itself, or close the reservation
+   * right before binding the port in its own code.
+   *
+   * @since 1.19.0
+   */
+  @FieldDefaults(level = PRIVATE)
+  public static final class PortReservation implements AutoCloseable {
+
+    final NetworkChannel channel;
+
+    @Getter
+    final int port;
+
+    boolean released;
+
+    @SneakyThrows
+    PortReservation (NetworkChannel channel) {
+      this.channel = channel;
+      port = ((InetSocketAddress) channel.getLocalAddress()).getPort();
+    }
+
+    /**
+     * Tells if the reserved port is a UDP port.
+     *
+     * @return {@code true} for UDP, {@code false} for TCP
+     */
+    public boolean isUdp () {
+      return channel instanceof DatagramChannel;
+    }
+
+    /**
+     * Takes over the bound TCP channel, the caller becomes responsible for its closing.
+     *
+     * @return the bound server channel
+     *
+     * @throws IllegalStateException if the reservation is already released, or it is a UDP port
+     */
+    public synchronized ServerSocketChannel takeServerSocketChannel () {
+      return (ServerSocketChannel) take(ServerSocketChannel.class);
+    }
+
+    /**
+     * Takes over the bound UDP channel, the caller becomes responsible for its closing.
+     *
+     * @return the bound datagram channel
+     *
+     * @throws IllegalStateException if the reservation is already released, or it is a TCP port
+     */
+    public synchronized DatagramChannel takeDatagramChannel () {
+      return (DatagramChannel) take(DatagramChannel.class);
+    }
+
+    /**
+     * Releases the port, if its channel was not taken over.
+     */
+    @Override
+    @SneakyThrows
+    public synchronized void close () {
+      if (!released) {
+        released = true;
+        channel.close();
+      }
+    }
+
+    private NetworkChannel take (Class<?> type) {
+      if (released) {
+        throw new IllegalStateException("The port reservation is already released");
+      }
+      if (!type.isInstance(channel)) {
+        val msg = String.format(ENGLISH, "The port %d is reserved for %s, it is not a %s",
+                                port, isUdp() ? "UDP" : "TCP", type.getSimpleName());
+        throw new IllegalStateException(msg);
+      }
+      released = true;
+      return channel;
+    }
+  }
 }
@@ -17,12 +17,16 @@
 package io.appulse.utils;
 
 import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.READ;
 import static java.nio.file.StandardOpenOption.WRITE;
 import static java.util.Locale.ENGLISH;
 
 import java.io.File;
 import java.io.OutputStream;
 import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.GatheringByteChannel;
+import java.nio.channels.ReadableByteChannel;
 import java.nio.channels.WritableByteChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
@@ -33,12 +37,20 @@ import lombok.val;
 
 /**
  * The helper methods for writing the data to different streams/channels/files.
+ * <p>
+ * The {@link ByteBuffer} and {@link Bytes} content is written to the channels
+ * via NIO views, so the direct and memory mapped buffers are not copied
+ * to the heap. The {@code transferTo} and {@code transferFrom} methods move
+ * data between files and channels with {@link FileChannel#transferTo}
+ * and {@link FileChannel#transferFrom}, which are zero-copy on most platforms.
  *
  * @since 1.14.0
  * @author Artem Labazin
  */
 public final class WriteBytesUtils {
 
+  private static final int STREAM_CHUNK_SIZE = 8192;
+
   public static int write (OutputStream outputStream, @NonNull byte[] buffer) {
     return write(outputStream, buffer, 0, buffer.length);
   }
@@ -64,7 +76,7 @@ public final class WriteBytesUtils {
     int position = offset;
     int remaining = Math.min(bytes.length - offset, length);
     while (remaining > 0) {
-      val bufferSize = Math.min(remaining, 8192);
+      val bufferSize = Math.min(remaining, STREAM_CHUNK_SIZE);
       outputStream.write(bytes, position, bufferSize);
       remaining -= bufferSize;
       position += bufferSize;
@@ -76,11 +88,30 @@ public final class WriteBytesUtils {
     return write(outputStream, buffer, buffer.remaining());
   }
 
+  @SneakyThrows
   public static int write (@NonNull OutputStream outputStream, @NonNull ByteBuffer buffer, int length) {
-    val bytes = buffer.array();
-    val written = write(outputStream, bytes, buffer.position(), length);
-    buffer.position(buffer.position() + written);
-    return written;
+    if (length < 0) {
+      val msg = String.format(ENGLISH, "Invalid length %d. The length must be greater or equal 0", length);
+      throw new IndexOutOfBoundsException(msg);
+    }
+    val count = Math.min(buffer.remaining(), length);
+    if (buffer.hasArray()) {
+      val offset = buffer.arrayOffset() + buffer.position();
+      outputStream.write(buffer.array(), offset, count);
+      buffer.position(buffer.position() + count);
+      return count;
+    }
+
+    // direct buffers are copied chunk by chunk
+    val chunk = new byte[Math.min(count, STREAM_CHUNK_SIZE)];
+    int remaining = count;
+    while (remaining > 0) {
+      val size = Math.min(remaining, chunk.length);
+      buffer.get(chunk, 0, size);
+      outputStream.write(chunk, 0, size);
+      remaining -= size;
+    }
+    return count;
   }
 
   public static int write (OutputStream outputStream, @NonNull Bytes buffer) {
@@ -88,8 +119,8 @@ public final class WriteBytesUtils {
   }
 
   public static int write (@NonNull OutputStream outputStream, @NonNull Bytes buffer, int length) {
-    val bytes = buffer.array();
-    val written = write(outputStream, bytes, buffer.readerIndex(), length);
+    val view = buffer.nioBuffer(buffer.readerIndex(), Math.min(length, buffer.readableBytes()));
+    val written = write(outputStream, view, length);
     buffer.readerIndex(buffer.readerIndex() + written);
     return written;
   }
@@ -120,16 +151,7 @@ public final class WriteBytesUtils {
     byteBuffer.position(offset);
     val limit = Math.min(offset + length, bytes.length);
     byteBuffer.limit(limit);
-
-    int totalWritten = 0;
-    while (byteBuffer.hasRemaining()) {
-      val written = channel.write(byteBuffer);
-      if (written < 0) {
-        break;
-      }
-      totalWritten += written;
-    }
-    return totalWritten;
+    return writeFully(channel, byteBuffer);
   }
 
   public static int write (WritableByteChannel channel, @NonNull ByteBuffer buffer) {
@@ -137,8 +159,13 @@ public final class WriteBytesUtils {
   }
 
   public static int write (@NonNull WritableByteChannel channel, @NonNull ByteBuffer buffer, int length) {
-    val bytes = buffer.array();
-    val written = write(channel, bytes, buffer.position(), length);
+    if (length < 0) {
+      val msg = String.format(ENGLISH, "Invalid length %d. The length must be greater or equal 0", length);
+      throw new IndexOutOfBoundsException(msg);
+    }
+    val view = buffer.duplicate();
+    view.limit(view.position() + Math.min(view.remaining(), length));
+    val written = writeFully(channel, view);
     buffer.position(buffer.position() + written);
     return written;
   }
@@ -148,8 +175,12 @@ public final class WriteBytesUtils {
   }
 
   public static int write (@NonNull WritableByteChannel channel, @NonNull Bytes buffer, int length) {
-    val bytes = buffer.array();
-    val written = write(channel, bytes, buffer.readerIndex(), length);
+    if (length < 0) {
+      val msg = String.format(ENGLISH, "Invalid length %d. The length must be greater or equal 0", length);
+      throw new IndexOutOfBoundsException(msg);
+    }
+    val view = buffer.nioBuffer(buffer.readerIndex(), Math.min(length, buffer.readableBytes()));
+    val written = writeFully(channel, view);
     buffer.readerIndex(buffer.readerIndex() + written);
     return written;
   }
@@ -219,6 +250,220 @@ public final class WriteBytesUtils {
     }
   }
 
+  /**
+   * Writes all readable bytes of the buffers to the channel with
+   * a gathering write, so the buffers are sent with the minimal number
+   * of system calls, without copying them into a single buffer.
+   * <p>
+   * The reader index of each buffer is advanced by the number of its written bytes.
+   *
+   * @param channel the output data channel
+   *
+   * @param buffers the buffers to write
+   *
+   * @return the total number of bytes written to the channel
+   *
+   * @since 1.19.0
+   */
+  @SneakyThrows
+  public static long write (@NonNull GatheringByteChannel channel, @NonNull Bytes... buffers) {
+    val views = new ByteBuffer[buffers.length];
+    long remaining = 0;
+    for (int i = 0; i < buffers.length; i++) {
+      views[i] = buffers[i].nioBuffer();
+      remaining += views[i].remaining();
+    }
+
+    long totalWritten = 0;
+    while (totalWritten < remaining) {
+      val written = channel.write(views);
+      if (written < 0) {
+        break;
+      }
+      totalWritten += written;
+    }
+
+    for (int i = 0; i < buffers.length; i++) {
+      val buffer = buffers[i];
+      buffer.readerIndex(buffer.readerIndex() + views[i].position());
+    }
+    return totalWritten;
+  }
+
+  /**
+   * Transfers the whole file to the channel, see {@link #transferTo(FileChannel, long, long, WritableByteChannel)}.
+   *
+   * @param file the source file
+   *
+   * @param target the target channel
+   *
+   * @return the number of transferred bytes
+   *
+   * @since 1.19.0
+   */
+  public static long transferTo (@NonNull File file, WritableByteChannel target) {
+    return transferTo(file.toPath(), target);
+  }
+
+  /**
+   * Transfers the whole file to the channel, see {@link #transferTo(FileChannel, long, long, WritableByteChannel)}.
+   *
+   * @param path the source file
+   *
+   * @param target the target channel
+   *
+   * @return the number of transferred bytes
+   *
+   * @since 1.19.0
+   */
+  @SneakyThrows
+  public static long transferTo (@NonNull Path path, WritableByteChannel target) {
+    try (val source = FileChannel.open(path, READ)) {
+      return transferTo(source, 0, source.size(), target);
+    }
+  }
+
+  /**
+   * Transfers the file's region to the channel, without copying the data
+   * through the user space if the OS supports it (for example, {@code sendfile}).
+   * <p>
+   * The source channel's position is not modified.
+   *
+   * @param source the source file channel
+   *
+   * @param position the region's start position in the file
+   *
+   * @param count the region's length
+   *
+   * @param target the target channel
+   *
+   * @return the number of transferred bytes, it is less than {@code count}
+   *         if the end of the file is reached or a non-blocking target
+   *         can't accept more bytes
+   *
+   * @throws IllegalArgumentException if the position or the count is negative
+   *
+   * @since 1.19.0
+   */
+  @SneakyThrows
+  public static long transferTo (@NonNull FileChannel source, long position, long count,
+                                 @NonNull WritableByteChannel target
+  ) {
+    checkRegion(position, count);
+
+    long transferred = 0;
+    while (transferred < count) {
+      val written = source.transferTo(position + transferred, count - transferred, target);
+      if (written <= 0) {
+        break;
+      }
+      transferred += written;
+    }
+    return transferred;
+  }
+
+  /**
+   * Transfers up to {@code count} bytes from the channel to the file's beginning,
+   * see {@link #transferFrom(ReadableByteChannel, FileChannel, long, long)}.
+   *
+   * @param source the source channel
+   *
+   * @param file the target file, it is created if it doesn't exist
+   *
+   * @param count the maximum number of bytes to transfer
+   *
+   * @return the number of transferred bytes
+   *
+   * @since 1.19.0
+   */
+  public static long transferFrom (ReadableByteChannel source, @NonNull File file, long count) {
+    return transferFrom(source, file.toPath(), count);
+  }
+
+  /**
+   * Transfers up to {@code count} bytes from the channel to the file's beginning,
+   * see {@link #transferFrom(ReadableByteChannel, FileChannel, long, long)}.
+   *
+   * @param source the source channel
+   *
+   * @param path the target file, it is created if it doesn't exist
+   *
+   * @param count the maximum number of bytes to transfer
+   *
+   * @return the number of transferred bytes
+   *
+   * @since 1.19.0
+   */
+  @SneakyThrows
+  public static long transferFrom (ReadableByteChannel source, @NonNull Path path, long count) {
+    try (val target = FileChannel.open(path, CREATE, WRITE)) {
+      return transferFrom(source, target, 0, count);
+    }
+  }
+
+  /**
+   * Transfers up to {@code count} bytes from the channel to the file's region,
+   * without copying the data through the user space if the OS supports it.
+   * <p>
+   * The target channel's position is not modified.
+   *
+   * @param source the source channel
+   *
+   * @param target the target file channel
+   *
+   * @param position the position in the file, where the transferred bytes are written
+   *
+   * @param count the maximum number of bytes to transfer
+   *
+   * @return the number of transferred bytes, it is less than {@code count}
+   *         if the end of the source stream is reached or a non-blocking
+   *         source has no more bytes at the moment
+   *
+   * @throws IllegalArgumentException if the position or the count is negative
+   *
+   * @since 1.19.0
+   */
+  @SneakyThrows
+  public static long transferFrom (@NonNull ReadableByteChannel source, @NonNull FileChannel target,
+                                   long position, long count
+  ) {
+    checkRegion(position, count);
+
+    long transferred = 0;
+    while (transferred < count) {
+      val read = target.transferFrom(source, position + transferred, count - transferred);
+      if (read <= 0) {
+        break;
+      }
+      transferred += read;
+    }
+    return transferred;
+  }
+
+  @SneakyThrows
+  private static int writeFully (WritableByteChannel channel, ByteBuffer buffer) {
+    int totalWritten = 0;
+    while (buffer.hasRemaining()) {
+      val written = channel.write(buffer);
+      if (written < 0) {
+        break;
+      }
+      totalWritten += written;
+    }
+    return totalWritten;
+  }
+
+  private static void checkRegion (long position, long count) {
+    if (position < 0) {
+      val msg = String.format(ENGLISH, "Invalid position %d. The position must be greater or equal 0", position);
+      throw new IllegalArgumentException(msg);
+    }
+    if (count < 0) {
+      val msg = String.format(ENGLISH, "Invalid count %d. The count must be greater or equal 0", count);
+      throw new IllegalArgumentException(msg);
+    }
+  }
+
   private WriteBytesUtils () {
     throw new UnsupportedOperationException();
   }
@@ -0,0 +1,387 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.appulse.utils.transport;
+
+import static java.nio.channels.SelectionKey.OP_CONNECT;
+import static java.nio.channels.SelectionKey.OP_READ;
+import static java.nio.channels.SelectionKey.OP_WRITE;
+import static lombok.AccessLevel.PRIVATE;
+
+import java.net.InetSocketAddress;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import io.appulse.utils.Bytes;
+import io.appulse.utils.BytesPool.PooledBytes;
+import io.appulse.utils.OutboundQueue;
+import io.appulse.utils.SocketUtils;
+
+import lombok.NonNull;
+import lombok.SneakyThrows;
+import lombok.experimental.FieldDefaults;
+import lombok.extern.slf4j.Slf4j;
+import lombok.val;
+
+/**
+ * The transport's TCP connection.
+ * <p>
+ * The connection is served by one reactor's thread: the received bytes are
+ * read into a pooled buffer, which is held only while it has a partial frame,
+ * and decoded into the frames. The written messages are queued in an
+ * {@link OutboundQueue} and sent by the reactor with gathering writes, so the
+ * messages, written during one loop's iteration, are coalesced into a few
+ * system calls.
+ * <p>
+ * The reading is paused while the not sent bytes exceed the transport's
+ * write high watermark, and resumed when they fall below the low watermark.
+ *
+ * @since 1.19.0
+ * @author Artem Labazin
+ */
+@Slf4j
+@FieldDefaults(level = PRIVATE)
+public final class Connection implements Reactor.Selectable, AutoCloseable {
+
+  final Transport transport;
+
+  final Reactor reactor;
+
+  final SocketChannel channel;
+
+  final OutboundQueue outbound;
+
+  final AtomicBoolean flushScheduled = new AtomicBoolean();
+
+  final CompletableFuture<Connection> connected = new CompletableFuture<>();
+
+  @SuppressWarnings("PMD.AvoidUsingVolatile")
+  volatile Object attachment;
+
+  @SuppressWarnings("PMD.AvoidUsingVolatile")
+  volatile boolean closed;
+
+  // the reactor thread's state
+  SelectionKey key;
+
+  PooledBytes readBuffer;
+
+  boolean readingPaused;
+
+  Connection (Transport transport, Reactor reactor, SocketChannel channel) {
+    this.transport = transport;
+    this.reactor = reactor;
+    this.channel = channel;
+    outbound = OutboundQueue.builder()
+        .highWatermarkBytes((long) transport.getWriteHighWatermark())
+        .lowWatermarkBytes((long) transport.getWriteLowWatermark())
+        .build();
+  }
+
+  /**
+   * Queues the message for sending, the message's readable bytes are sent.
+   * <p>
+   * The connection takes the message's ownership: it must not be changed
+   * after the call, the {@link io.appulse.utils.BytesPool pooled} message
+   * is released after sending.
+   *
+   * @param message the message to send
+   *
+   * @throws IllegalStateException if the connection is closed
+   */
+  public void write (@NonNull Bytes message) {
+    if (closed) {
+      throw new IllegalStateException("The connection is closed");
+    }
+    outbound.add(message);
+    if (flushScheduled.compareAndSet(false, true)) {
+      reactor.execute(this::flush);
+    }
+  }
+
+  /**
+   * Returns the user's object, associated with the connection.
+   *
+   * @return the attachment, or {@code null} if there is no one
+   */
+  public Object getAttachment () {
+    return attachment;
+  }
+
+  /**
+   * Associates the user's object with the connection.
+   *
+   * @param attachment the attachment
+   */
+  public void setAttachment (Object attachment) {
+    this.attachment = attachment;
+  }
+
+  /**
+   * Returns the number of the queued and not sent bytes.
+   *
+   * @return the pending bytes count
+   */
+  public long getPendingWriteBytes () {
+    return outbound.getPendingBytes();
+  }
+
+  /**
+   * Tells if the pending bytes are below the transport's write high watermark,
+   * or fell to the low watermark after reaching the high one.
+   *
+   * @return {@code true} if the connection accepts more messages without the backpressure
+   */
+  public boolean isWritable () {
+    return outbound.isWritable();
+  }
+
+  /**
+   * Stops the reading from the socket and the frames' delivering, till the
+   * {@link #resumeReading()} call. The peer is slowed down by the TCP flow control.
+   */
+  public void pauseReading () {
+    runInReactor(() -> {
+      readingPaused = true;
+      updateInterest();
+    });
+  }
+
+  /**
+   * Resumes the reading, see {@link #pauseReading()}.
+   */
+  public void resumeReading () {
+    runInReactor(() -> {
+      readingPaused = false;
+      updateInterest();
+      if (readBuffer != null) {
+        decodeFrames();
+      }
+    });
+  }
+
+  /**
+   * Tells if the connection is open.
+   *
+   * @return {@code true} if the connection is open
+   */
+  public boolean isOpen () {
+    return !closed;
+  }
+
+  /**
+   * Returns the peer's address.
+   *
+   * @return the remote address
+   */
+  @SneakyThrows
+  public InetSocketAddress getRemoteAddress () {
+    return (InetSocketAddress) channel.getRemoteAddress();
+  }
+
+  /**
+   * Returns the connection's local address.
+   *
+   * @return the local address
+   */
+  @SneakyThrows
+  public InetSocketAddress getLocalAddress () {
+    return (InetSocketAddress) channel.getLocalAddress();
+  }
+
+  /**
+   * Sends the queued messages, which could be sent without waiting, and closes the connection.
+   */
+  @Override
+  public void close () {
+    runInReactor(() -> {
+      try {
+        flush();
+      } finally {
+        onError(null);
+      }
+    });
+  }
+
+  @Override
+  public String toString () {
+    return "Connection{remote=" + (closed ? "closed" : channel.socket().getRemoteSocketAddress()) + '}';
+  }
+
+  @Override
+  public void onSelected (SelectionKey selectedKey) throws Exception {
+    if (!selectedKey.isValid()) {
+      return;
+    }
+    if (selectedKey.isConnectable()) {
+      channel.finishConnect();
+      opened();
+      return;
+    }
+    if (selectedKey.isWritable()) {
+      flush();
+    }
+    if (!closed && selectedKey.isReadable()) {
+      read();
+    }
+  }
+
+  @Override
+  public void onError (Throwable cause) {
+    if (closed) {
+      return;
+    }
+    closed = true;
+    if (key != null) {
+      key.cancel();
+    }
+    closeChannel();
+
+    if (readBuffer != null) {
+      readBuffer.release();
+      readBuffer = null;
+    }
+    outbound.close();
+
+    if (connected.isDone()) {
+      transport.closed(this);
+      try {
+        transport.getHandler().onClose(this, cause);
+      } catch (Exception ex) {
+        log.error("Connection's close handler error", ex);
+      }
+    } else {
+      connected.completeExceptionally(cause == null
+                                      ? new IllegalStateException("The transport is closed")
+                                      : cause);
+    }
+  }
+
+  /**
+   * Registers the connected (accepted) channel in the reactor, must be called in the reactor's thread.
+   */
+  void register () {
+    key = reactor.register(channel, OP_READ, this);
+    opened();
+  }
+
+  /**
+   * Registers the connecting channel in the reactor, must be called in the reactor's thread.
+   */
+  void registerConnecting () {
+    key = reactor.register(channel, OP_CONNECT, this);
+  }
+
+  CompletableFuture<Connection> getConnected () {
+    return connected;
+  }
+
+  private void opened () {
+    key.interestOps(OP_READ);
+    transport.opened(this);
+    connected.complete(this);
+    transport.getHandler().onOpen(this);
+  }
+
+  private void read () {
+    if (readBuffer == null) {
+      readBuffer = transport.getBytesPool().acquire(transport.getReadBufferSize());
+    }
+    val read = SocketUtils.read(channel, readBuffer);
+    if (read < 0) {
+      onError(null);
+      return;
+    }
+    decodeFrames();
+  }
+
+  private void decodeFrames () {
+    val decoder = transport.getFrameDecoder();
+    val handler = transport.getHandler();
+    while (!closed && !readingPaused) {
+      val frame = decoder.decode(readBuffer);
+      if (frame == null) {
+        break;
+      }
+      handler.onFrame(this, frame);
+    }
+    compactReadBuffer();
+  }
+
+  // releases the empty buffer, or moves the partial frame to a new buffer's start
+  private void compactReadBuffer () {
+    if (readBuffer == null) {
+      return;
+    }
+    val remaining = readBuffer.readableBytes();
+    if (remaining == 0) {
+      readBuffer.release();
+      readBuffer = null;
+    } else if (readBuffer.readerIndex() > 0) {
+      val next = transport.getBytesPool().acquire(Math.max(transport.getReadBufferSize(), remaining));
+      next.nioBuffer(0, remaining).put(readBuffer.nioBuffer());
+      next.writerIndex(remaining);
+      readBuffer.release();
+      readBuffer = next;
+    }
+  }
+
+  private void flush () {
+    flushScheduled.set(false);
+    if (closed) {
+      return;
+    }
+    try {
+      outbound.flush(channel);
+    } catch (Exception ex) {
+      // for example, the connection is reset by the peer
+      onError(ex);
+      return;
+    }
+    updateInterest();
+  }
+
+  private void updateInterest () {
+    if (closed || key == null || !key.isValid()) {
+      return;
+    }
+    int operations = 0;
+    if (!readingPaused && outbound.isWritable()) {
+      operations |= OP_READ;
+    }
+    if (!outbound.isEmpty()) {
+      operations |= OP_WRITE;
+    }
+    if (key.interestOps() != operations) {
+      key.interestOps(operations);
+    }
+  }
+
+  private void runInReactor (Runnable task) {
+    if (reactor.inReactorThread()) {
+      task.run();
+    } else {
+      reactor.execute(task);
+    }
+  }
+
+  @SneakyThrows
+  private void closeChannel () {
+    channel.close();
+  }
+}
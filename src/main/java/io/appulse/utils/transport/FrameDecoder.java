@@ -0,0 +1,155 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.appulse.utils.transport;
+
+import static java.util.Locale.ENGLISH;
+
+import java.util.Arrays;
+
+import io.appulse.utils.Bytes;
+
+import lombok.NonNull;
+import lombok.val;
+
+/**
+ * The connection's frames decoder, it extracts the frames from the received bytes.
+ * <p>
+ * The decoder must be stateless, it is shared by all connections.
+ *
+ * @since 1.19.0
+ * @author Artem Labazin
+ */
+@FunctionalInterface
+public interface FrameDecoder {
+
+  /**
+   * Returns the decoder of the frames with the 4 bytes (big-endian) length prefix,
+   * the frame is the payload after the prefix.
+   *
+   * @param maxFrameSize the maximum payload's size
+   *
+   * @return the decoder
+   */
+  static FrameDecoder lengthPrefixed (int maxFrameSize) {
+    return buffer -> {
+      if (buffer.readableBytes() < Integer.BYTES) {
+        return null;
+      }
+      val start = buffer.readerIndex();
+      val length = buffer.getInt(start);
+      if (length < 0 || length > maxFrameSize) {
+        val msg = String.format(ENGLISH, "Invalid frame length %d, the maximum is %d", length, maxFrameSize);
+        throw new IllegalStateException(msg);
+      }
+      if (buffer.readableBytes() < Integer.BYTES + length) {
+        return null;
+      }
+      buffer.readerIndex(start + Integer.BYTES + length);
+      return view(buffer, start + Integer.BYTES, length);
+    };
+  }
+
+  /**
+   * Returns the decoder of the delimiter terminated frames,
+   * the frame is the bytes before the delimiter.
+   *
+   * @param delimiter the frames' delimiter
+   *
+   * @param maxFrameSize the maximum frame's size
+   *
+   * @return the decoder
+   */
+  static FrameDecoder delimited (@NonNull byte[] delimiter, int maxFrameSize) {
+    if (delimiter.length == 0) {
+      throw new IllegalArgumentException("The delimiter must not be empty");
+    }
+    val pattern = Arrays.copyOf(delimiter, delimiter.length);
+    return buffer -> {
+      val start = buffer.readerIndex();
+      val last = buffer.writerIndex() - pattern.length;
+      for (int index = start; index <= last; index++) {
+        int matched = 0;
+        while (matched < pattern.length && buffer.getByte(index + matched) == pattern[matched]) {
+          matched++;
+        }
+        if (matched == pattern.length) {
+          val length = index - start;
+          if (length > maxFrameSize) {
+            break;
+          }
+          buffer.readerIndex(index + pattern.length);
+          return view(buffer, start, length);
+        }
+      }
+      if (buffer.readableBytes() > maxFrameSize + pattern.length) {
+        val msg = String.format(ENGLISH, "The frame exceeds the maximum size %d", maxFrameSize);
+        throw new IllegalStateException(msg);
+      }
+      return null;
+    };
+  }
+
+  /**
+   * Returns the decoder, which returns all the received bytes as a frame.
+   *
+   * @return the decoder
+   */
+  static FrameDecoder passThrough () {
+    return buffer -> {
+      if (!buffer.isReadable()) {
+        return null;
+      }
+      val start = buffer.readerIndex();
+      val length = buffer.readableBytes();
+      buffer.readerIndex(buffer.writerIndex());
+      return view(buffer, start, length);
+    };
+  }
+
+  /**
+   * Returns the read-only view of the buffer's range without copying.
+   *
+   * @param buffer the buffer
+   *
+   * @param index the range's start
+   *
+   * @param length the range's length
+   *
+   * @return the view, its readable bytes are the range
+   */
+  static Bytes view (@NonNull Bytes buffer, int index, int length) {
+    val result = Bytes.wrap(buffer.nioBuffer(index, length).asReadOnlyBuffer());
+    result.writerIndex(length);
+    return result;
+  }
+
+  /**
+   * Extracts the next frame from the buffer's readable bytes.
+   * <p>
+   * If the buffer contains a whole frame, the decoder moves the buffer's
+   * reader index after the frame and returns it. The returned frame could be
+   * a view of the buffer, it is valid only inside the
+   * {@link TransportHandler#onFrame(Connection, Bytes)} call.
+   *
+   * @param buffer the received bytes
+   *
+   * @return the frame, or {@code null} if there is no whole frame in the buffer yet
+   *
+   * @throws IllegalStateException if the data is malformed, the connection is closed
+   */
+  Bytes decode (Bytes buffer);
+}
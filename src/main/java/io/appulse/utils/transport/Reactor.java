@@ -0,0 +1,166 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.appulse.utils.transport;
+
+import static lombok.AccessLevel.PRIVATE;
+
+import java.nio.channels.SelectableChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.ArrayList;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+
+import lombok.SneakyThrows;
+import lombok.experimental.FieldDefaults;
+import lombok.extern.slf4j.Slf4j;
+import lombok.val;
+
+/**
+ * The selector loop, which serves its channels' events in one thread.
+ * <p>
+ * The tasks from the other threads are queued and executed in the loop,
+ * so the channels' state is changed only by the reactor's thread.
+ */
+@Slf4j
+@SuppressWarnings("PMD.DoNotUseThreads")
+@FieldDefaults(level = PRIVATE)
+final class Reactor implements Runnable {
+
+  final Selector selector;
+
+  final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+
+  final CountDownLatch terminated = new CountDownLatch(1);
+
+  @SuppressWarnings("PMD.AvoidUsingVolatile")
+  volatile Thread thread;
+
+  @SuppressWarnings("PMD.AvoidUsingVolatile")
+  volatile boolean closed;
+
+  @SneakyThrows
+  Reactor () {
+    selector = Selector.open();
+  }
+
+  boolean inReactorThread () {
+    return Thread.currentThread() == thread;
+  }
+
+  /**
+   * Executes the task in the reactor's thread.
+   */
+  void execute (Runnable task) {
+    tasks.add(task);
+    if (!inReactorThread()) {
+      selector.wakeup();
+    }
+  }
+
+  /**
+   * Registers the channel, must be called in the reactor's thread.
+   */
+  @SneakyThrows
+  SelectionKey register (SelectableChannel channel, int operations, Selectable attachment) {
+    return channel.register(selector, operations, attachment);
+  }
+
+  @Override
+  @SneakyThrows
+  public void run () {
+    thread = Thread.currentThread();
+    try {
+      while (!closed) {
+        if (tasks.isEmpty()) {
+          selector.select();
+        } else {
+          selector.selectNow();
+        }
+        processSelectedKeys();
+        runTasks();
+      }
+    } finally {
+      closeAll();
+      terminated.countDown();
+    }
+  }
+
+  /**
+   * Closes the reactor and all its channels, waits for the loop's finish.
+   */
+  @SneakyThrows
+  void close () {
+    closed = true;
+    selector.wakeup();
+    if (!inReactorThread() && thread != null) {
+      terminated.await();
+    }
+  }
+
+  private void processSelectedKeys () {
+    val selectedKeys = selector.selectedKeys();
+    if (selectedKeys.isEmpty()) {
+      return;
+    }
+    for (val key : selectedKeys) {
+      val selectable = (Selectable) key.attachment();
+      try {
+        selectable.onSelected(key);
+      } catch (Exception ex) {
+        selectable.onError(ex);
+      }
+    }
+    selectedKeys.clear();
+  }
+
+  private void runTasks () {
+    for (Runnable task = tasks.poll(); task != null; task = tasks.poll()) {
+      try {
+        task.run();
+      } catch (Exception ex) {
+        log.error("Reactor's task error", ex);
+      }
+    }
+  }
+
+  @SneakyThrows
+  private void closeAll () {
+    runTasks();
+    for (val key : new ArrayList<>(selector.keys())) {
+      ((Selectable) key.attachment()).onError(null);
+    }
+    selector.close();
+  }
+
+  /**
+   * The reactor's channel.
+   */
+  interface Selectable {
+
+    /**
+     * Handles the channel's ready operations.
+     */
+    void onSelected (SelectionKey key) throws Exception;
+
+    /**
+     * Closes the channel because of the error, or because the reactor is closed if the cause is {@code null}.
+     */
+    void onError (Throwable cause);
+  }
+}
@@ -0,0 +1,391 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.appulse.utils.transport;
+
+import static java.net.StandardSocketOptions.TCP_NODELAY;
+import static java.nio.channels.SelectionKey.OP_ACCEPT;
+import static java.util.Locale.ENGLISH;
+import static java.util.Optional.ofNullable;
+import static lombok.AccessLevel.PRIVATE;
+
+import java.net.InetSocketAddress;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.appulse.utils.BytesPool;
+import io.appulse.utils.RoundRobin;
+import io.appulse.utils.threads.AppulseExecutors;
+import io.appulse.utils.threads.AppulseThreadFactory;
+
+import lombok.Builder;
+import lombok.NonNull;
+import lombok.SneakyThrows;
+import lombok.experimental.FieldDefaults;
+import lombok.extern.slf4j.Slf4j;
+import lombok.val;
+
+/**
+ * The non-blocking TCP transport, which serves the connections with
+ * several selector loops (reactors).
+ * <p>
+ * Each connection is pinned to one reactor, the accepted and the connected
+ * channels are distributed between the reactors in the round-robin order.
+ * The received bytes are read into the {@link BytesPool pooled} buffers and
+ * decoded by the {@link FrameDecoder}, the frames are passed to the
+ * {@link TransportHandler} in the reactor's thread.
+ * <p>
+ * Usage example:
+ * <pre>{@code
+ * try (val transport = Transport.builder()
+ *     .frameDecoder(FrameDecoder.lengthPrefixed(1024 * 1024))
+ *     .handler((connection, frame) -> connection.write(Bytes.wrap(frame.readBytes(frame.readableBytes()))))
+ *     .build()) {
+ *
+ *   val address = transport.bind(new InetSocketAddress("localhost", 0));
+ *   ...
+ * }
+ * }</pre>
+ *
+ * @since 1.19.0
+ * @author Artem Labazin
+ */
+@Slf4j
+@FieldDefaults(level = PRIVATE, makeFinal = true)
+public final class Transport implements AutoCloseable {
+
+  private static final int DEFAULT_READ_BUFFER_SIZE = 8 * 1024;
+
+  private static final int DEFAULT_WRITE_HIGH_WATERMARK = 1024 * 1024;
+
+  private static final int DEFAULT_BACKLOG = 1024;
+
+  Reactor[] reactors;
+
+  RoundRobin<Reactor> nextReactor;
+
+  ExecutorService executor;
+
+  BytesPool bytesPool;
+
+  boolean ownBytesPool;
+
+  FrameDecoder frameDecoder;
+
+  TransportHandler handler;
+
+  int readBufferSize;
+
+  int writeHighWatermark;
+
+  int writeLowWatermark;
+
+  int backlog;
+
+  List<ServerSocketChannel> servers = new CopyOnWriteArrayList<>();
+
+  AtomicInteger connectionsCount = new AtomicInteger();
+
+  AtomicBoolean closed = new AtomicBoolean();
+
+  /**
+   * The transport's constructor, it starts the reactors' threads.
+   *
+   * @param reactors the number of the reactors' threads, the available processors' count by default
+   *
+   * @param bytesPool the read buffers' pool, the transport creates and closes its own pool by default;
+   *                  the reactors acquire the buffers without blocking, so the pool must be
+   *                  unbounded (without {@code maximumBuffersCount})
+   *
+   * @param frameDecoder the received frames' decoder, all the received bytes are a frame by default
+   *
+   * @param handler the connections' events handler
+   *
+   * @param readBufferSizeBytes the read buffer's initial size, 8 KiB by default
+   *
+   * @param writeHighWatermarkBytes the connection's not sent bytes count, after which
+   *                                its reading is paused, 1 MiB by default
+   *
+   * @param writeLowWatermarkBytes the connection's not sent bytes count, at which
+   *                               its reading is resumed, a half of the high watermark by default
+   *
+   * @param backlog the listening sockets' backlog, 1024 by default
+   *
+   * @throws IllegalArgumentException if the {@code bytesPool} has a maximum buffers count
+   */
+  @Builder
+  Transport (Integer reactors,
+             BytesPool bytesPool,
+             FrameDecoder frameDecoder,
+             @NonNull TransportHandler handler,
+             Integer readBufferSizeBytes,
+             Integer writeHighWatermarkBytes,
+             Integer writeLowWatermarkBytes,
+             Integer backlog
+  ) {
+    if (bytesPool != null && bytesPool.getMaximumCount() != Integer.MAX_VALUE) {
+      val msg = String.format(ENGLISH,
+          "The transport's bytes pool must be unbounded, but its maximum buffers count is %d",
+          bytesPool.getMaximumCount());
+      throw new IllegalArgumentException(msg);
+    }
+    this.handler = handler;
+
+    this.frameDecoder = ofNullable(frameDecoder)
+        .orElseGet(FrameDecoder::passThrough);
+
+    this.readBufferSize = ofNullable(readBufferSizeBytes)
+        .filter(it -> it > 0)
+        .orElse(DEFAULT_READ_BUFFER_SIZE);
+
+    this.writeHighWatermark = ofNullable(writeHighWatermarkBytes)
+        .filter(it -> it > 0)
+        .orElse(DEFAULT_WRITE_HIGH_WATERMARK);
+
+    this.writeLowWatermark = ofNullable(writeLowWatermarkBytes)
+        .filter(it -> it >= 0 && it <= writeHighWatermark)
+        .orElse(writeHighWatermark / 2);
+
+    this.backlog = ofNullable(backlog)
+        .filter(it -> it > 0)
+        .orElse(DEFAULT_BACKLOG);
+
+    this.ownBytesPool = bytesPool == null;
+    this.bytesPool = ofNullable(bytesPool)
+        .orElseGet(() -> BytesPool.builder()
+            .initialBufferSizeBytes(readBufferSize)
+            .shrinkThresholdBytes(readBufferSize * 4)
+            .build());
+
+    val reactorsCount = ofNullable(reactors)
+        .filter(it -> it > 0)
+        .orElseGet(() -> Runtime.getRuntime().availableProcessors());
+
+    executor = AppulseExecutors.newFixedThreadPool(reactorsCount)
+        .threadFactory(AppulseThreadFactory.builder()
+            .name("transport-reactor-%d")
+            .daemon(true)
+            .build())
+        .build();
+
+    this.reactors = new Reactor[reactorsCount];
+    for (int index = 0; index < reactorsCount; index++) {
+      this.reactors[index] = new Reactor();
+      executor.execute(this.reactors[index]);
+    }
+    nextReactor = new RoundRobin<>(this.reactors);
+  }
+
+  /**
+   * Starts the listening on the address, the accepted connections are served by the transport.
+   *
+   * @param address the listening address, the port could be {@code 0}
+   *
+   * @return the actual listening address
+   *
+   * @throws IllegalStateException if the transport is closed
+   */
+  @SneakyThrows
+  public InetSocketAddress bind (@NonNull InetSocketAddress address) {
+    checkNotClosed();
+
+    val server = ServerSocketChannel.open();
+    try {
+      server.configureBlocking(false);
+      server.bind(address, backlog);
+    } catch (Exception ex) {
+      server.close();
+      throw ex;
+    }
+    servers.add(server);
+
+    val reactor = nextReactor.getNext();
+    val acceptor = new Acceptor(server);
+    reactor.execute(() -> {
+      try {
+        reactor.register(server, OP_ACCEPT, acceptor);
+      } catch (Exception ex) {
+        acceptor.onError(ex);
+      }
+    });
+    return (InetSocketAddress) server.getLocalAddress();
+  }
+
+  /**
+   * Connects to the address.
+   *
+   * @param address the remote address
+   *
+   * @return the future, which is completed after the connection's opening
+   *
+   * @throws IllegalStateException if the transport is closed
+   */
+  public CompletableFuture<Connection> connect (@NonNull InetSocketAddress address) {
+    checkNotClosed();
+
+    SocketChannel channel = null;
+    try {
+      channel = SocketChannel.open();
+      channel.configureBlocking(false);
+      channel.setOption(TCP_NODELAY, true);
+
+      val reactor = nextReactor.getNext();
+      val connection = new Connection(this, reactor, channel);
+      val connectedImmediately = channel.connect(address);
+      reactor.execute(() -> {
+        try {
+          if (connectedImmediately) {
+            connection.register();
+          } else {
+            connection.registerConnecting();
+          }
+        } catch (Exception ex) {
+          connection.onError(ex);
+        }
+      });
+      return connection.getConnected();
+    } catch (Exception ex) {
+      closeQuietly(channel);
+      val result = new CompletableFuture<Connection>();
+      result.completeExceptionally(ex);
+      return result;
+    }
+  }
+
+  /**
+   * Returns the number of the open connections.
+   *
+   * @return the connections' count
+   */
+  public int getConnectionsCount () {
+    return connectionsCount.get();
+  }
+
+  /**
+   * Closes the listening sockets, all the connections and the reactors.
+   */
+  @Override
+  public void close () {
+    if (!closed.compareAndSet(false, true)) {
+      return;
+    }
+    servers.forEach(Transport::closeQuietly);
+    servers.clear();
+
+    for (val reactor : reactors) {
+      reactor.close();
+    }
+    executor.shutdown();
+
+    if (ownBytesPool) {
+      bytesPool.close();
+    }
+  }
+
+  BytesPool getBytesPool () {
+    return bytesPool;
+  }
+
+  FrameDecoder getFrameDecoder () {
+    return frameDecoder;
+  }
+
+  TransportHandler getHandler () {
+    return handler;
+  }
+
+  int getReadBufferSize () {
+    return readBufferSize;
+  }
+
+  int getWriteHighWatermark () {
+    return writeHighWatermark;
+  }
+
+  int getWriteLowWatermark () {
+    return writeLowWatermark;
+  }
+
+  void opened (Connection connection) {
+    connectionsCount.incrementAndGet();
+  }
+
+  void closed (Connection connection) {
+    connectionsCount.decrementAndGet();
+  }
+
+  private void checkNotClosed () {
+    if (closed.get()) {
+      throw new IllegalStateException("The transport is closed");
+    }
+  }
+
+  @SuppressWarnings("PMD.AvoidCatchingGenericException")
+  private static void closeQuietly (AutoCloseable closeable) {
+    if (closeable == null) {
+      return;
+    }
+    try {
+      closeable.close();
+    } catch (Exception ex) {
+      log.debug("Closing error", ex);
+    }
+  }
+
+  @FieldDefaults(level = PRIVATE, makeFinal = true)
+  private final class Acceptor implements Reactor.Selectable {
+
+    ServerSocketChannel server;
+
+    Acceptor (ServerSocketChannel server) {
+      this.server = server;
+    }
+
+    @Override
+    public void onSelected (SelectionKey key) throws Exception {
+      for (SocketChannel channel = server.accept(); channel != null; channel = server.accept()) {
+        channel.configureBlocking(false);
+        channel.setOption(TCP_NODELAY, true);
+
+        val reactor = nextReactor.getNext();
+        val connection = new Connection(Transport.this, reactor, channel);
+        reactor.execute(() -> {
+          try {
+            connection.register();
+          } catch (Exception ex) {
+            connection.onError(ex);
+          }
+        });
+      }
+    }
+
+    @Override
+    public void onError (Throwable cause) {
+      if (cause != null) {
+        log.error("The server socket {} is closed because of the error", server, cause);
+      }
+      servers.remove(server);
+      closeQuietly(server);
+    }
+  }
+}
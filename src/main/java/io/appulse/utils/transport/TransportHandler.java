@@ -0,0 +1,61 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.appulse.utils.transport;
+
+import io.appulse.utils.Bytes;
+
+/**
+ * The connections' events handler.
+ * <p>
+ * All the methods are called in the connection's reactor thread,
+ * so they must not block.
+ *
+ * @since 1.19.0
+ * @author Artem Labazin
+ */
+@FunctionalInterface
+public interface TransportHandler {
+
+  /**
+   * Handles the connection's opening.
+   *
+   * @param connection the opened connection
+   */
+  default void onOpen (Connection connection) {
+    // no op
+  }
+
+  /**
+   * Handles the received frame.
+   *
+   * @param connection the frame's connection
+   *
+   * @param frame the frame, it is valid only inside the call
+   */
+  void onFrame (Connection connection, Bytes frame);
+
+  /**
+   * Handles the connection's closing.
+   *
+   * @param connection the closed connection
+   *
+   * @param cause the closing's cause, or {@code null} if the connection was closed normally
+   */
+  default void onClose (Connection connection, Throwable cause) {
+    // no op
+  }
+}
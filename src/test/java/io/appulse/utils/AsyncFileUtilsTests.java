@@ -0,0 +1,139 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.appulse.utils;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Comparator.reverseOrder;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+
+import lombok.SneakyThrows;
+import lombok.val;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class AsyncFileUtilsTests {
+
+  private static final Path FOLDER = Paths.get("./test-folder");
+
+  private static final byte[] CONTENT = "Hello world".getBytes(UTF_8);
+
+  @BeforeEach
+  void beforeEach () {
+    clearFolder();
+  }
+
+  @AfterEach
+  void afterEach () {
+    clearFolder();
+  }
+
+  @Test
+  @SneakyThrows
+  void writeAndReadAll () {
+    val path = FOLDER.resolve(UUID.randomUUID().toString());
+    val source = Bytes.wrap(CONTENT);
+
+    val written = AsyncFileUtils.write(path, source, 0).get();
+    assertThat(written).isEqualTo(CONTENT.length);
+    assertThat(source.readableBytes()).isEqualTo(0);
+
+    val buffer = AsyncFileUtils.readAll(path).get();
+    assertThat(buffer.readableBytes()).isEqualTo(CONTENT.length);
+    assertThat(buffer.arrayCopy()).isEqualTo(CONTENT);
+  }
+
+  @Test
+  @SneakyThrows
+  void positional () {
+    val path = createFile();
+    val executor = Executors.newSingleThreadExecutor();
+    try {
+      val direct = Bytes.wrap(ByteBuffer.allocateDirect(5));
+      direct.writeNB("HELLO".getBytes(UTF_8));
+      assertThat(AsyncFileUtils.write(path, direct, 6, executor).get()).isEqualTo(5);
+
+      val buffer = Bytes.allocate(16);
+      val readed = AsyncFileUtils.read(path, buffer, 4, 16, executor).get();
+      assertThat(readed).isEqualTo(7);
+      assertThat(buffer.writerIndex()).isEqualTo(7);
+      assertThat(buffer.readString(readed, UTF_8)).isEqualTo("o HELLO");
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  @Test
+  @SneakyThrows
+  void readAllPooled () {
+    val path = createFile();
+    try (val pool = new BytesPool()) {
+      val buffer = AsyncFileUtils.readAll(path, pool).get();
+      assertThat(buffer.isAcquired()).isTrue();
+      assertThat(buffer.arrayCopy()).isEqualTo(CONTENT);
+      assertThat(pool.getAcquiredCount()).isEqualTo(1);
+
+      buffer.release();
+      assertThat(pool.getAcquiredCount()).isEqualTo(0);
+
+      val missing = FOLDER.resolve("missing");
+      assertThatThrownBy(() -> AsyncFileUtils.readAll(missing, pool).get())
+          .isInstanceOf(ExecutionException.class)
+          .hasCauseInstanceOf(NoSuchFileException.class);
+      assertThat(pool.getAcquiredCount()).isEqualTo(0);
+    }
+  }
+
+  @Test
+  void invalidArguments () {
+    val path = createFile();
+    assertThatThrownBy(() -> AsyncFileUtils.read(path, Bytes.allocate(4), -1, 4).get())
+        .hasCauseInstanceOf(IllegalArgumentException.class);
+    assertThatThrownBy(() -> AsyncFileUtils.read(path, Bytes.allocate(4), 0, -1).get())
+        .hasCauseInstanceOf(IndexOutOfBoundsException.class);
+    assertThatThrownBy(() -> AsyncFileUtils.read(path, Bytes.allocate(4), 0, 8).get())
+        .hasCauseInstanceOf(IndexOutOfBoundsException.class);
+  }
+
+  @SneakyThrows
+  private Path createFile () {
+    val path = FOLDER.resolve(UUID.randomUUID().toString());
+    Files.write(path, CONTENT);
+    return path;
+  }
+
+  @SneakyThrows
+  private void clearFolder () {
+    Files.createDirectories(FOLDER);
+    Files.walk(FOLDER)
+        .sorted(reverseOrder())
+        .map(Path::toFile)
+        .forEach(File::delete);
+    Files.createDirectories(FOLDER);
+  }
+}
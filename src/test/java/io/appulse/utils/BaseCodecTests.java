@@ -0,0 +1,146 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.appulse.utils;
+
+import static java.nio.charset.StandardCharsets.US_ASCII;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.nio.ByteBuffer;
+import java.util.Base64;
+import java.util.concurrent.ThreadLocalRandom;
+
+import lombok.val;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+class BaseCodecTests {
+
+  @ParameterizedTest
+  @CsvSource({
+      "'',       '',                 '',                 ''",
+      "f,        Zg==,               MY======,           66",
+      "fo,       Zm8=,               MZXQ====,           666F",
+      "foo,      Zm9v,               MZXW6===,           666F6F",
+      "foob,     Zm9vYg==,           MZXW6YQ=,           666F6F62",
+      "fooba,    Zm9vYmE=,           MZXW6YTB,           666F6F6261",
+      "foobar,   Zm9vYmFy,           MZXW6YTBOI======,   666F6F626172"
+  })
+  void rfc4648 (String text, String base64, String base32, String base16) {
+    val source = Bytes.wrap(text.getBytes(US_ASCII));
+
+    assertThat(BaseCodec.BASE64.encodeToString(source)).isEqualTo(base64);
+    assertThat(BaseCodec.BASE32.encodeToString(source)).isEqualTo(base32);
+    assertThat(BaseCodec.BASE16.encodeToString(source)).isEqualTo(base16);
+
+    assertThat(decode(BaseCodec.BASE64, base64)).isEqualTo(text);
+    assertThat(decode(BaseCodec.BASE64, base64.replace("=", ""))).isEqualTo(text);
+    assertThat(decode(BaseCodec.BASE32, base32.toLowerCase())).isEqualTo(text);
+    assertThat(decode(BaseCodec.BASE16, base16.toLowerCase())).isEqualTo(text);
+  }
+
+  @Test
+  void sameAsJdk () {
+    for (int length = 0; length < 100; length++) {
+      val bytes = new byte[length];
+      ThreadLocalRandom.current().nextBytes(bytes);
+      val source = Bytes.wrap(bytes);
+
+      assertThat(BaseCodec.BASE64.encodeToString(source))
+          .isEqualTo(Base64.getEncoder().encodeToString(bytes));
+      assertThat(BaseCodec.BASE64_URL.encodeToString(source))
+          .isEqualTo(Base64.getUrlEncoder().encodeToString(bytes));
+      assertThat(BaseCodec.BASE64_URL.withoutPadding().encodeToString(source))
+          .isEqualTo(Base64.getUrlEncoder().withoutPadding().encodeToString(bytes));
+      assertThat(BaseCodec.BASE16.encodeToString(source))
+          .isEqualTo(HexUtil.toHexString(bytes));
+    }
+  }
+
+  @Test
+  void asciiBytes () {
+    val bytes = new byte[1000];
+    ThreadLocalRandom.current().nextBytes(bytes);
+    val source = Bytes.wrap(ByteBuffer.allocateDirect(bytes.length));
+    source.writeNB(bytes);
+
+    for (val codec : new BaseCodec[] { BaseCodec.BASE64, BaseCodec.BASE32, BaseCodec.BASE16 }) {
+      val encoded = Bytes.resizableArray();
+      assertThat(codec.encode(source, 0, bytes.length, encoded))
+          .isEqualTo(codec.encodedLength(bytes.length));
+
+      val decoded = Bytes.resizableArray();
+      assertThat(codec.decode(encoded, 0, encoded.writerIndex(), decoded))
+          .isEqualTo(bytes.length);
+      assertThat(decoded.readBytes(decoded.readableBytes()))
+          .isEqualTo(bytes);
+    }
+  }
+
+  @Test
+  void streaming () {
+    val bytes = new byte[10_000];
+    ThreadLocalRandom.current().nextBytes(bytes);
+    val source = Bytes.wrap(bytes);
+
+    val text = new StringBuilder();
+    try (val encoder = BaseCodec.BASE32.newEncoder(text)) {
+      for (int index = 0; index < bytes.length; index += 7) {
+        encoder.update(source, index, Math.min(7, bytes.length - index));
+      }
+    }
+    assertThat(text.toString())
+        .isEqualTo(BaseCodec.BASE32.encodeToString(source));
+
+    val decoded = Bytes.resizableArray();
+    try (val decoder = BaseCodec.BASE32.newDecoder(decoded)) {
+      for (int index = 0; index < text.length(); index += 11) {
+        decoder.update(text, index, Math.min(text.length(), index + 11));
+      }
+    }
+    assertThat(decoded.readBytes(decoded.readableBytes()))
+        .isEqualTo(bytes);
+  }
+
+  @Test
+  void invalid () {
+    val target = Bytes.resizableArray();
+
+    assertThatThrownBy(() -> BaseCodec.BASE64.decode("Zm9vY", target))
+        .isInstanceOf(IllegalArgumentException.class)
+        .hasMessageContaining("truncated");
+    assertThatThrownBy(() -> BaseCodec.BASE64.decode("Zm9vYg=", target))
+        .isInstanceOf(IllegalArgumentException.class)
+        .hasMessageContaining("padding");
+    assertThatThrownBy(() -> BaseCodec.BASE64.decode("Zg==Zg==", target))
+        .isInstanceOf(IllegalArgumentException.class)
+        .hasMessageContaining("illegal character 'Z' at 4");
+    assertThatThrownBy(() -> BaseCodec.BASE64.decode("Zm9v$mFy", target))
+        .isInstanceOf(IllegalArgumentException.class)
+        .hasMessageContaining("illegal character '$' at 4");
+    assertThatThrownBy(() -> BaseCodec.BASE64_URL.decode("Zm9+", target))
+        .isInstanceOf(IllegalArgumentException.class);
+    assertThatThrownBy(() -> BaseCodec.BASE16.decode("6G", target))
+        .isInstanceOf(IllegalArgumentException.class);
+  }
+
+  private static String decode (BaseCodec codec, String text) {
+    val decoded = codec.decode(text);
+    return new String(decoded.readBytes(decoded.readableBytes()), US_ASCII);
+  }
+}
@@ -0,0 +1,141 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.appulse.utils;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Comparator.reverseOrder;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+
+import io.appulse.utils.BatchingFileAppender.FsyncPolicy;
+
+import lombok.SneakyThrows;
+import lombok.val;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+class BatchingFileAppenderTests {
+
+  private static final Path FOLDER = Paths.get("./test-folder");
+
+  @BeforeEach
+  void beforeEach () {
+    clearFolder();
+  }
+
+  @AfterEach
+  void afterEach () {
+    clearFolder();
+  }
+
+  @SneakyThrows
+  @ParameterizedTest
+  @EnumSource(FsyncPolicy.class)
+  void concurrentAppend (FsyncPolicy fsyncPolicy) {
+    val path = FOLDER.resolve(UUID.randomUUID().toString());
+    val producers = 4;
+    val records = 2000;
+    val futures = new CopyOnWriteArrayList<CompletableFuture<Void>>();
+
+    try (val appender = BatchingFileAppender.builder()
+        .path(path)
+        .maxBatchSizeBytes(1024)
+        .maxPendingBytes(4096)
+        .fsyncPolicy(fsyncPolicy)
+        .fsyncInterval(10L)
+        .build()) {
+
+      val executor = Executors.newFixedThreadPool(producers);
+      for (int producer = 0; producer < producers; producer++) {
+        val id = producer;
+        executor.execute(() -> {
+          for (int record = 0; record < records; record++) {
+            val line = String.format(Locale.ENGLISH, "%d:%d%n", id, record);
+            futures.add(appender.append(line.getBytes(UTF_8)));
+          }
+        });
+      }
+      executor.shutdown();
+      assertThat(executor.awaitTermination(30, SECONDS)).isTrue();
+
+      CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).get(10, SECONDS);
+    }
+
+    val lines = Files.readAllLines(path, UTF_8);
+    assertThat(lines).hasSize(producers * records);
+
+    val next = new HashMap<String, Integer>();
+    for (val line : lines) {
+      val parts = line.split(":");
+      val expected = next.getOrDefault(parts[0], 0);
+      assertThat(Integer.parseInt(parts[1])).isEqualTo(expected);
+      next.put(parts[0], expected + 1);
+    }
+  }
+
+  @Test
+  @SneakyThrows
+  void bytesRecord () {
+    val path = FOLDER.resolve(UUID.randomUUID().toString());
+    val futures = new ArrayList<CompletableFuture<Void>>();
+
+    val appender = BatchingFileAppender.builder()
+        .path(path)
+        .build();
+
+    val record = Bytes.resizableArray();
+    record.writeNB("#Hello ".getBytes(UTF_8));
+    record.readByte();
+    futures.add(appender.append(record));
+    assertThat(record.readableBytes()).isEqualTo(0);
+
+    futures.add(appender.append("world".getBytes(UTF_8)));
+    futures.get(1).get(10, SECONDS);
+    assertThat(futures.get(0)).isDone();
+
+    appender.close();
+    assertThat(Files.readAllBytes(path)).isEqualTo("Hello world".getBytes(UTF_8));
+    assertThatThrownBy(() -> appender.append(new byte[1]))
+        .isInstanceOf(IllegalStateException.class);
+  }
+
+  @SneakyThrows
+  private void clearFolder () {
+    Files.createDirectories(FOLDER);
+    Files.walk(FOLDER)
+        .sorted(reverseOrder())
+        .map(Path::toFile)
+        .forEach(File::delete);
+    Files.createDirectories(FOLDER);
+  }
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.appulse.utils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+
+import lombok.val;
+import org.junit.jupiter.api.Test;
+
+class BytesDataStreamsTest {
+
+  private static final String TEXT = "Hello, \u043C\u0438\u0440 \u2603 \u0000!";
+
+  @Test
+  void compatibleWithDataOutputStream () throws Exception {
+    val expected = new ByteArrayOutputStream();
+    try (val output = new DataOutputStream(expected)) {
+      writeAll(output);
+    }
+
+    val actual = new BytesDataOutputStream();
+    writeAll(actual);
+
+    assertThat(actual.toByteArray()).isEqualTo(expected.toByteArray());
+    assertThat(actual.size()).isEqualTo(expected.size());
+  }
+
+  @Test
+  void readWritten () throws Exception {
+    val output = new BytesDataOutputStream();
+    writeAll(output);
+
+    val input = new BytesDataInputStream(output.getBuffer());
+    assertThat(input.readBoolean()).isTrue();
+    assertThat(input.readByte()).isEqualTo((byte) -2);
+    assertThat(input.readUnsignedShort()).isEqualTo(0xFFFE);
+    assertThat(input.readChar()).isEqualTo('\u0436');
+    assertThat(input.readInt()).isEqualTo(Integer.MIN_VALUE);
+    assertThat(input.readLong()).isEqualTo(Long.MAX_VALUE);
+    assertThat(input.readFloat()).isEqualTo(1.5F);
+    assertThat(input.readDouble()).isEqualTo(-2.25D);
+    assertThat(input.readLine()).isEqualTo("line");
+    assertThat(input.readChar()).isEqualTo('x');
+    assertThat(input.readUTF()).isEqualTo(TEXT);
+
+    val bytes = new byte[3];
+    input.readFully(bytes);
+    assertThat(bytes).containsExactly(1, 2, 3);
+
+    assertThat(input.available()).isEqualTo(0);
+    assertThat(input.read()).isEqualTo(-1);
+    assertThat(input.read(bytes, 0, 3)).isEqualTo(-1);
+    assertThat(input.readLine()).isNull();
+    assertThatThrownBy(input::readInt)
+        .isInstanceOf(EOFException.class);
+  }
+
+  private void writeAll (DataOutput output) throws IOException {
+    output.writeBoolean(true);
+    output.writeByte(-2);
+    output.writeShort(0xFFFE);
+    output.writeChar('\u0436');
+    output.writeInt(Integer.MIN_VALUE);
+    output.writeLong(Long.MAX_VALUE);
+    output.writeFloat(1.5F);
+    output.writeDouble(-2.25D);
+    output.writeBytes("line\r\n");
+    output.writeChars("x");
+    output.writeUTF(TEXT);
+    output.write(new byte[] { 1, 2, 3 });
+  }
+}
@@ -16,9 +16,17 @@
 
 package io.appulse.utils;
 
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.management.ObjectName;
+
+import lombok.SneakyThrows;
 import lombok.val;
 import org.junit.jupiter.api.Test;
 
@@ -110,4 +118,258 @@ class BytesPoolTest {
       assertThat(buffer.capacity()).isGreaterThanOrEqualTo(16);
     }
   }
+
+  @Test
+  void shrinkOnRelease () {
+    val pool = BytesPool.builder()
+        .initialBufferSizeBytes(16)
+        .initialBuffersCount(1)
+        .shrinkThresholdBytes(64)
+        .build();
+
+    val buffer = pool.acquire();
+    buffer.capacity(1024);
+    buffer.release();
+
+    assertThat(pool.getRetainedBytes()).isEqualTo(16);
+    assertThat(pool.acquire().capacity()).isEqualTo(16);
+  }
+
+  @Test
+  void retainedSizeLimit () {
+    val pool = BytesPool.builder()
+        .initialBufferSizeBytes(16)
+        .initialBuffersCount(0)
+        .maximumRetainedSize(1L)
+        .maximumRetainedSizeUnit(SizeUnit.KILOBYTES)
+        .build();
+
+    val small = pool.acquire();
+    val big = pool.acquire(2048);
+    assertThat(pool.getTotalCount()).isEqualTo(2);
+
+    small.release();
+    big.release();
+
+    assertThat(pool.getTotalCount()).isEqualTo(1);
+    assertThat(pool.getRetainedBytes()).isEqualTo(16);
+  }
+
+  @Test
+  @SneakyThrows
+  void idleTrimming () {
+    val pool = BytesPool.builder()
+        .initialBufferSizeBytes(16)
+        .initialBuffersCount(1)
+        .idleTimeout(50L)
+        .idleTimeoutUnit(MILLISECONDS)
+        .build();
+
+    val buffer1 = pool.acquire();
+    val buffer2 = pool.acquire();
+    val buffer3 = pool.acquire();
+    buffer1.release();
+    buffer2.release();
+    buffer3.release();
+    assertThat(pool.getTotalCount()).isEqualTo(3);
+
+    for (int attempt = 0; attempt < 20 && pool.getTotalCount() > 1; attempt++) {
+      MILLISECONDS.sleep(50);
+    }
+    assertThat(pool.getTotalCount()).isEqualTo(1);
+    assertThat(pool.getRetainedBytes()).isEqualTo(16);
+
+    pool.close();
+    assertThat(pool.getTotalCount()).isEqualTo(0);
+  }
+
+  @Test
+  void directPool () {
+    val pool = BytesPool.builder()
+        .initialBufferSizeBytes(100)
+        .initialBuffersCount(1)
+        .direct(true)
+        .alignmentBytes(64)
+        .maximumDirectMemorySize(4L)
+        .maximumDirectMemorySizeUnit(SizeUnit.KILOBYTES)
+        .build();
+
+    assertThat(pool.getDirectMemoryBytes()).isGreaterThan(0);
+
+    val buffer = pool.acquire();
+    assertThat(buffer.isAutoResizable()).isTrue();
+    assertThat(buffer.capacity()).isEqualTo(128);
+
+    for (int i = 0; i < 100; i++) {
+      buffer.write4B(i);
+    }
+    assertThat(buffer.capacity()).isEqualTo(512);
+    assertThat(buffer.getInt(99 * Integer.BYTES)).isEqualTo(99);
+    assertThat(buffer.readInt()).isEqualTo(0);
+    assertThat(buffer.arrayCopy()).hasSize(400);
+
+    assertThatThrownBy(() -> buffer.capacity(8192))
+        .isInstanceOf(IllegalStateException.class);
+
+    assertThatThrownBy(() -> pool.acquire(8192))
+        .isInstanceOf(IllegalStateException.class);
+    assertThat(pool.getAcquiredCount()).isEqualTo(1);
+
+    buffer.release();
+    pool.close();
+
+    assertThat(pool.getTotalCount()).isEqualTo(0);
+    assertThat(pool.getDirectMemoryBytes()).isEqualTo(0);
+  }
+
+  @Test
+  void freedDirectBuffer () {
+    val allocator = new DirectMemoryAllocator(64, 4096);
+    val buffer = BytesDirectBuffer.allocate(allocator, 100);
+    buffer.write4B(42);
+
+    buffer.free();
+    assertThat(buffer.capacity()).isEqualTo(0);
+    assertThat(allocator.getUsedBytes()).isEqualTo(0);
+
+    assertThatThrownBy(() -> buffer.write4B(42))
+        .isInstanceOf(IndexOutOfBoundsException.class);
+    assertThatThrownBy(() -> buffer.capacity(128))
+        .isInstanceOf(IndexOutOfBoundsException.class);
+    assertThat(allocator.getUsedBytes()).isEqualTo(0);
+  }
+
+  @Test
+  void directPoolInstantiation () {
+    assertThatThrownBy(() -> BytesPool.builder().direct(true).bufferCreateFunction(Bytes::allocate).build())
+        .isInstanceOf(IllegalArgumentException.class);
+
+    assertThatThrownBy(() -> BytesPool.builder().direct(true).alignmentBytes(100).build())
+        .isInstanceOf(IllegalArgumentException.class);
+  }
+
+  @Test
+  @SneakyThrows
+  void concurrentAcquire () {
+    val pool = BytesPool.builder()
+        .initialBufferSizeBytes(16)
+        .initialBuffersCount(0)
+        .maximumBuffersCount(4)
+        .build();
+
+    val inUse = new AtomicInteger();
+    val maxInUse = new AtomicInteger();
+    val executor = Executors.newFixedThreadPool(8);
+    for (int thread = 0; thread < 8; thread++) {
+      executor.execute(() -> {
+        for (int i = 0; i < 10_000; i++) {
+          try (val buffer = pool.acquire()) {
+            maxInUse.accumulateAndGet(inUse.incrementAndGet(), Math::max);
+            buffer.write4B(i);
+            inUse.decrementAndGet();
+          }
+        }
+      });
+    }
+    executor.shutdown();
+    assertThat(executor.awaitTermination(30, SECONDS)).isTrue();
+
+    assertThat(maxInUse.get()).isLessThanOrEqualTo(4);
+    assertThat(pool.getAcquiredCount()).isEqualTo(0);
+    assertThat(pool.getFreeCount()).isEqualTo(4);
+    assertThat(pool.getTotalCount()).isBetween(1, 4);
+  }
+
+  @Test
+  void reuseAcquired () {
+    val pool = BytesPool.builder()
+        .initialBuffersCount(1)
+        .maximumBuffersCount(1)
+        .build();
+
+    val buffer1 = pool.acquire();
+    assertThat(buffer1.isAcquired()).isTrue();
+    buffer1.write4B(42);
+    buffer1.release();
+    assertThat(buffer1.isAcquired()).isFalse();
+
+    assertThatThrownBy(buffer1::release)
+        .isInstanceOf(IllegalStateException.class)
+        .hasMessage("Pooled bytes buffer already released");
+
+    val buffer2 = pool.acquire();
+    assertThat(buffer2).isSameAs(buffer1);
+    assertThat(buffer2.writerIndex()).isEqualTo(0);
+  }
+
+  @Test
+  void debugMode () {
+    val pool = BytesPool.builder()
+        .initialBuffersCount(1)
+        .debug(true)
+        .build();
+
+    val buffer = pool.acquire();
+    buffer.write4B(42);
+    buffer.release();
+
+    assertThatThrownBy(() -> buffer.write4B(43))
+        .isInstanceOf(IllegalStateException.class)
+        .hasMessage("Pooled bytes buffer already released");
+  }
+
+  @Test
+  @SneakyThrows
+  void stats () {
+    val pool = BytesPool.builder()
+        .initialBufferSizeBytes(16)
+        .initialBuffersCount(1)
+        .shrinkThresholdBytes(64)
+        .recordAcquireLatency(true)
+        .name("stats-test")
+        .build();
+
+    val buffer1 = pool.acquire();
+    val buffer2 = pool.acquire();
+    buffer1.capacity(128);
+    buffer1.release();
+    buffer2.release();
+    pool.acquire().release();
+
+    val stats = pool.getStats();
+    assertThat(stats.getAcquireCount()).isEqualTo(3);
+    assertThat(stats.getReuseCount()).isEqualTo(2);
+    assertThat(stats.getCreateCount()).isEqualTo(1);
+    assertThat(stats.getReuseRatio()).isEqualTo(2.0 / 3);
+    assertThat(stats.getWaitCount()).isEqualTo(0);
+    assertThat(stats.getGrowthCount()).isEqualTo(1);
+    assertThat(stats.getShrinkCount()).isEqualTo(1);
+    assertThat(stats.getPeakAcquiredCount()).isEqualTo(2);
+    assertThat(stats.getPeakTotalCount()).isEqualTo(2);
+    assertThat(stats.getPeakRetainedBytes()).isEqualTo(32);
+    assertThat(stats.getAcquireLatency().getCount()).isEqualTo(3);
+
+    val server = ManagementFactory.getPlatformMBeanServer();
+    val name = new ObjectName("io.appulse.utils:type=BytesPool,name=\"stats-test\"");
+    assertThat(server.isRegistered(name)).isTrue();
+    assertThat(server.getAttribute(name, "TotalCount")).isEqualTo(2);
+
+    pool.close();
+    assertThat(server.isRegistered(name)).isFalse();
+  }
+
+  @Test
+  void duplicateName () {
+    try (val pool = BytesPool.builder().name("duplicate-test").build()) {
+      assertThatThrownBy(() -> BytesPool.builder()
+          .direct(true)
+          .idleTimeout(1L)
+          .name("duplicate-test")
+          .build())
+          .isInstanceOf(IllegalArgumentException.class)
+          .hasMessageContaining("'duplicate-test' is already registered");
+
+      assertThat(pool.getTotalCount()).isEqualTo(2);
+    }
+  }
 }
@@ -248,4 +248,37 @@ class BytesSliceTests {
         .isInstanceOf(UnsupportedOperationException.class)
         .hasMessage("The operation doesn't support in BytesReadOnly wrapper");
   }
+
+  @Test
+  void nioBuffer () {
+    val bytes = Bytes.wrap(Arrays.copyOf(buffer, buffer.length));
+    val slice = bytes.slice()
+        .from(8)
+        .to(buffer.length - 8)
+        .toMutableBytes();
+    slice.readerIndex(2);
+
+    val readable = slice.nioBuffer();
+    assertThat(readable.remaining())
+        .isEqualTo(14);
+    assertThat(readable.get(0))
+        .isEqualTo((byte) 0x0A);
+
+    val range = slice.nioBuffer(4, 4);
+    assertThat(range.remaining())
+        .isEqualTo(4);
+    assertThat(range.get(0))
+        .isEqualTo((byte) 0x0C);
+
+    range.put(0, (byte) 0x7F);
+    assertThat(slice.getByte(4))
+        .isEqualTo((byte) 0x7F);
+    assertThat(bytes.getByte(12))
+        .isEqualTo((byte) 0x7F);
+
+    assertThatThrownBy(() -> slice.nioBuffer(10, 8))
+        .isInstanceOf(IndexOutOfBoundsException.class);
+    assertThatThrownBy(() -> slice.nioBuffer(-1, 2))
+        .isInstanceOf(IndexOutOfBoundsException.class);
+  }
 }
@@ -0,0 +1,143 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.appulse.utils;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.ByteArrayInputStream;
+import java.nio.channels.Channels;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import lombok.val;
+import org.junit.jupiter.api.Test;
+
+class BytesTokenizerTests {
+
+  @Test
+  void lines () {
+    val content = "first\r\nsecond\n\nfourth\r\nlast";
+
+    val tokenizer = BytesTokenizer.builder()
+        .inputStream(new ByteArrayInputStream(content.getBytes(UTF_8)))
+        .bufferSizeBytes(4)
+        .build();
+
+    assertThat(tokens(tokenizer))
+        .containsExactly("first", "second", "", "fourth", "last");
+    assertThat(tokenizer.next()).isNull();
+  }
+
+  @Test
+  void delimiter () {
+    val random = new Random(42);
+    val expected = new ArrayList<String>();
+    val content = new StringBuilder();
+    for (int index = 0; index < 1000; index++) {
+      val token = new StringBuilder();
+      for (int length = random.nextInt(100); length > 0; length--) {
+        token.append((char) ('a' + random.nextInt(2)));
+      }
+      expected.add(token.toString());
+      content.append(token).append("abc");
+    }
+
+    val tokenizer = BytesTokenizer.builder()
+        .channel(Channels.newChannel(new ByteArrayInputStream(content.toString().getBytes(UTF_8))))
+        .delimiter("abc".getBytes(UTF_8))
+        .bufferSizeBytes(16)
+        .build();
+
+    assertThat(tokens(tokenizer)).isEqualTo(expected);
+  }
+
+  @Test
+  void bytes () {
+    val bytes = Bytes.resizableArray();
+    bytes.writeNB("skip|one||two|".getBytes(UTF_8));
+    bytes.readerIndex(5);
+
+    val tokenizer = BytesTokenizer.builder()
+        .bytes(bytes)
+        .delimiter(new byte[] { '|' })
+        .build();
+
+    assertThat(tokens(tokenizer)).containsExactly("one", "", "two");
+    assertThat(bytes.readerIndex()).isEqualTo(5);
+  }
+
+  @Test
+  void errors () {
+    assertThatThrownBy(() -> BytesTokenizer.builder().build())
+        .isInstanceOf(IllegalArgumentException.class);
+
+    assertThatThrownBy(() -> BytesTokenizer.builder()
+        .bytes(Bytes.allocate(1))
+        .delimiter(new byte[0])
+        .build())
+        .isInstanceOf(IllegalArgumentException.class);
+
+    val tokenizer = BytesTokenizer.builder()
+        .inputStream(new ByteArrayInputStream(new byte[100]))
+        .bufferSizeBytes(8)
+        .maxTokenSizeBytes(32)
+        .build();
+
+    assertThatThrownBy(tokenizer::next)
+        .isInstanceOf(IllegalStateException.class);
+  }
+
+  @Test
+  void tokenLongerThanMaximum () {
+    val content = "0123456789\n" + repeat('x', 1000) + "\nlast";
+
+    val tokenizer = BytesTokenizer.builder()
+        .inputStream(new ByteArrayInputStream(content.getBytes(UTF_8)))
+        .maxTokenSizeBytes(10)
+        .build();
+
+    assertThat(tokenizer.next().readableBytes()).isEqualTo(10);
+    assertThatThrownBy(tokenizer::next)
+        .isInstanceOf(IllegalStateException.class);
+
+    val lastTokenizer = BytesTokenizer.builder()
+        .bytes(Bytes.wrap(repeat('x', 11).getBytes(UTF_8)))
+        .maxTokenSizeBytes(10)
+        .build();
+
+    assertThatThrownBy(lastTokenizer::next)
+        .isInstanceOf(IllegalStateException.class);
+  }
+
+  private static String repeat (char character, int count) {
+    val result = new char[count];
+    Arrays.fill(result, character);
+    return new String(result);
+  }
+
+  private static List<String> tokens (BytesTokenizer tokenizer) {
+    val result = new ArrayList<String>();
+    for (Bytes token = tokenizer.next(); token != null; token = tokenizer.next()) {
+      result.add(token.readString(token.readableBytes(), UTF_8));
+    }
+    return result;
+  }
+}
@@ -0,0 +1,153 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.appulse.utils;
+
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.WRITE;
+import static java.util.Comparator.reverseOrder;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Random;
+import java.util.UUID;
+
+import lombok.SneakyThrows;
+import lombok.val;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class ChunkedBytesOutputStreamTests {
+
+  private static final Path FOLDER = Paths.get("./test-folder");
+
+  @BeforeEach
+  void beforeEach () {
+    clearFolder();
+  }
+
+  @AfterEach
+  void afterEach () {
+    clearFolder();
+  }
+
+  @Test
+  void write () {
+    val expected = new byte[10_000];
+    new Random(42).nextBytes(expected);
+
+    try (val stream = new ChunkedBytesOutputStream(null, 100)) {
+      stream.write(expected[0]);
+      stream.write(expected, 1, 4999);
+
+      val bytes = Bytes.resizableArray();
+      bytes.writeNB(expected, 5000, 5000);
+      stream.write(bytes);
+      assertThat(bytes.readableBytes()).isEqualTo(0);
+
+      assertThat(stream.size()).isEqualTo(expected.length);
+      assertThat(stream.chunks()).hasSize(100);
+      assertThat(stream.toByteArray()).isEqualTo(expected);
+
+      val output = new ByteArrayOutputStream();
+      stream.writeTo(output);
+      assertThat(output.toByteArray()).isEqualTo(expected);
+
+      stream.reset();
+      assertThat(stream.size()).isEqualTo(0);
+      assertThat(stream.toByteArray()).isEmpty();
+    }
+  }
+
+  @Test
+  @SneakyThrows
+  void composite () {
+    try (val stream = new ChunkedBytesOutputStream(null, 3)) {
+      val expected = Bytes.resizableArray()
+          .write1B(1)
+          .write2B(2)
+          .write4B(3)
+          .write8B(4L)
+          .write4B(5.5F)
+          .write8B(6.5D)
+          .write2B('z');
+      stream.write(expected.arrayCopy());
+
+      val bytes = stream.toBytes();
+      assertThat(bytes.readableBytes()).isEqualTo(expected.writerIndex());
+      assertThat(bytes.readByte()).isEqualTo((byte) 1);
+      assertThat(bytes.readShort()).isEqualTo((short) 2);
+      assertThat(bytes.readInt()).isEqualTo(3);
+      assertThat(bytes.readLong()).isEqualTo(4L);
+      assertThat(bytes.readFloat()).isEqualTo(5.5F);
+      assertThat(bytes.readDouble()).isEqualTo(6.5D);
+      assertThat(bytes.readChar()).isEqualTo('z');
+      assertThat(bytes.isReadable()).isFalse();
+
+      assertThat(bytes.arrayCopy()).isEqualTo(expected.arrayCopy());
+      assertThat(bytes.getBytes(2, 10)).isEqualTo(expected.getBytes(2, 10));
+      assertThat(bytes.nioBuffer(3, 3)).isEqualTo(ByteBuffer.wrap(expected.getBytes(3, 3)));
+      assertThat(bytes.nioBuffer(2, 5)).isEqualTo(ByteBuffer.wrap(expected.getBytes(2, 5)));
+
+      assertThatThrownBy(() -> bytes.getInt(bytes.writerIndex() - 2))
+          .isInstanceOf(IndexOutOfBoundsException.class);
+      assertThatThrownBy(() -> bytes.write1B(0))
+          .isInstanceOf(UnsupportedOperationException.class);
+      assertThatThrownBy(bytes::array)
+          .isInstanceOf(UnsupportedOperationException.class);
+    }
+  }
+
+  @Test
+  @SneakyThrows
+  void pooled () {
+    val expected = new byte[100_000];
+    new Random(42).nextBytes(expected);
+    val path = FOLDER.resolve(UUID.randomUUID().toString());
+
+    try (val pool = BytesPool.builder().initialBufferSizeBytes(4096).build()) {
+      try (val stream = new ChunkedBytesOutputStream(pool, 4096)) {
+        stream.write(expected);
+        assertThat(pool.getAcquiredCount()).isEqualTo(stream.chunks().size());
+
+        try (val channel = FileChannel.open(path, CREATE, WRITE)) {
+          assertThat(stream.writeTo(channel)).isEqualTo(expected.length);
+        }
+        assertThat(stream.toBytes().arrayCopy()).isEqualTo(expected);
+      }
+      assertThat(pool.getAcquiredCount()).isEqualTo(0);
+    }
+    assertThat(Files.readAllBytes(path)).isEqualTo(expected);
+  }
+
+  @SneakyThrows
+  private void clearFolder () {
+    Files.createDirectories(FOLDER);
+    Files.walk(FOLDER)
+        .sorted(reverseOrder())
+        .map(Path::toFile)
+        .forEach(File::delete);
+    Files.createDirectories(FOLDER);
+  }
+}
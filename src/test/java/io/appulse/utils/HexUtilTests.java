@@ -16,7 +16,11 @@
 
 package io.appulse.utils;
 
+import static java.nio.charset.StandardCharsets.US_ASCII;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.StringWriter;
 
 import io.netty.util.internal.ThreadLocalRandom;
 import lombok.val;
@@ -57,4 +61,112 @@ class HexUtilTests {
     assertThat(HexUtil.toByteArray(string))
         .isEqualTo(bytes);
   }
+
+  @Test
+  void encodeCases () {
+    val buffer = Bytes.wrap(new byte[] { 0x00, (byte) 0xAB, 0x0F, (byte) 0xFF });
+
+    assertThat(HexUtil.toHexString(buffer, 0, 4, true))
+        .isEqualTo("00AB0FFF");
+    assertThat(HexUtil.toHexString(buffer, 1, 2, false))
+        .isEqualTo("ab0f");
+    assertThat(buffer.readerIndex())
+        .isEqualTo(0);
+  }
+
+  @Test
+  void encodeTargets () {
+    val source = Bytes.wrap(new byte[] { 0x12, (byte) 0xCD, 0x7E });
+
+    val chars = new char[8];
+    assertThat(HexUtil.encode(source, 0, 3, chars, 1, false))
+        .isEqualTo(6);
+    assertThat(new String(chars, 1, 6))
+        .isEqualTo("12cd7e");
+
+    val builder = new StringBuilder("0x");
+    assertThat(HexUtil.encode(source, 0, 3, builder, true))
+        .isEqualTo(6);
+    assertThat(builder.toString())
+        .isEqualTo("0x12CD7E");
+
+    val ascii = Bytes.resizableArray(2);
+    assertThat(HexUtil.encode(source, 0, 3, ascii, true))
+        .isEqualTo(6);
+    assertThat(ascii.readBytes(ascii.readableBytes()))
+        .isEqualTo("12CD7E".getBytes(US_ASCII));
+
+    assertThatThrownBy(() -> HexUtil.encode(source, 2, 2, new char[4], 0, true))
+        .isInstanceOf(IndexOutOfBoundsException.class);
+    assertThatThrownBy(() -> HexUtil.encode(source, 0, 3, new char[5], 0, true))
+        .isInstanceOf(IndexOutOfBoundsException.class);
+  }
+
+  @Test
+  void decode () {
+    val target = Bytes.resizableArray(2);
+    assertThat(HexUtil.decode("12cD7e", target))
+        .isEqualTo(3);
+    assertThat(target.readBytes(target.readableBytes()))
+        .isEqualTo(new byte[] { 0x12, (byte) 0xCD, 0x7E });
+
+    val source = Bytes.wrap("xxABff0a".getBytes(US_ASCII));
+    target.reset();
+    assertThat(HexUtil.decode(source, 2, 6, target))
+        .isEqualTo(3);
+    assertThat(target.readBytes(target.readableBytes()))
+        .isEqualTo(new byte[] { (byte) 0xAB, (byte) 0xFF, 0x0A });
+
+    assertThatThrownBy(() -> HexUtil.decode("ABC", target))
+        .isInstanceOf(IllegalArgumentException.class);
+    assertThatThrownBy(() -> HexUtil.decode("AG", target))
+        .isInstanceOf(IllegalArgumentException.class);
+    assertThatThrownBy(() -> HexUtil.decode("A\u0100", target))
+        .isInstanceOf(IllegalArgumentException.class);
+    assertThatThrownBy(() -> HexUtil.toByteArray("0z"))
+        .isInstanceOf(IllegalArgumentException.class);
+  }
+
+  @Test
+  void byteToHex () {
+    assertThat(HexUtil.byteToHex(0x0A)).isEqualTo("0a");
+    assertThat(HexUtil.byteToHex(255)).isEqualTo("ff");
+    assertThat(HexUtil.byteToHex(0x1234)).isEqualTo("1234");
+  }
+
+  @Test
+  void streamingDump () {
+    val bytes = new byte[100];
+    ThreadLocalRandom.current().nextBytes(bytes);
+    val buffer = Bytes.wrap(bytes);
+
+    val writer = new StringWriter();
+    assertThat(HexUtil.prettyHexDump(buffer, writer))
+        .isEqualTo(100);
+    assertThat(writer.toString())
+        .isEqualTo(HexUtil.prettyHexDump(bytes));
+  }
+
+  @Test
+  void truncatedDump () {
+    val buffer = Bytes.wrap(new byte[100]);
+
+    val builder = new StringBuilder();
+    assertThat(HexUtil.prettyHexDump(buffer, 0, 100, builder, 2))
+        .isEqualTo(32);
+    assertThat(builder.toString().split("\\R"))
+        .hasSize(3 + 2 + 2)
+        .contains("|   ...  | 68 of 100 bytes are truncated");
+
+    assertThatThrownBy(() -> HexUtil.prettyHexDump(buffer, 0, 100, builder, -1))
+        .isInstanceOf(IllegalArgumentException.class);
+  }
+
+  @Test
+  void rangeDump () {
+    val buffer = Bytes.wrap(new byte[] { 0x41, 0x42, 0x43, 0x44, 0x45 });
+
+    assertThat(HexUtil.prettyHexDump(buffer, 1, 2).split("\\R"))
+        .contains("|00000000| 42 43                                           |BC              |");
+  }
 }
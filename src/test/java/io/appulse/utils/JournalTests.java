@@ -0,0 +1,206 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.appulse.utils;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.WRITE;
+import static java.util.Comparator.reverseOrder;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+
+import lombok.SneakyThrows;
+import lombok.val;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class JournalTests {
+
+  private static final Path FOLDER = Paths.get("./test-folder");
+
+  @BeforeEach
+  void beforeEach () {
+    clearFolder();
+  }
+
+  @AfterEach
+  void afterEach () {
+    clearFolder();
+  }
+
+  @Test
+  void appendAndRead () {
+    try (val journal = Journal.builder()
+        .folder(FOLDER)
+        .segmentSizeBytes(1024)
+        .indexIntervalBytes(64)
+        .build()) {
+
+      assertThat(journal.getNextOffset()).isEqualTo(0);
+      assertThat(journal.read(0)).isEmpty();
+
+      for (int index = 0; index < 500; index++) {
+        assertThat(journal.append(record(index))).isEqualTo(index);
+      }
+      assertThat(journal.getNextOffset()).isEqualTo(500);
+      assertThat(journal.getSegmentsCount()).isGreaterThan(1);
+
+      for (int index = 0; index < 500; index++) {
+        assertThat(text(journal.read(index).get())).isEqualTo(text(index));
+      }
+      assertThat(journal.read(500)).isEmpty();
+      assertThat(journal.read(-1)).isEmpty();
+
+      val offsets = new ArrayList<Long>();
+      val next = journal.read(250, (offset, record) -> {
+        assertThat(text(record)).isEqualTo(text((int) offset));
+        offsets.add(offset);
+        return offset < 299;
+      });
+      assertThat(next).isEqualTo(300);
+      assertThat(offsets).hasSize(50);
+
+      assertThat(journal.read(0, (offset, record) -> true)).isEqualTo(500);
+
+      assertThatThrownBy(() -> journal.append(new byte[1024]))
+          .isInstanceOf(IllegalArgumentException.class);
+    }
+  }
+
+  @Test
+  void reopen () {
+    try (val journal = Journal.builder()
+        .folder(FOLDER)
+        .segmentSizeBytes(1024)
+        .build()) {
+
+      for (int index = 0; index < 100; index++) {
+        journal.append(record(index));
+      }
+    }
+
+    try (val journal = Journal.builder()
+        .folder(FOLDER)
+        .segmentSizeBytes(1024)
+        .build()) {
+
+      assertThat(journal.getNextOffset()).isEqualTo(100);
+      assertThat(journal.append(record(100))).isEqualTo(100);
+      for (int index = 0; index <= 100; index++) {
+        assertThat(text(journal.read(index).get())).isEqualTo(text(index));
+      }
+    }
+  }
+
+  @Test
+  @SneakyThrows
+  void tornTail () {
+    try (val journal = Journal.builder()
+        .folder(FOLDER)
+        .segmentSizeBytes(4096)
+        .build()) {
+
+      for (int index = 0; index < 10; index++) {
+        journal.append(record(index));
+      }
+    }
+
+    // imitates a torn write: a record's header without the whole payload
+    val path = FOLDER.resolve(JournalSegment.fileName(0, JournalSegment.LOG_SUFFIX));
+    try (val channel = FileChannel.open(path, READ, WRITE)) {
+      long position = 0;
+      val header = ByteBuffer.allocate(JournalSegment.HEADER_SIZE);
+      for (int index = 0; index < 10; index++) {
+        header.clear();
+        channel.read(header, position);
+        position += JournalSegment.recordSize(header.getInt(0));
+      }
+      val torn = ByteBuffer.allocate(JournalSegment.HEADER_SIZE + 3);
+      torn.putInt(100).putInt(42).put(new byte[] { 1, 2, 3 }).flip();
+      channel.write(torn, position);
+    }
+
+    try (val journal = Journal.builder()
+        .folder(FOLDER)
+        .segmentSizeBytes(4096)
+        .build()) {
+
+      assertThat(journal.getNextOffset()).isEqualTo(10);
+      assertThat(journal.append(record(10))).isEqualTo(10);
+      assertThat(text(journal.read(9).get())).isEqualTo(text(9));
+      assertThat(text(journal.read(10).get())).isEqualTo(text(10));
+    }
+  }
+
+  @Test
+  void retention () {
+    try (val journal = Journal.builder()
+        .folder(FOLDER)
+        .segmentSizeBytes(1024)
+        .maxTotalSize(3L)
+        .maxTotalSizeUnit(SizeUnit.KILOBYTES)
+        .build()) {
+
+      for (int index = 0; index < 1000; index++) {
+        journal.append(record(index));
+      }
+
+      assertThat(journal.getSegmentsCount()).isEqualTo(3);
+      assertThat(journal.getFirstOffset()).isGreaterThan(0);
+      assertThat(journal.read(0)).isEmpty();
+      assertThat(text(journal.read(999).get())).isEqualTo(text(999));
+
+      val first = journal.getFirstOffset();
+      assertThat(journal.read(0, (offset, record) -> false)).isEqualTo(first + 1);
+    }
+  }
+
+  private static Bytes record (int index) {
+    val result = Bytes.resizableArray();
+    result.write4B(index);
+    result.writeNB(text(index).getBytes(UTF_8));
+    result.readInt();
+    return result;
+  }
+
+  private static String text (int index) {
+    return "record #" + index;
+  }
+
+  private static String text (Bytes bytes) {
+    return bytes.readString(bytes.readableBytes(), UTF_8);
+  }
+
+  @SneakyThrows
+  private void clearFolder () {
+    Files.createDirectories(FOLDER);
+    Files.walk(FOLDER)
+        .sorted(reverseOrder())
+        .map(Path::toFile)
+        .forEach(File::delete);
+    Files.createDirectories(FOLDER);
+  }
+}
@@ -0,0 +1,211 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.appulse.utils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.GatheringByteChannel;
+import java.util.ArrayList;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import lombok.val;
+import org.junit.jupiter.api.Test;
+
+class OutboundQueueTests {
+
+  @Test
+  void gatheringWrites () {
+    val channel = new CountingChannel(Long.MAX_VALUE);
+    val queue = OutboundQueue.builder().build();
+    for (int index = 0; index < 1000; index++) {
+      queue.add(Bytes.allocate(Integer.BYTES).write4B(index));
+    }
+
+    assertThat(queue.flush(channel)).isEqualTo(1000 * Integer.BYTES);
+    assertThat(channel.writes.get()).isEqualTo(16);
+    assertThat(queue.isEmpty()).isTrue();
+  }
+
+  @Test
+  void concurrentProducers () {
+    val producers = 8;
+    val messagesCount = 10_000;
+    val channel = new CountingChannel(Long.MAX_VALUE);
+    val queue = OutboundQueue.builder()
+        .highWatermarkBytes(Long.MAX_VALUE)
+        .build();
+
+    val futures = new ArrayList<CompletableFuture<Void>>();
+    for (int producer = 0; producer < producers; producer++) {
+      futures.add(CompletableFuture.runAsync(() -> {
+        for (int index = 0; index < messagesCount; index++) {
+          queue.add(Bytes.allocate(Integer.BYTES).write4B(index));
+          queue.flush(channel);
+        }
+      }));
+    }
+    futures.forEach(CompletableFuture::join);
+    queue.flush(channel);
+
+    assertThat(queue.isEmpty()).isTrue();
+    assertThat(queue.getPendingBytes()).isZero();
+    assertThat(channel.bytes.get()).isEqualTo((long) producers * messagesCount * Integer.BYTES);
+    assertThat(channel.writes.get()).isLessThanOrEqualTo(producers * messagesCount);
+  }
+
+  @Test
+  void backpressure () {
+    val channel = new CountingChannel(0);
+    val events = new ConcurrentLinkedQueue<Boolean>();
+
+    try (val pool = new BytesPool()) {
+      val queue = OutboundQueue.builder()
+          .highWatermarkBytes(1000L)
+          .lowWatermarkBytes(100L)
+          .maxGatheringBuffers(4)
+          .listener(events::add)
+          .build();
+
+      boolean writable = true;
+      int added = 0;
+      while (writable) {
+        val message = pool.acquire(100);
+        message.writeNB(new byte[100]);
+        writable = queue.add(message);
+        added++;
+      }
+      assertThat(added).isEqualTo(10);
+      assertThat(queue.flush(channel)).isZero();
+      assertThat(events).containsExactly(false);
+      assertThat(pool.getAcquiredCount()).isEqualTo(10);
+
+      // the partial writes
+      channel.allowance = 850;
+      assertThat(queue.flush(channel)).isEqualTo(850);
+      assertThat(queue.isWritable()).isFalse();
+      assertThat(queue.getPendingBytes()).isEqualTo(150);
+      assertThat(pool.getAcquiredCount()).isEqualTo(2);
+
+      channel.allowance = Long.MAX_VALUE;
+      assertThat(queue.flush(channel)).isEqualTo(150);
+      assertThat(queue.isWritable()).isTrue();
+      assertThat(queue.isEmpty()).isTrue();
+      assertThat(events).containsExactly(false, true);
+      assertThat(pool.getAcquiredCount()).isZero();
+    }
+  }
+
+  @Test
+  void writableAfterConcurrentDrain () {
+    val channel = new CountingChannel(Long.MAX_VALUE);
+    val queue = OutboundQueue.builder()
+        .highWatermarkBytes((long) Integer.BYTES)
+        .lowWatermarkBytes(0L)
+        .build();
+
+    val executor = Executors.newSingleThreadExecutor();
+    try {
+      for (int index = 0; index < 100_000; index++) {
+        val message = Bytes.allocate(Integer.BYTES).write4B(index);
+        val producer = CompletableFuture.runAsync(() -> queue.add(message), executor);
+        while (!producer.isDone() || !queue.isEmpty()) {
+          queue.flush(channel);
+          Thread.yield();
+        }
+        producer.join();
+
+        assertThat(queue.getPendingBytes()).isZero();
+        assertThat(queue.isWritable()).isTrue();
+      }
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  @Test
+  void close () {
+    try (val pool = new BytesPool()) {
+      val queue = OutboundQueue.builder().build();
+      for (int index = 0; index < 5; index++) {
+        queue.add(pool.acquire(16).write4B(index));
+      }
+      assertThat(pool.getAcquiredCount()).isEqualTo(5);
+
+      queue.close();
+      assertThat(pool.getAcquiredCount()).isZero();
+      assertThat(queue.getPendingBytes()).isZero();
+      assertThatThrownBy(() -> queue.add(Bytes.allocate(1)))
+          .isInstanceOf(IllegalStateException.class);
+    }
+  }
+
+  private static class CountingChannel implements GatheringByteChannel {
+
+    final AtomicInteger writes = new AtomicInteger();
+
+    final AtomicLong bytes = new AtomicLong();
+
+    volatile long allowance;
+
+    CountingChannel (long allowance) {
+      this.allowance = allowance;
+    }
+
+    @Override
+    public long write (ByteBuffer[] sources, int offset, int length) {
+      writes.incrementAndGet();
+      long written = 0;
+      for (int index = offset; index < offset + length && written < allowance; index++) {
+        val source = sources[index];
+        val count = (int) Math.min(source.remaining(), allowance - written);
+        source.position(source.position() + count);
+        written += count;
+      }
+      if (allowance != Long.MAX_VALUE) {
+        allowance -= written;
+      }
+      bytes.addAndGet(written);
+      return written;
+    }
+
+    @Override
+    public long write (ByteBuffer[] sources) {
+      return write(sources, 0, sources.length);
+    }
+
+    @Override
+    public int write (ByteBuffer source) {
+      return (int) write(new ByteBuffer[] { source });
+    }
+
+    @Override
+    public boolean isOpen () {
+      return true;
+    }
+
+    @Override
+    public void close () {
+      // no op
+    }
+  }
+}
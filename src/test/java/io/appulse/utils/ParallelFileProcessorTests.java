@@ -0,0 +1,129 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.appulse.utils;
+
+import static java.nio.charset.StandardCharsets.ISO_8859_1;
+import static java.util.Comparator.reverseOrder;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Random;
+import java.util.UUID;
+
+import lombok.SneakyThrows;
+import lombok.val;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class ParallelFileProcessorTests {
+
+  private static final Path FOLDER = Paths.get("./test-folder");
+
+  @BeforeEach
+  void beforeEach () {
+    clearFolder();
+  }
+
+  @AfterEach
+  void afterEach () {
+    clearFolder();
+  }
+
+  @Test
+  @SneakyThrows
+  void records () {
+    val random = new Random(42);
+    val content = new StringBuilder();
+    int lines = 0;
+    while (content.length() < 500_000) {
+      for (int i = random.nextInt(300); i > 0; i--) {
+        content.append((char) ('a' + random.nextInt(26)));
+      }
+      content.append(lines++).append("\r\n");
+    }
+    val path = createFile(content.toString().getBytes(ISO_8859_1));
+
+    try (val processor = ParallelFileProcessor.builder()
+        .chunkSizeBytes(10_000)
+        .delimiter("\r\n".getBytes(ISO_8859_1))
+        .parallelism(4)
+        .build()) {
+
+      val result = processor.process(path, "", chunk -> {
+        val bytes = chunk.getContent();
+        val string = bytes.readString(bytes.readableBytes(), ISO_8859_1);
+        assertThat(string).endsWith("\r\n");
+        return string;
+      }, String::concat);
+      assertThat(result).isEqualTo(content.toString());
+
+      long count = processor.process(path, 0L, chunk -> {
+        val bytes = chunk.getContent();
+        long newLines = 0;
+        for (int index = bytes.readerIndex(); index < bytes.writerIndex(); index++) {
+          if (bytes.getByte(index) == '\n') {
+            newLines++;
+          }
+        }
+        return newLines;
+      }, Long::sum);
+      assertThat(count).isEqualTo(lines);
+    }
+  }
+
+  @Test
+  void chunks () {
+    val bytes = new byte[10_000];
+    new Random(42).nextBytes(bytes);
+    val path = createFile(bytes);
+
+    try (val processor = ParallelFileProcessor.builder()
+        .chunkSizeBytes(1)
+        .build()) {
+
+      int chunkSize = processor.process(path, 0, chunk -> chunk.getContent().readableBytes(), Math::max);
+      assertThat(chunkSize).isEqualTo(Math.min(DirectBufferUtils.PAGE_SIZE, bytes.length));
+
+      int total = processor.process(path, 0, chunk -> chunk.getContent().readableBytes(), Integer::sum);
+      assertThat(total).isEqualTo(bytes.length);
+
+      val empty = createFile(new byte[0]);
+      assertThat(processor.process(empty, -1, chunk -> 1, Integer::sum)).isEqualTo(-1);
+    }
+  }
+
+  @SneakyThrows
+  private Path createFile (byte[] content) {
+    val path = FOLDER.resolve(UUID.randomUUID().toString());
+    Files.write(path, content);
+    return path;
+  }
+
+  @SneakyThrows
+  private void clearFolder () {
+    Files.createDirectories(FOLDER);
+    Files.walk(FOLDER)
+        .sorted(reverseOrder())
+        .map(Path::toFile)
+        .forEach(File::delete);
+    Files.createDirectories(FOLDER);
+  }
+}
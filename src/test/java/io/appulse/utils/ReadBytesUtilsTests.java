@@ -22,10 +22,13 @@ import static java.nio.file.StandardOpenOption.READ;
 import static java.nio.file.StandardOpenOption.WRITE;
 import static java.util.Comparator.reverseOrder;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.InputStream;
 import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.channels.ReadableByteChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
@@ -209,6 +212,50 @@ class ReadBytesUtilsTests {
     });
   }
 
+  @Test
+  void readDirect () {
+    withInputStream(inputStream -> {
+      val buffer = Bytes.wrap(ByteBuffer.allocateDirect(CONTENT.length + 2));
+      buffer.writerIndex(2);
+      val readed = ReadBytesUtils.read(inputStream, buffer, 5);
+
+      assertThat(readed).isEqualTo(5);
+      assertThat(buffer.writerIndex()).isEqualTo(7);
+      buffer.readerIndex(2);
+      assertThat(buffer.readString(5, UTF_8)).isEqualTo("Hello");
+    });
+
+    withChannel(channel -> {
+      val buffer = ByteBuffer.allocateDirect(CONTENT.length + 2);
+      buffer.position(2);
+      val readed = ReadBytesUtils.read(channel, buffer, 5);
+
+      assertThat(readed).isEqualTo(5);
+      assertThat(buffer.position()).isEqualTo(7);
+    });
+  }
+
+  @Test
+  void readScattering () {
+    withPath(path -> {
+      val first = Bytes.allocate(3);
+      val second = Bytes.wrap(ByteBuffer.allocateDirect(4));
+      val third = Bytes.allocate(16);
+
+      try (val channel = FileChannel.open(path, READ)) {
+        val readed = ReadBytesUtils.read(channel, first, second, third);
+        assertThat(readed).isEqualTo(CONTENT.length);
+      }
+
+      assertThat(first.writerIndex()).isEqualTo(3);
+      assertThat(second.writerIndex()).isEqualTo(4);
+      assertThat(third.writerIndex()).isEqualTo(4);
+      assertThat(first.readString(3, UTF_8)).isEqualTo("Hel");
+      assertThat(second.readString(4, UTF_8)).isEqualTo("lo w");
+      assertThat(third.readString(4, UTF_8)).isEqualTo("orld");
+    });
+  }
+
   @Test
   void readPath () {
     withPath(path -> {
@@ -345,6 +392,51 @@ class ReadBytesUtilsTests {
     });
   }
 
+  @Test
+  void readSized () {
+    val content = new byte[1000];
+    for (int i = 0; i < content.length; i++) {
+      content[i] = (byte) i;
+    }
+
+    val buffer = ReadBytesUtils.read(new ByteArrayInputStream(content));
+    assertThat(buffer.readableBytes()).isEqualTo(content.length);
+    assertThat(buffer.capacity()).isEqualTo(content.length);
+    assertThat(buffer.arrayCopy()).isEqualTo(content);
+  }
+
+  @Test
+  void readAll () {
+    withPath(path -> {
+      val buffer = ReadBytesUtils.readAll(path);
+
+      assertThat(buffer.readableBytes()).isEqualTo(CONTENT.length);
+      assertThat(buffer.capacity()).isEqualTo(64);
+      assertThat(buffer.arrayCopy()).isEqualTo(CONTENT);
+
+      buffer.write1B(1);
+      assertThat(buffer.readableBytes()).isEqualTo(CONTENT.length + 1);
+    });
+    withFile(file -> {
+      val buffer = ReadBytesUtils.readAll(file, 0);
+
+      assertThat(buffer.readableBytes()).isEqualTo(CONTENT.length);
+      assertThat(buffer.arrayCopy()).isEqualTo(CONTENT);
+      assertThatThrownBy(() -> buffer.write1B(1))
+          .isInstanceOf(UnsupportedOperationException.class);
+    });
+    withPath(path -> {
+      Files.write(path, new byte[0]);
+      val buffer = ReadBytesUtils.readAll(path, 0);
+
+      assertThat(buffer.readableBytes()).isEqualTo(0);
+    });
+    withPath(path -> {
+      assertThatThrownBy(() -> ReadBytesUtils.readAll(path, -1))
+          .isInstanceOf(IllegalArgumentException.class);
+    });
+  }
+
   @SneakyThrows
   private void withInputStream (ConsumerWithThrowable<InputStream> consumer) {
     val path = createFile();
@@ -16,6 +16,7 @@
 
 package io.appulse.utils;
 
+import static java.util.Collections.singletonList;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
@@ -23,6 +24,7 @@ import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.ObjectOutputStream;
 import java.io.OutputStream;
+import java.util.ArrayList;
 import java.util.HashMap;
 
 import io.appulse.utils.exception.SerializationException;
@@ -161,4 +163,63 @@ class SerializationUtilsTest {
     assertThatThrownBy(() -> SerializationUtils.deserialize(new byte[0]))
         .isExactlyInstanceOf(SerializationException.class);
   }
+
+  @Test
+  void testSerializeIntoBytes () {
+    HashMap<Object, Object> map = new HashMap<>(2);
+    map.put("foo", "foo");
+    map.put("bar", 7);
+
+    val buffer = Bytes.resizableArray(16);
+    val first = SerializationUtils.serializeInto(map, buffer);
+    val second = SerializationUtils.serializeInto("popa", buffer);
+    assertThat(first).isEqualTo(SerializationUtils.serialize(map).length);
+    assertThat(buffer.writerIndex()).isEqualTo(first + second);
+
+    assertThat(SerializationUtils.<HashMap<Object, Object>>deserialize(buffer)).isEqualTo(map);
+    assertThat(buffer.readerIndex()).isEqualTo(first);
+    assertThat(SerializationUtils.<String>deserialize(buffer)).isEqualTo("popa");
+    assertThat(buffer.isReadable()).isFalse();
+
+    map.put(new Object(), new Object());
+    assertThatThrownBy(() -> SerializationUtils.serializeInto(map, buffer))
+        .isExactlyInstanceOf(SerializationException.class);
+    assertThat(buffer.writerIndex()).isEqualTo(first + second);
+  }
+
+  @Test
+  void testSerializePooled () {
+    try (val pool = new BytesPool()) {
+      try (val buffer = SerializationUtils.serializePooled("popa", pool)) {
+        assertThat(pool.getAcquiredCount()).isEqualTo(1);
+        assertThat(SerializationUtils.<String>deserialize(buffer)).isEqualTo("popa");
+      }
+      assertThat(pool.getAcquiredCount()).isZero();
+
+      assertThatThrownBy(() -> SerializationUtils.serializePooled(new ArrayList<>(singletonList(new Object())), pool))
+          .isExactlyInstanceOf(SerializationException.class);
+      assertThat(pool.getAcquiredCount()).isZero();
+    }
+  }
+
+  @Test
+  void testSerializeAll () {
+    val objects = new ArrayList<HashMap<String, Integer>>();
+    for (int index = 0; index < 100; index++) {
+      val map = new HashMap<String, Integer>(1);
+      map.put("index", index);
+      objects.add(map);
+    }
+    objects.add(null);
+    objects.add(objects.get(0));
+
+    val buffer = Bytes.resizableArray();
+    val written = SerializationUtils.serializeAll(objects, buffer);
+    assertThat(written).isLessThan(objects.size() * SerializationUtils.serialize(objects.get(0)).length);
+
+    val result = SerializationUtils.<HashMap<String, Integer>>deserializeAll(buffer);
+    assertThat(result).isEqualTo(objects);
+    assertThat(result.get(101)).isSameAs(result.get(0));
+    assertThat(buffer.isReadable()).isFalse();
+  }
 }
@@ -0,0 +1,146 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.appulse.utils;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.EOFException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+
+import lombok.SneakyThrows;
+import lombok.val;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class SocketFrameReaderTests {
+
+  ServerSocket server;
+
+  Socket client;
+
+  Socket accepted;
+
+  OutputStream output;
+
+  @BeforeEach
+  @SneakyThrows
+  void beforeEach () {
+    server = new ServerSocket(0, 1, InetAddress.getLoopbackAddress());
+    client = new Socket(InetAddress.getLoopbackAddress(), server.getLocalPort());
+    accepted = server.accept();
+    output = accepted.getOutputStream();
+  }
+
+  @AfterEach
+  @SneakyThrows
+  void afterEach () {
+    accepted.close();
+    client.close();
+    server.close();
+  }
+
+  @Test
+  @SneakyThrows
+  void frames () {
+    val payload = new byte[1000];
+    for (int index = 0; index < payload.length; index++) {
+      payload[index] = (byte) index;
+    }
+    output.write(payload);
+    output.write(Bytes.allocate(Integer.BYTES).write4B(3).array());
+    output.write("abc".getBytes(UTF_8));
+    output.write("first\r\nsecond\r\n\r\n".getBytes(UTF_8));
+    output.flush();
+
+    val reader = new SocketFrameReader(client, 16);
+    try (val pool = new BytesPool()) {
+      try (val buffer = pool.acquire(64)) {
+        reader.readFixed(buffer, payload.length, 1, SECONDS);
+        assertThat(buffer.readBytes(buffer.readableBytes())).isEqualTo(payload);
+      }
+      try (val buffer = pool.acquire(64)) {
+        reader.readLengthPrefixed(buffer, 16, 1, SECONDS);
+        assertThat(buffer.readString(buffer.readableBytes(), UTF_8)).isEqualTo("abc");
+      }
+
+      val delimiter = "\r\n".getBytes(UTF_8);
+      for (val expected : new String[] { "first", "second", "" }) {
+        try (val buffer = pool.acquire(64)) {
+          reader.readDelimited(buffer, delimiter, 32, 1, SECONDS);
+          assertThat(buffer.readString(buffer.readableBytes(), UTF_8)).isEqualTo(expected);
+        }
+      }
+    }
+  }
+
+  @Test
+  @SneakyThrows
+  void deadline () {
+    client.setSoTimeout(0);
+    val slowWriter = new Thread(() -> {
+      try {
+        for (int index = 0; index < 100; index++) {
+          output.write('a');
+          output.flush();
+          Thread.sleep(50);
+        }
+      } catch (Exception ex) {
+        // the socket is closed
+      }
+    });
+    slowWriter.start();
+
+    val reader = new SocketFrameReader(client);
+    val startTime = System.nanoTime();
+    assertThatThrownBy(() -> reader.readFixed(Bytes.resizableArray(), 100, 300, MILLISECONDS))
+        .isInstanceOf(SocketTimeoutException.class);
+    assertThat(System.nanoTime() - startTime).isLessThan(SECONDS.toNanos(2));
+    assertThat(client.getSoTimeout()).isZero();
+
+    accepted.close();
+    slowWriter.join();
+  }
+
+  @Test
+  @SneakyThrows
+  void errors () {
+    output.write(Bytes.allocate(Integer.BYTES).write4B(100).array());
+    output.write("too long line".getBytes(UTF_8));
+    output.flush();
+
+    val reader = new SocketFrameReader(client, 4);
+    assertThatThrownBy(() -> reader.readLengthPrefixed(Bytes.resizableArray(), 10, 1, SECONDS))
+        .isInstanceOf(IllegalStateException.class);
+
+    val other = new SocketFrameReader(client, 4);
+    assertThatThrownBy(() -> other.readDelimited(Bytes.resizableArray(), new byte[] { '\n' }, 4, 1, SECONDS))
+        .isInstanceOf(IllegalStateException.class);
+
+    accepted.shutdownOutput();
+    assertThatThrownBy(() -> other.readFixed(Bytes.resizableArray(), 100, 1, SECONDS))
+        .isInstanceOf(EOFException.class);
+  }
+}
@@ -17,9 +17,17 @@
 package io.appulse.utils;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.nio.channels.SocketChannel;
 import java.util.Optional;
+import java.util.Random;
 
+import lombok.SneakyThrows;
+import lombok.val;
 import org.junit.jupiter.api.Test;
 
 class SocketUtilsTest {
@@ -30,4 +38,95 @@ class SocketUtilsTest {
     assertThat(port).isPresent();
     assertThat(SocketUtils.isPortAvailable(port.get())).isTrue();
   }
+
+  @Test
+  void reservePort () {
+    int port;
+    try (val reservation = SocketUtils.reservePort()) {
+      port = reservation.getPort();
+      assertThat(port).isPositive();
+      assertThat(reservation.isUdp()).isFalse();
+      assertThat(SocketUtils.isPortAvailable(port)).isFalse();
+      assertThat(SocketUtils.reservePort(port, port)).isEmpty();
+    }
+    assertThat(SocketUtils.isPortAvailable(port)).isTrue();
+
+    val reservation = SocketUtils.reservePort(port, port);
+    assertThat(reservation).isPresent();
+    try (val channel = reservation.get().takeServerSocketChannel()) {
+      assertThat(channel.isOpen()).isTrue();
+      reservation.get().close();
+      assertThat(channel.isOpen()).isTrue();
+      assertThat(SocketUtils.isPortAvailable(port)).isFalse();
+    }
+
+    assertThatThrownBy(() -> SocketUtils.reservePort(10, 1))
+        .isInstanceOf(IllegalArgumentException.class);
+  }
+
+  @Test
+  @SneakyThrows
+  void reserveUdpPort () {
+    val reservation = SocketUtils.reserveUdpPort(20_000, 30_000);
+    assertThat(reservation).isPresent();
+
+    val port = reservation.get().getPort();
+    assertThat(port).isBetween(20_000, 30_000);
+    assertThat(reservation.get().isUdp()).isTrue();
+    assertThat(SocketUtils.reserveUdpPort(port, port)).isEmpty();
+    assertThatThrownBy(() -> reservation.get().takeServerSocketChannel())
+        .isInstanceOf(IllegalStateException.class);
+
+    try (val server = reservation.get().takeDatagramChannel();
+         val client = DatagramChannel.open()) {
+
+      client.send(ByteBuffer.wrap(new byte[] { 1, 2, 3 }), new InetSocketAddress("localhost", port));
+      val buffer = ByteBuffer.allocate(8);
+      server.receive(buffer);
+      assertThat(buffer.position()).isEqualTo(3);
+    }
+    assertThatThrownBy(() -> reservation.get().takeDatagramChannel())
+        .isInstanceOf(IllegalStateException.class);
+  }
+
+  @Test
+  @SneakyThrows
+  void nonBlockingReadWrite () {
+    try (val reservation = SocketUtils.reservePort();
+         val server = reservation.takeServerSocketChannel();
+         val client = SocketChannel.open(new InetSocketAddress("localhost", reservation.getPort()));
+         val accepted = server.accept()) {
+
+      client.configureBlocking(false);
+      accepted.configureBlocking(false);
+
+      val buffer = Bytes.allocate(16);
+      assertThat(SocketUtils.read(accepted, buffer)).isEqualTo(0);
+
+      val expected = new byte[4 * 1024 * 1024];
+      new Random(42).nextBytes(expected);
+      val header = Bytes.allocate(4).write4B(expected.length);
+      val body = Bytes.wrap(expected);
+      body.writerIndex(expected.length);
+
+      val received = Bytes.resizableArray();
+      while (body.isReadable()) {
+        SocketUtils.write(client, header, body);
+        SocketUtils.read(accepted, received);
+      }
+      assertThat(header.isReadable()).isFalse();
+      client.shutdownOutput();
+
+      while (SocketUtils.read(accepted, received) >= 0) {
+        Thread.yield();
+      }
+      assertThat(received.readInt()).isEqualTo(expected.length);
+      assertThat(received.readBytes(received.readableBytes())).isEqualTo(expected);
+
+      val response = Bytes.wrap(new byte[] { 1, 2, 3 });
+      response.writerIndex(3);
+      assertThat(SocketUtils.write(accepted, response)).isEqualTo(3);
+      assertThat(response.isReadable()).isFalse();
+    }
+  }
 }
@@ -17,13 +17,17 @@
 package io.appulse.utils;
 
 import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardOpenOption.READ;
 import static java.nio.file.StandardOpenOption.WRITE;
 import static java.util.Comparator.reverseOrder;
 import static org.assertj.core.api.Assertions.assertThat;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.OutputStream;
 import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
 import java.nio.channels.WritableByteChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
@@ -332,6 +336,110 @@ class WriteBytesUtilsTests {
     });
   }
 
+  @Test
+  void writeDirectBuffers () {
+    withChannel((path, channel) -> {
+      val buffer = ByteBuffer.allocateDirect(CONTENT.length);
+      buffer.put(CONTENT);
+      buffer.flip();
+      val written = WriteBytesUtils.write(channel, buffer, 5);
+
+      assertThat(written).isEqualTo(5);
+      assertThat(buffer.position()).isEqualTo(5);
+      assertThat(Files.readAllBytes(path)).isEqualTo(Arrays.copyOfRange(CONTENT, 0, 5));
+    });
+    withChannel((path, channel) -> {
+      val buffer = Bytes.wrap(ByteBuffer.allocateDirect(32));
+      buffer.write1B(42).writeNB(CONTENT);
+      buffer.readByte();
+      val written = WriteBytesUtils.write(channel, buffer);
+
+      assertThat(CONTENT).hasSize(written);
+      assertThat(buffer.readableBytes()).isEqualTo(0);
+      assertThat(Files.readAllBytes(path)).isEqualTo(CONTENT);
+    });
+    withOutputStream((path, outputStream) -> {
+      val buffer = Bytes.wrap(ByteBuffer.allocateDirect(32));
+      buffer.writeNB(CONTENT);
+      val written = WriteBytesUtils.write(outputStream, buffer);
+      outputStream.flush();
+
+      assertThat(CONTENT).hasSize(written);
+      assertThat(Files.readAllBytes(path)).isEqualTo(CONTENT);
+    });
+  }
+
+  @Test
+  void writeGathering () {
+    withPath(path -> {
+      val header = Bytes.resizableArray();
+      header.writeNB("#Hello".getBytes(UTF_8));
+      header.readByte();
+      val body = Bytes.wrap(ByteBuffer.allocateDirect(16));
+      body.write1B(' ');
+      val trailer = Bytes.wrap("world".getBytes(UTF_8));
+
+      try (val channel = FileChannel.open(path, WRITE)) {
+        val written = WriteBytesUtils.write(channel, header, body, trailer);
+        assertThat(written).isEqualTo(CONTENT.length);
+      }
+
+      assertThat(header.readableBytes()).isEqualTo(0);
+      assertThat(body.readableBytes()).isEqualTo(0);
+      assertThat(trailer.readableBytes()).isEqualTo(0);
+      assertThat(Files.readAllBytes(path)).isEqualTo(CONTENT);
+    });
+  }
+
+  @Test
+  void transferTo () {
+    withPath(source -> {
+      Files.write(source, CONTENT);
+
+      val target = createFile();
+      try (val channel = Files.newByteChannel(target, WRITE)) {
+        val transferred = WriteBytesUtils.transferTo(source, channel);
+        assertThat(transferred).isEqualTo(CONTENT.length);
+      }
+      assertThat(Files.readAllBytes(target)).isEqualTo(CONTENT);
+    });
+    withPath(source -> {
+      Files.write(source, CONTENT);
+
+      val target = createFile();
+      try (val sourceChannel = FileChannel.open(source, READ);
+           val targetChannel = Files.newByteChannel(target, WRITE)) {
+
+        val transferred = WriteBytesUtils.transferTo(sourceChannel, 3, 100, targetChannel);
+        assertThat(transferred).isEqualTo(CONTENT.length - 3);
+        assertThat(sourceChannel.position()).isEqualTo(0);
+      }
+      assertThat(Files.readAllBytes(target)).isEqualTo(Arrays.copyOfRange(CONTENT, 3, CONTENT.length));
+    });
+  }
+
+  @Test
+  void transferFrom () {
+    withPath(target -> {
+      val source = Channels.newChannel(new ByteArrayInputStream(CONTENT));
+      val transferred = WriteBytesUtils.transferFrom(source, target, 5);
+
+      assertThat(transferred).isEqualTo(5);
+      assertThat(Files.readAllBytes(target)).isEqualTo(Arrays.copyOfRange(CONTENT, 0, 5));
+    });
+    withPath(target -> {
+      val source = Channels.newChannel(new ByteArrayInputStream(CONTENT));
+      try (val channel = FileChannel.open(target, WRITE)) {
+        val transferred = WriteBytesUtils.transferFrom(source, channel, 2, 100);
+        assertThat(transferred).isEqualTo(CONTENT.length);
+      }
+
+      val content = Files.readAllBytes(target);
+      assertThat(content).hasSize(CONTENT.length + 2);
+      assertThat(Arrays.copyOfRange(content, 2, content.length)).isEqualTo(CONTENT);
+    });
+  }
+
   @SneakyThrows
   private void withOutputStream (BiconsumerWithThrowable<Path, OutputStream> consumer) {
     val path = createFile();
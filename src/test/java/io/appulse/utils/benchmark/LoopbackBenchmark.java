@@ -0,0 +1,439 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.appulse.utils.benchmark;
+
+import static java.net.StandardSocketOptions.TCP_NODELAY;
+import static java.util.Locale.ENGLISH;
+import static lombok.AccessLevel.PRIVATE;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import io.appulse.utils.Bytes;
+import io.appulse.utils.BytesPool;
+import io.appulse.utils.ReadBytesUtils;
+import io.appulse.utils.WriteBytesUtils;
+
+import lombok.Builder;
+import lombok.NonNull;
+import lombok.SneakyThrows;
+import lombok.Value;
+import lombok.experimental.FieldDefaults;
+import lombok.val;
+
+/**
+ * The loopback echo benchmark of the sockets' I/O paths.
+ * <p>
+ * The benchmark starts a local echo server and sends it the length-prefixed
+ * messages one by one, each round trip's latency is recorded. Every
+ * combination of the message size, the buffer type and the I/O style is
+ * measured on its own connection after a warm-up.
+ * <p>
+ * Run it with the test classpath, all the arguments are optional:
+ * <pre>{@code
+ * java -cp target/classes:target/test-classes:... io.appulse.utils.benchmark.LoopbackBenchmark \
+ *     sizes=64,1024,65536 iterations=20000 warmup=5000 \
+ *     buffers=HEAP,POOLED,DIRECT styles=STREAM,CHANNEL,GATHERING
+ * }</pre>
+ *
+ * @since 1.19.0
+ * @author Artem Labazin
+ */
+@FieldDefaults(level = PRIVATE, makeFinal = true)
+public final class LoopbackBenchmark implements AutoCloseable {
+
+  private static final int HEADER_SIZE = Integer.BYTES;
+
+  public static void main (String[] args) {
+    val options = new HashMap<String, String>();
+    for (val arg : args) {
+      val index = arg.indexOf('=');
+      if (index <= 0) {
+        throw new IllegalArgumentException("Invalid argument '" + arg + "', the format is key=value");
+      }
+      options.put(arg.substring(0, index), arg.substring(index + 1));
+    }
+
+    val sizes = Arrays.stream(options.getOrDefault("sizes", "64,1024,16384,65536").split(","))
+        .mapToInt(Integer::parseInt)
+        .toArray();
+
+    val buffers = Arrays.stream(options.getOrDefault("buffers", "HEAP,POOLED,DIRECT").split(","))
+        .map(BufferType::valueOf)
+        .collect(Collectors.toCollection(() -> EnumSet.noneOf(BufferType.class)));
+
+    val styles = Arrays.stream(options.getOrDefault("styles", "STREAM,CHANNEL,GATHERING").split(","))
+        .map(IoStyle::valueOf)
+        .collect(Collectors.toCollection(() -> EnumSet.noneOf(IoStyle.class)));
+
+    val iterations = Integer.parseInt(options.getOrDefault("iterations", "20000"));
+    val warmup = Integer.parseInt(options.getOrDefault("warmup", "5000"));
+
+    System.out.println(String.format(ENGLISH, "%-10s %-7s %8s %12s %10s %10s %10s %10s %10s",
+        "style", "buffer", "size", "msg/s", "MiB/s", "p50 us", "p99 us", "p999 us", "max us"));
+
+    try (val benchmark = new LoopbackBenchmark(warmup, iterations)) {
+      for (val result : benchmark.run(styles, buffers, sizes)) {
+        System.out.println(result.format());
+      }
+    }
+  }
+
+  /**
+   * The benchmarked buffers' type.
+   */
+  public enum BufferType {
+
+    /**
+     * The new heap buffer ({@link Bytes#allocate(int)}) for every message.
+     */
+    HEAP,
+
+    /**
+     * The heap buffers from a {@link BytesPool}.
+     */
+    POOLED,
+
+    /**
+     * The direct buffers from a direct {@link BytesPool}.
+     */
+    DIRECT
+  }
+
+  /**
+   * The benchmarked I/O style.
+   */
+  public enum IoStyle {
+
+    /**
+     * The socket's streams via {@link ReadBytesUtils} and {@link WriteBytesUtils}.
+     */
+    STREAM,
+
+    /**
+     * The blocking socket channel, the message is written from a single buffer.
+     */
+    CHANNEL,
+
+    /**
+     * The blocking socket channel, the header and the payload are written with a gathering write.
+     */
+    GATHERING
+  }
+
+  /**
+   * The measurement's result.
+   */
+  @Value
+  @Builder
+  public static class Result {
+
+    IoStyle style;
+
+    BufferType bufferType;
+
+    int messageSize;
+
+    long messages;
+
+    double messagesPerSecond;
+
+    double megabytesPerSecond;
+
+    long p50Nanos;
+
+    long p99Nanos;
+
+    long p999Nanos;
+
+    long maxNanos;
+
+    String format () {
+      return String.format(ENGLISH, "%-10s %-7s %8d %12.0f %10.1f %10.1f %10.1f %10.1f %10.1f",
+          style, bufferType, messageSize, messagesPerSecond, megabytesPerSecond,
+          p50Nanos / 1000.0, p99Nanos / 1000.0, p999Nanos / 1000.0, maxNanos / 1000.0);
+    }
+  }
+
+  int warmup;
+
+  int iterations;
+
+  ServerSocketChannel server;
+
+  BytesPool heapPool;
+
+  BytesPool directPool;
+
+  /**
+   * Starts the echo server.
+   *
+   * @param warmup the number of the not measured round trips before each measurement
+   *
+   * @param iterations the number of the measured round trips
+   */
+  @SneakyThrows
+  public LoopbackBenchmark (int warmup, int iterations) {
+    if (warmup < 0 || iterations <= 0) {
+      val msg = String.format(ENGLISH, "Invalid warmup %d or iterations %d", warmup, iterations);
+      throw new IllegalArgumentException(msg);
+    }
+    this.warmup = warmup;
+    this.iterations = iterations;
+
+    heapPool = new BytesPool();
+    directPool = BytesPool.builder()
+        .direct(true)
+        .build();
+
+    server = ServerSocketChannel.open();
+    server.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+
+    val acceptor = new Thread(this::accept, "loopback-benchmark-acceptor");
+    acceptor.setDaemon(true);
+    acceptor.start();
+  }
+
+  /**
+   * Measures all the combinations of the styles, buffer types and message sizes.
+   *
+   * @param styles the I/O styles
+   *
+   * @param bufferTypes the buffer types
+   *
+   * @param messageSizes the messages' payload sizes
+   *
+   * @return the results
+   */
+  public List<Result> run (@NonNull Set<IoStyle> styles, @NonNull Set<BufferType> bufferTypes, @NonNull int... messageSizes) {
+    val results = new ArrayList<Result>();
+    for (val style : styles) {
+      for (val bufferType : bufferTypes) {
+        for (val messageSize : messageSizes) {
+          results.add(run(style, bufferType, messageSize));
+        }
+      }
+    }
+    return results;
+  }
+
+  /**
+   * Measures the round trips of one combination on a new connection.
+   *
+   * @param style the I/O style
+   *
+   * @param bufferType the buffer type
+   *
+   * @param messageSize the message's payload size
+   *
+   * @return the result
+   */
+  @SneakyThrows
+  public Result run (@NonNull IoStyle style, @NonNull BufferType bufferType, int messageSize) {
+    val payload = new byte[messageSize];
+    Arrays.fill(payload, (byte) 'x');
+
+    try (val channel = SocketChannel.open(server.getLocalAddress())) {
+      channel.setOption(TCP_NODELAY, true);
+      val client = new Client(channel, style, bufferType, payload);
+
+      for (int index = 0; index < warmup; index++) {
+        client.roundTrip();
+      }
+
+      val samples = new long[iterations];
+      val start = System.nanoTime();
+      for (int index = 0; index < iterations; index++) {
+        val roundTripStart = System.nanoTime();
+        client.roundTrip();
+        samples[index] = System.nanoTime() - roundTripStart;
+      }
+      val elapsedNanos = System.nanoTime() - start;
+
+      Arrays.sort(samples);
+      val seconds = elapsedNanos / 1_000_000_000.0;
+      return Result.builder()
+          .style(style)
+          .bufferType(bufferType)
+          .messageSize(messageSize)
+          .messages(iterations)
+          .messagesPerSecond(iterations / seconds)
+          .megabytesPerSecond(2.0 * iterations * (HEADER_SIZE + messageSize) / seconds / (1024 * 1024))
+          .p50Nanos(percentile(samples, 0.5))
+          .p99Nanos(percentile(samples, 0.99))
+          .p999Nanos(percentile(samples, 0.999))
+          .maxNanos(samples[samples.length - 1])
+          .build();
+    }
+  }
+
+  @Override
+  @SneakyThrows
+  public void close () {
+    server.close();
+    heapPool.close();
+    directPool.close();
+  }
+
+  private static long percentile (long[] sorted, double percentile) {
+    val index = (int) Math.ceil(sorted.length * percentile) - 1;
+    return sorted[Math.max(0, Math.min(index, sorted.length - 1))];
+  }
+
+  private void accept () {
+    try {
+      while (server.isOpen()) {
+        val channel = server.accept();
+        val echo = new Thread(() -> echo(channel), "loopback-benchmark-echo");
+        echo.setDaemon(true);
+        echo.start();
+      }
+    } catch (Exception ex) {
+      // the server is closed
+    }
+  }
+
+  // echoes the length-prefixed messages back till the end of the stream
+  @SneakyThrows
+  private static void echo (SocketChannel channel) {
+    try (val socket = channel) {
+      socket.setOption(TCP_NODELAY, true);
+      val header = ByteBuffer.allocateDirect(HEADER_SIZE);
+      ByteBuffer payload = ByteBuffer.allocateDirect(0);
+      val views = new ByteBuffer[] { header, payload };
+      while (true) {
+        header.clear();
+        if (ReadBytesUtils.read(socket, header, HEADER_SIZE) < HEADER_SIZE) {
+          return;
+        }
+        val length = header.getInt(0);
+        if (payload.capacity() < length) {
+          payload = ByteBuffer.allocateDirect(length);
+          views[1] = payload;
+        }
+        payload.clear().limit(length);
+        if (ReadBytesUtils.read(socket, payload, length) < length) {
+          return;
+        }
+        header.flip();
+        payload.flip();
+        while (header.hasRemaining() || payload.hasRemaining()) {
+          socket.write(views);
+        }
+      }
+    }
+  }
+
+  @FieldDefaults(level = PRIVATE, makeFinal = true)
+  private final class Client {
+
+    SocketChannel channel;
+
+    Socket socket;
+
+    IoStyle style;
+
+    BufferType bufferType;
+
+    byte[] payload;
+
+    Client (SocketChannel channel, IoStyle style, BufferType bufferType, byte[] payload) {
+      this.channel = channel;
+      this.socket = channel.socket();
+      this.style = style;
+      this.bufferType = bufferType;
+      this.payload = payload;
+    }
+
+    @SneakyThrows
+    void roundTrip () {
+      val messageSize = HEADER_SIZE + payload.length;
+      if (style == IoStyle.GATHERING) {
+        val header = acquire(HEADER_SIZE);
+        val body = acquire(payload.length);
+        try {
+          header.write4B(payload.length);
+          body.writeNB(payload);
+          WriteBytesUtils.write(channel, header, body);
+
+          header.reset();
+          body.reset();
+          check(ReadBytesUtils.read(channel, header, HEADER_SIZE) + ReadBytesUtils.read(channel, body, payload.length),
+                messageSize);
+        } finally {
+          release(header);
+          release(body);
+        }
+        return;
+      }
+
+      val message = acquire(messageSize);
+      try {
+        message.write4B(payload.length);
+        message.writeNB(payload);
+        if (style == IoStyle.STREAM) {
+          val output = socket.getOutputStream();
+          WriteBytesUtils.write(output, message);
+          output.flush();
+          message.reset();
+          check(ReadBytesUtils.read(socket.getInputStream(), message, messageSize), messageSize);
+        } else {
+          WriteBytesUtils.write(channel, message);
+          message.reset();
+          check(ReadBytesUtils.read(channel, message, messageSize), messageSize);
+        }
+      } finally {
+        release(message);
+      }
+    }
+
+    private Bytes acquire (int size) {
+      switch (bufferType) {
+      case POOLED:
+        return heapPool.acquire(size);
+      case DIRECT:
+        return directPool.acquire(size);
+      default:
+        return Bytes.allocate(size);
+      }
+    }
+
+    private void release (Bytes buffer) {
+      if (buffer instanceof BytesPool.PooledBytes) {
+        ((BytesPool.PooledBytes) buffer).release();
+      }
+    }
+
+    private void check (long readed, int expected) {
+      if (readed != expected) {
+        val msg = String.format(ENGLISH, "Expected %d echoed bytes, but was %d", expected, readed);
+        throw new IllegalStateException(msg);
+      }
+    }
+  }
+}
@@ -0,0 +1,47 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.appulse.utils.benchmark;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.EnumSet;
+
+import io.appulse.utils.benchmark.LoopbackBenchmark.BufferType;
+import io.appulse.utils.benchmark.LoopbackBenchmark.IoStyle;
+
+import lombok.val;
+import org.junit.jupiter.api.Test;
+
+class LoopbackBenchmarkTests {
+
+  @Test
+  void allCombinations () {
+    try (val benchmark = new LoopbackBenchmark(10, 100)) {
+      val results = benchmark.run(EnumSet.allOf(IoStyle.class), EnumSet.allOf(BufferType.class), 16, 100_000);
+
+      assertThat(results).hasSize(IoStyle.values().length * BufferType.values().length * 2);
+      assertThat(results).allSatisfy(result -> {
+        assertThat(result.getMessages()).isEqualTo(100);
+        assertThat(result.getMessagesPerSecond()).isPositive();
+        assertThat(result.getP50Nanos()).isPositive();
+        assertThat(result.getP50Nanos()).isLessThanOrEqualTo(result.getP99Nanos());
+        assertThat(result.getP99Nanos()).isLessThanOrEqualTo(result.getP999Nanos());
+        assertThat(result.getP999Nanos()).isLessThanOrEqualTo(result.getMaxNanos());
+      });
+    }
+  }
+}
@@ -0,0 +1,276 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.appulse.utils.transport;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import io.appulse.utils.Bytes;
+import io.appulse.utils.BytesPool;
+
+import lombok.SneakyThrows;
+import lombok.val;
+import org.junit.jupiter.api.Test;
+
+class TransportTests {
+
+  private static final InetSocketAddress ANY_LOCAL_PORT = new InetSocketAddress("localhost", 0);
+
+  @Test
+  @SneakyThrows
+  void lengthPrefixedEcho () {
+    val connectionsCount = 200;
+    val framesCount = 50;
+
+    val server = Transport.builder()
+        .reactors(2)
+        .frameDecoder(FrameDecoder.lengthPrefixed(1024))
+        .handler((connection, frame) -> connection.write(frame(frame.readBytes(frame.readableBytes()))))
+        .build();
+
+    val received = new CountDownLatch(connectionsCount * framesCount);
+    val checksum = new AtomicLong();
+    val client = Transport.builder()
+        .reactors(2)
+        .frameDecoder(FrameDecoder.lengthPrefixed(1024))
+        .handler((connection, frame) -> {
+          checksum.addAndGet(frame.readInt());
+          received.countDown();
+        })
+        .build();
+
+    try {
+      val address = server.bind(ANY_LOCAL_PORT);
+
+      val connections = new ArrayList<Connection>(connectionsCount);
+      for (int index = 0; index < connectionsCount; index++) {
+        connections.add(client.connect(address).get(5, SECONDS));
+      }
+
+      long expected = 0;
+      for (int frame = 0; frame < framesCount; frame++) {
+        for (val connection : connections) {
+          connection.write(frame(Bytes.allocate(Integer.BYTES).write4B(frame).array()));
+          expected += frame;
+        }
+      }
+
+      assertThat(received.await(30, SECONDS)).isTrue();
+      assertThat(checksum.get()).isEqualTo(expected);
+      assertThat(client.getConnectionsCount()).isEqualTo(connectionsCount);
+
+      connections.forEach(Connection::close);
+      awaitConnectionsCount(server, 0);
+      awaitConnectionsCount(client, 0);
+    } finally {
+      client.close();
+      server.close();
+    }
+  }
+
+  @Test
+  @SneakyThrows
+  void delimited () {
+    val frames = new ConcurrentLinkedQueue<String>();
+    val closed = new CountDownLatch(1);
+
+    val server = Transport.builder()
+        .reactors(1)
+        .readBufferSizeBytes(4)
+        .frameDecoder(FrameDecoder.delimited("\r\n".getBytes(UTF_8), 64))
+        .handler(new TransportHandler() {
+
+          @Override
+          public void onFrame (Connection connection, Bytes frame) {
+            frames.add(frame.readString(frame.readableBytes(), UTF_8));
+          }
+
+          @Override
+          public void onClose (Connection connection, Throwable cause) {
+            closed.countDown();
+          }
+        })
+        .build();
+
+    val client = Transport.builder()
+        .reactors(1)
+        .handler((connection, frame) -> { })
+        .build();
+
+    try {
+      val address = server.bind(ANY_LOCAL_PORT);
+      val connection = client.connect(address).get(5, SECONDS);
+      connection.write(Bytes.wrap("first\r\nsec".getBytes(UTF_8)));
+      connection.write(Bytes.wrap("ond\r\n\r\nlast\r\n".getBytes(UTF_8)));
+      connection.close();
+
+      assertThat(closed.await(5, SECONDS)).isTrue();
+      assertThat(frames).containsExactly("first", "second", "", "last");
+    } finally {
+      client.close();
+      server.close();
+    }
+  }
+
+  @Test
+  @SneakyThrows
+  void backpressure () {
+    val receivedBytes = new AtomicLong();
+    val serverConnection = new ConcurrentLinkedQueue<Connection>();
+
+    val server = Transport.builder()
+        .reactors(1)
+        .handler(new TransportHandler() {
+
+          @Override
+          public void onOpen (Connection connection) {
+            connection.pauseReading();
+            serverConnection.add(connection);
+          }
+
+          @Override
+          public void onFrame (Connection connection, Bytes frame) {
+            receivedBytes.addAndGet(frame.readableBytes());
+          }
+        })
+        .build();
+
+    val client = Transport.builder()
+        .reactors(1)
+        .writeHighWatermarkBytes(64 * 1024)
+        .handler((connection, frame) -> { })
+        .build();
+
+    try {
+      val address = server.bind(ANY_LOCAL_PORT);
+      val connection = client.connect(address).get(5, SECONDS);
+
+      val message = new byte[16 * 1024];
+      long sent = 0;
+      while (connection.isWritable()) {
+        connection.write(Bytes.wrap(message));
+        sent += message.length;
+      }
+      assertThat(sent).isGreaterThanOrEqualTo(64 * 1024);
+
+      awaitNotEmpty(serverConnection);
+      serverConnection.peek().resumeReading();
+
+      val deadline = System.currentTimeMillis() + SECONDS.toMillis(10);
+      while (receivedBytes.get() < sent && System.currentTimeMillis() < deadline) {
+        Thread.sleep(10);
+      }
+      assertThat(receivedBytes.get()).isEqualTo(sent);
+      assertThat(connection.getPendingWriteBytes()).isZero();
+      assertThat(connection.isWritable()).isTrue();
+    } finally {
+      client.close();
+      server.close();
+    }
+  }
+
+  @Test
+  @SneakyThrows
+  void closeTransport () {
+    val closedCount = new AtomicInteger();
+    val server = Transport.builder()
+        .reactors(2)
+        .handler(new TransportHandler() {
+
+          @Override
+          public void onFrame (Connection connection, Bytes frame) {
+            // no op
+          }
+
+          @Override
+          public void onClose (Connection connection, Throwable cause) {
+            closedCount.incrementAndGet();
+          }
+        })
+        .build();
+
+    val client = Transport.builder()
+        .reactors(1)
+        .handler((connection, frame) -> { })
+        .build();
+
+    try {
+      val address = server.bind(ANY_LOCAL_PORT);
+      List<Connection> connections = new ArrayList<>();
+      for (int index = 0; index < 10; index++) {
+        connections.add(client.connect(address).get(5, SECONDS));
+      }
+      awaitConnectionsCount(server, 10);
+
+      server.close();
+      assertThat(server.getConnectionsCount()).isZero();
+      assertThat(closedCount.get()).isEqualTo(10);
+
+      awaitConnectionsCount(client, 0);
+      assertThat(connections).noneMatch(Connection::isOpen);
+    } finally {
+      client.close();
+      server.close();
+    }
+  }
+
+  @Test
+  void boundedBytesPool () {
+    try (val pool = BytesPool.builder().maximumBuffersCount(4).build()) {
+      assertThatThrownBy(() -> Transport.builder()
+          .bytesPool(pool)
+          .handler((connection, frame) -> { })
+          .build())
+          .isInstanceOf(IllegalArgumentException.class)
+          .hasMessageContaining("must be unbounded");
+    }
+  }
+
+  private static Bytes frame (byte[] payload) {
+    return Bytes.allocate(Integer.BYTES + payload.length)
+        .write4B(payload.length)
+        .writeNB(payload);
+  }
+
+  @SneakyThrows
+  private static void awaitConnectionsCount (Transport transport, int expected) {
+    val deadline = System.currentTimeMillis() + SECONDS.toMillis(10);
+    while (transport.getConnectionsCount() != expected && System.currentTimeMillis() < deadline) {
+      Thread.sleep(10);
+    }
+    assertThat(transport.getConnectionsCount()).isEqualTo(expected);
+  }
+
+  @SneakyThrows
+  private static void awaitNotEmpty (ConcurrentLinkedQueue<?> queue) {
+    val deadline = System.currentTimeMillis() + SECONDS.toMillis(10);
+    while (queue.isEmpty() && System.currentTimeMillis() < deadline) {
+      Thread.sleep(10);
+    }
+    assertThat(queue).isNotEmpty();
+  }
+}